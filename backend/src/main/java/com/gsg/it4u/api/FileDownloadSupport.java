@@ -0,0 +1,317 @@
+package com.gsg.it4u.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.gsg.it4u.service.storage.AttachmentCache;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Serves stored files with the caching and resume support download clients
+ * expect: a strong ETag (stored name plus size; stored files are never
+ * rewritten in place) and Last-Modified answer conditional requests with 304,
+ * and a Range request gets 206 with just the requested bytes.
+ * <p>
+ * On Tomcat connectors that allow it (plain NIO/NIO2, not TLS) a GET for a
+ * single range or the whole file is handed to the container's sendfile, which
+ * copies straight from the page cache to the socket (FileChannel.transferTo)
+ * after the request thread returns. Otherwise the file goes out as a
+ * Resource and Spring MVC does the range handling, multi-range included.
+ * <p>
+ * Attachments in a store without local files (S3) are streamed from the
+ * store, single ranges included. With {@code it4u.attachments.presigned-downloads}
+ * they are redirected to a short-lived pre-signed URL instead, so the bytes
+ * never pass through this JVM. That is off by default: the web client fetches
+ * downloads with XHR and credentials, and the browser follows the redirect
+ * only if the bucket's CORS rules allow the portal origin for GET with
+ * credentials (Access-Control-Allow-Credentials, no wildcard origin).
+ * <p>
+ * Files small enough for the {@link AttachmentCache} are served from memory
+ * from the second download on, whatever the store.
+ */
+@Component
+@Slf4j
+public class FileDownloadSupport {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Smaller files are cheaper to copy than to set up sendfile for (Tomcat's own default). */
+    @Value("${it4u.attachments.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes = 49152;
+
+    @Value("${it4u.attachments.presigned-downloads:false}")
+    private boolean presignedDownloads;
+
+    @Value("${it4u.attachments.presign-ttl-seconds:300}")
+    private long presignTtlSeconds = 300;
+
+    @Autowired(required = false)
+    private AttachmentCache attachmentCache;
+
+    /** Serves {@code key} from {@code store}; 404 when it does not exist. */
+    public ResponseEntity<Resource> download(AttachmentStore store, String key, String storedName,
+            MediaType contentType, String downloadName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        return download(store, key, storedName, null, contentType, downloadName, request, response);
+    }
+
+    /**
+     * As above; {@code sizeBytes}, when known, spares a lookup when deciding
+     * whether the file is small enough to be cached.
+     */
+    public ResponseEntity<Resource> download(AttachmentStore store, String key, String storedName, Long sizeBytes,
+            MediaType contentType, String downloadName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (attachmentCache != null) {
+            ByteBuffer cached;
+            try {
+                cached = attachmentCache.get(key, store, sizeBytes);
+            } catch (NoSuchFileException e) {
+                return ResponseEntity.notFound().build();
+            }
+            if (cached != null) {
+                return fromMemory(cached, storedName, contentType, downloadName, request, response);
+            }
+        }
+
+        Optional<Path> local = store.localPath(key);
+        if (local.isPresent()) {
+            Path file = local.get();
+            if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+                return ResponseEntity.notFound().build();
+            }
+            return download(file, storedName, contentType, downloadName, request, response);
+        }
+
+        if (presignedDownloads) {
+            Optional<URI> url = store.presignedGet(key, Duration.ofSeconds(presignTtlSeconds),
+                    contentType.toString(), downloadName, null);
+            if (url.isPresent()) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(url.get())
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .build();
+            }
+        }
+
+        long size = store.size(key);
+        if (size < 0) {
+            return ResponseEntity.notFound().build();
+        }
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + storedName + "-" + size + "\"")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            return unsatisfiable(size);
+        }
+        // Several ranges from a remote store are not worth a multipart body; the whole file is a valid answer
+        if (ranges.size() != 1) {
+            return fileHeaders(ResponseEntity.ok(), contentType, downloadName)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentLength(size)
+                    .body(new InputStreamResource(store.get(key, 0, -1)));
+        }
+        long start;
+        long end;
+        try {
+            start = ranges.get(0).getRangeStart(size);
+            end = ranges.get(0).getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            return unsatisfiable(size);
+        }
+        if (start >= size || start > end) {
+            return unsatisfiable(size);
+        }
+        return fileHeaders(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT), contentType, downloadName)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentLength(end - start + 1)
+                .body(new InputStreamResource(store.get(key, start, end - start + 1)));
+    }
+
+    private ResponseEntity<Resource> fromMemory(ByteBuffer content, String storedName, MediaType contentType,
+            String downloadName, HttpServletRequest request, HttpServletResponse response) {
+        // Same validator as the file itself, so cached and uncached responses revalidate alike
+        if (new ServletWebRequest(request, response)
+                .checkNotModified("\"" + storedName + "-" + content.remaining() + "\"")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        // A Resource with a length: Spring MVC answers Range requests from it
+        return fileHeaders(ResponseEntity.ok(), contentType, downloadName)
+                .body(new ByteBufferResource(content, storedName));
+    }
+
+    public ResponseEntity<Resource> download(Path file, String storedName, MediaType contentType,
+            String downloadName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + storedName + "-" + size + "\"";
+
+        // Sets ETag/Last-Modified on the response, and 304 when the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        if (size >= sendfileMinBytes && HttpMethod.GET.matches(request.getMethod())
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            } catch (IllegalArgumentException e) {
+                return unsatisfiable(size);
+            }
+            if (ranges.size() <= 1) {
+                return sendfile(file, size, ranges.isEmpty() ? null : ranges.get(0), contentType, downloadName,
+                        request);
+            }
+        }
+        return fileHeaders(ResponseEntity.ok(), contentType, downloadName).body(new FileSystemResource(file));
+    }
+
+    /**
+     * Serves a file stored gzip-compressed: clients that accept gzip get the
+     * stored bytes as they are with Content-Encoding: gzip (no CPU spent
+     * either way), others get it decompressed on the fly. Range requests are
+     * answered with the whole representation.
+     *
+     * @param originalSize uncompressed size, or null if unknown
+     */
+    public ResponseEntity<Resource> downloadGzipped(AttachmentStore store, String key, String storedName,
+            MediaType contentType, String downloadName, Long originalSize, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        boolean passthrough = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // The two representations differ, so must their validators
+        String etag = "\"" + storedName + (passthrough ? "-gzip" : "") + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        if (passthrough && presignedDownloads && store.localPath(key).isEmpty()) {
+            Optional<URI> url = store.presignedGet(key, Duration.ofSeconds(presignTtlSeconds),
+                    contentType.toString(), downloadName, "gzip");
+            if (url.isPresent()) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(url.get())
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .build();
+            }
+        }
+
+        long storedSize = store.size(key);
+        if (storedSize < 0) {
+            return ResponseEntity.notFound().build();
+        }
+        ResponseEntity.BodyBuilder ok = fileHeaders(ResponseEntity.ok(), contentType, downloadName)
+                .header(HttpHeaders.ACCEPT_RANGES, "none");
+        // InputStreamResource, not a file resource: Spring MVC must not apply Range to these bytes
+        if (passthrough) {
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(storedSize)
+                    .body(new InputStreamResource(store.get(key, 0, -1)));
+        }
+        InputStream stored = store.get(key, 0, -1);
+        InputStream decompressed;
+        try {
+            decompressed = new GZIPInputStream(stored, 64 * 1024);
+        } catch (IOException e) {
+            stored.close();
+            throw e;
+        }
+        if (originalSize != null) {
+            ok.contentLength(originalSize);
+        }
+        return ok.body(new InputStreamResource(decompressed));
+    }
+
+    /** True unless gzip is absent from Accept-Encoding or explicitly refused with q=0. */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim().replace(" ", "");
+                    if (param.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<Resource> sendfile(Path file, long size, HttpRange range, MediaType contentType,
+            String downloadName, HttpServletRequest request) {
+        long start = 0;
+        long end = size - 1;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                return unsatisfiable(size);
+            }
+            if (start >= size || start > end) {
+                return unsatisfiable(size);
+            }
+            response = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end + 1);
+        log.debug("sendfile {} bytes {}-{}", file.getFileName(), start, end);
+        return fileHeaders(response, contentType, downloadName)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentLength(end - start + 1)
+                .build();
+    }
+
+    private static ResponseEntity.BodyBuilder fileHeaders(ResponseEntity.BodyBuilder response, MediaType contentType,
+            String downloadName) {
+        return response.contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadName + "\"")
+                .header(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+    }
+
+    private static ResponseEntity<Resource> unsatisfiable(long size) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                .build();
+    }
+}
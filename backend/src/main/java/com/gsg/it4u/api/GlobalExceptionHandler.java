@@ -1,23 +1,36 @@
 package com.gsg.it4u.api;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Set<String> STREAM_HEADERS = Set.of("content-type", "content-disposition",
+            "content-encoding", "content-length");
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ApiError> handleResponseStatusException(ResponseStatusException ex,
             HttpServletRequest request) {
@@ -72,6 +85,36 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * A report query ran past its statement timeout (or the whole async request
+     * timed out). Streamed exports that already sent rows cannot change their
+     * status; the connection is just closed.
+     */
+    @ExceptionHandler({ QueryTimeoutException.class, jakarta.persistence.QueryTimeoutException.class,
+            org.hibernate.QueryTimeoutException.class, TransactionTimedOutException.class,
+            AsyncRequestTimeoutException.class })
+    public ResponseEntity<ApiError> handleQueryTimeout(Exception ex, HttpServletRequest request,
+            HttpServletResponse response) {
+        log.warn("Query timed out on {}: {}", request.getRequestURI(), ex.getMessage());
+        if (response.isCommitted()) {
+            return null;
+        }
+        discardStreamHeaders(response);
+
+        ApiError error = ApiError.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                .message("The report query took too long and was cancelled. Narrow the filter (for example "
+                        + "with a date range) or run it as a background export: POST /api/admin/reports/jobs")
+                .path(request.getRequestURI())
+                .requestId(MDC.get("requestId"))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleGenericException(Exception ex, HttpServletRequest request) {
         String requestId = MDC.get("requestId");
@@ -87,4 +130,16 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    /** Drops the file download headers a streaming endpoint set before its query failed. */
+    private static void discardStreamHeaders(HttpServletResponse response) {
+        Map<String, List<String>> kept = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!STREAM_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                kept.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        response.reset();
+        kept.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    }
 }
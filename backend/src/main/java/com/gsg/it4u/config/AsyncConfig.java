@@ -1,23 +1,147 @@
 package com.gsg.it4u.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    @Value("${it4u.mail.executor.core-size:2}")
+    private int mailCoreSize;
+
+    @Value("${it4u.mail.executor.max-size:5}")
+    private int mailMaxSize;
+
+    @Value("${it4u.mail.executor.queue-capacity:50}")
+    private int mailQueueCapacity;
+
+    @Value("${it4u.reports.stream-executor.core-size:2}")
+    private int streamCoreSize;
+
+    @Value("${it4u.reports.stream-executor.max-size:4}")
+    private int streamMaxSize;
+
+    @Value("${it4u.reports.stream-executor.queue-capacity:20}")
+    private int streamQueueCapacity;
+
+    @Value("${it4u.reports.export-executor.core-size:1}")
+    private int exportCoreSize;
+
+    @Value("${it4u.reports.export-executor.max-size:2}")
+    private int exportMaxSize;
+
+    @Value("${it4u.reports.export-executor.queue-capacity:10}")
+    private int exportQueueCapacity;
+
+    @Value("${it4u.attachments.thumbnail.threads:1}")
+    private int thumbnailThreads;
+
+    @Value("${it4u.attachments.thumbnail.queue-capacity:100}")
+    private int thumbnailQueueCapacity;
+
+    @Value("${it4u.reports.parallel-export.threads:4}")
+    private int renderThreads;
+
+    @Value("${it4u.reports.parallel-export.queue-capacity:16}")
+    private int renderQueueCapacity;
+
     @Bean(name = "mailExecutor")
-    public Executor mailExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(50);
+    public ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+                // Resizable so the admin pool API can change capacity without a restart
+                return new ResizableLinkedBlockingQueue<>(queueCapacity);
+            }
+        };
+        executor.setCorePoolSize(mailCoreSize);
+        executor.setMaxPoolSize(mailMaxSize);
+        executor.setQueueCapacity(mailQueueCapacity);
         executor.setThreadNamePrefix("MailThread-");
+        executor.setRejectedExecutionHandler(new RejectionCountingHandler(new ThreadPoolExecutor.AbortPolicy()));
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer rejectionCountingSchedulerCustomizer() {
+        return scheduler -> scheduler
+                .setRejectedExecutionHandler(new RejectionCountingHandler(new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    /**
+     * Runs StreamingResponseBody writers (report exports). Without it MVC falls
+     * back to an unbounded SimpleAsyncTaskExecutor, since mailExecutor stops
+     * Boot from creating applicationTaskExecutor.
+     */
+    @Bean(name = "streamingResponseExecutor")
+    public ThreadPoolTaskExecutor streamingResponseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(streamCoreSize);
+        executor.setMaxPoolSize(streamMaxSize);
+        executor.setQueueCapacity(streamQueueCapacity);
+        executor.setThreadNamePrefix("StreamThread-");
+        executor.setRejectedExecutionHandler(new RejectionCountingHandler(new ThreadPoolExecutor.AbortPolicy()));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Background export jobs (/api/admin/reports/jobs). Each running job holds
+     * one DB connection for its cursor, so keep max-size well under the
+     * Hikari pool; a full queue is rejected (503) rather than piling up.
+     */
+    @Bean(name = "reportExportExecutor")
+    public ThreadPoolTaskExecutor reportExportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportCoreSize);
+        executor.setMaxPoolSize(exportMaxSize);
+        executor.setQueueCapacity(exportQueueCapacity);
+        executor.setThreadNamePrefix("ExportThread-");
+        executor.setRejectedExecutionHandler(new RejectionCountingHandler(new ThreadPoolExecutor.AbortPolicy()));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fetches and renders partitions of large exports in parallel. Each busy
+     * thread holds a DB connection, so size it against the Hikari pool
+     * together with the stream and export executors. When full, the exporting
+     * thread renders the partition itself instead of failing.
+     */
+    @Bean(name = "reportRenderExecutor")
+    public ThreadPoolTaskExecutor reportRenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(renderThreads);
+        executor.setMaxPoolSize(renderThreads);
+        executor.setQueueCapacity(renderQueueCapacity);
+        executor.setThreadNamePrefix("RenderThread-");
+        executor.setRejectedExecutionHandler(new RejectionCountingHandler(new ThreadPoolExecutor.CallerRunsPolicy()));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Attachment thumbnails after upload. Decoding images is CPU and heap
+     * heavy, so keep this small; when full, work is dropped and the thumbnail
+     * is made on its first request instead.
+     */
+    @Bean(name = "thumbnailExecutor")
+    public ThreadPoolTaskExecutor thumbnailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(thumbnailThreads);
+        executor.setMaxPoolSize(thumbnailThreads);
+        executor.setQueueCapacity(thumbnailQueueCapacity);
+        executor.setThreadNamePrefix("ThumbnailThread-");
+        executor.setRejectedExecutionHandler(new RejectionCountingHandler(new ThreadPoolExecutor.DiscardPolicy()));
         executor.initialize();
         return executor;
     }
@@ -0,0 +1,42 @@
+package com.gsg.it4u.config;
+
+import com.gsg.it4u.service.storage.AttachmentStore;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import com.gsg.it4u.service.storage.S3AttachmentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Picks the attachment backend with {@code it4u.attachments.store}:
+ * {@code filesystem} (default, under {@code it4u.attachments.base-path}) or
+ * {@code s3} for an S3-compatible bucket shared by every backend node.
+ */
+@Configuration
+public class AttachmentStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "it4u.attachments.store", havingValue = "filesystem", matchIfMissing = true)
+    public AttachmentStore fileSystemAttachmentStore(
+            @Value("${it4u.attachments.base-path:./storage/attachments}") String basePath) {
+        return new FileSystemAttachmentStore(Paths.get(basePath));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "it4u.attachments.store", havingValue = "s3")
+    public AttachmentStore s3AttachmentStore(@Value("${it4u.attachments.s3.endpoint}") String endpoint,
+            @Value("${it4u.attachments.s3.bucket}") String bucket,
+            @Value("${it4u.attachments.s3.region:us-east-1}") String region,
+            @Value("${it4u.attachments.s3.access-key}") String accessKey,
+            @Value("${it4u.attachments.s3.secret-key}") String secretKey,
+            @Value("${it4u.attachments.s3.path-style:true}") boolean pathStyle,
+            @Value("${it4u.attachments.s3.multipart-threshold-bytes:16777216}") long multipartThresholdBytes,
+            @Value("${it4u.attachments.s3.part-size-bytes:8388608}") int partSizeBytes) {
+        return new S3AttachmentStore(URI.create(endpoint), bucket, region, accessKey, secretKey, pathStyle,
+                multipartThresholdBytes, partSizeBytes);
+    }
+}
@@ -0,0 +1,66 @@
+package com.gsg.it4u.config;
+
+import com.gsg.it4u.service.QueryCancellation;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Gives every async (StreamingResponseBody) request a {@link QueryCancellation},
+ * bound to the thread that writes the body, and fires it when the container
+ * reports the request timed out or failed - typically because the client
+ * disconnected - so report queries stop instead of running on unobserved.
+ */
+public class QueryCancellationInterceptor implements CallableProcessingInterceptor {
+
+    private static final String ATTRIBUTE = QueryCancellation.class.getName();
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        request.setAttribute(ATTRIBUTE, new QueryCancellation(), RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        QueryCancellation cancellation = get(request);
+        if (cancellation != null) {
+            cancellation.bind();
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        QueryCancellation.unbind();
+    }
+
+    @Override
+    public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+        cancel(request);
+        return RESULT_NONE;
+    }
+
+    @Override
+    public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+        cancel(request);
+        return RESULT_NONE;
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        // No-op once the body is written; anything still registered here has lost its client
+        cancel(request);
+    }
+
+    private static void cancel(NativeWebRequest request) {
+        QueryCancellation cancellation = get(request);
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+
+    private static QueryCancellation get(NativeWebRequest request) {
+        return (QueryCancellation) request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,29 @@
+package com.gsg.it4u.config;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts rejected submissions before delegating to the wrapped policy, so the
+ * rejected total can be published as a metric.
+ */
+public class RejectionCountingHandler implements RejectedExecutionHandler {
+
+    private final RejectedExecutionHandler delegate;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public RejectionCountingHandler(RejectedExecutionHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        rejected.incrementAndGet();
+        delegate.rejectedExecution(r, executor);
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
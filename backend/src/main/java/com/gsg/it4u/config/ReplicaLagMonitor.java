@@ -0,0 +1,82 @@
+package com.gsg.it4u.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.function.LongSupplier;
+
+/**
+ * Polls the read replica for its replay lag. The replica is usable while the
+ * last check succeeded, reported at most {@code it4u.datasource.replica.max-lag-ms}
+ * and is not older than {@code stale-after-ms}; otherwise read-only work falls
+ * back to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    /**
+     * Zero when the replica has replayed everything it received (an idle
+     * primary would otherwise look like growing lag), else the age of the
+     * last replayed transaction.
+     */
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT), 0) END";
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long staleAfterMs;
+    private final LongSupplier clock;
+
+    private volatile long lagMs = -1;
+    private volatile long checkedAt;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagMs, long staleAfterMs) {
+        this(replica, lagQuery, maxLagMs, staleAfterMs, System::currentTimeMillis);
+    }
+
+    ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagMs, long staleAfterMs, LongSupplier clock) {
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(2);
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.staleAfterMs = staleAfterMs;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${it4u.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Long lag = replica.queryForObject(lagQuery, Long.class);
+            lagMs = lag != null ? lag : 0;
+            checkedAt = clock.getAsLong();
+            usable = lagMs <= maxLagMs;
+            if (!usable && wasUsable) {
+                log.warn("Read replica lag {} ms exceeds {} ms, routing reads to primary", lagMs, maxLagMs);
+            }
+        } catch (Exception e) {
+            lagMs = -1;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Read replica check failed, routing reads to primary: {}", e.getMessage());
+            }
+        }
+        if (usable && !wasUsable) {
+            log.info("Read replica available (lag {} ms)", lagMs);
+        }
+    }
+
+    public boolean isUsable() {
+        return usable && clock.getAsLong() - checkedAt <= staleAfterMs;
+    }
+
+    /** Lag at the last successful check in ms, or -1 if the last check failed. */
+    public long getLagMs() {
+        return lagMs;
+    }
+}
@@ -0,0 +1,95 @@
+package com.gsg.it4u.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the read
+ * replica and everything else to the primary. Must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction's read-only flag is only
+ * visible once the transaction has started, after JPA asked for a connection.
+ * <p>
+ * Spring Data's own read-only repository transactions (a bare
+ * {@code repository.findById} outside a service transaction) stay on the
+ * primary, so a read straight after a write sees it. Replica routing is
+ * opt-in through application code only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Map<Route, AtomicLong> routed = new EnumMap<>(Route.class);
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        for (Route route : Route.values()) {
+            routed.put(route, new AtomicLong());
+        }
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = route();
+        routed.get(route).incrementAndGet();
+        return route;
+    }
+
+    private Route route() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (name != null && name.startsWith(REPOSITORY_TRANSACTION_PREFIX)) {
+            return Route.PRIMARY;
+        }
+        if (!lagMonitor.isUsable()) {
+            fallbacks.incrementAndGet();
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    /**
+     * it4u.datasource.connections (tagged by route),
+     * it4u.datasource.replica.fallbacks and it4u.datasource.replica.lag.
+     */
+    public void bindMetrics(MeterRegistry registry) {
+        routed.forEach((route, count) -> FunctionCounter.builder("it4u.datasource.connections", count, AtomicLong::get)
+                .description("Connections handed out by route")
+                .tag("route", route.name().toLowerCase())
+                .register(registry));
+        FunctionCounter.builder("it4u.datasource.replica.fallbacks", fallbacks, AtomicLong::get)
+                .description("Read-only connections sent to the primary because the replica lagged or was down")
+                .register(registry);
+        Gauge.builder("it4u.datasource.replica.lag", lagMonitor, ReplicaLagMonitor::getLagMs)
+                .description("Replica replay lag at the last check, -1 if unreachable")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public long getRoutedCount(Route route) {
+        return routed.get(route).get();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+}
@@ -0,0 +1,52 @@
+package com.gsg.it4u.config;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LinkedBlockingQueue whose capacity can be changed after the owning
+ * ThreadPoolExecutor has started. Only the non-blocking offer path (the one
+ * ThreadPoolExecutor uses) enforces the bound; a shrink below the current size
+ * simply stops accepting work until the queue drains. Offers are serialized
+ * so concurrent producers cannot overshoot the bound between the size check
+ * and the insert; takes only shrink the queue and need no coordination.
+ */
+public class ResizableLinkedBlockingQueue<E> extends LinkedBlockingQueue<E> {
+
+    private volatile int capacity;
+    private final ReentrantLock offerLock = new ReentrantLock();
+
+    public ResizableLinkedBlockingQueue(int capacity) {
+        super();
+        setCapacity(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must be >= 0");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        offerLock.lock();
+        try {
+            if (size() >= capacity) {
+                return false;
+            }
+            return super.offer(e);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+}
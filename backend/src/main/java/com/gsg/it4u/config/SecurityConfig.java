@@ -55,7 +55,8 @@ public class SecurityConfig {
                                                 }))
                                 .authorizeHttpRequests(auth -> auth
                                                 .requestMatchers("/actuator/health").permitAll()
-                                                .requestMatchers("/actuator/**").authenticated()
+                                                // Metrics expose pool sizes, request rates and timings
+                                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                                 .requestMatchers("/login/**", "/oauth2/**").permitAll()
                                                 .requestMatchers("/api/auth/login").permitAll()
                                                 // Explicitly permit static assets
@@ -1,8 +1,12 @@
 package com.gsg.it4u.controller;
 
 import com.gsg.it4u.constant.EmailEventType;
+import com.gsg.it4u.dto.EmailDeliverySummaryDTO;
 import com.gsg.it4u.entity.EmailAudit;
+import com.gsg.it4u.entity.EmailAuditHourly;
+import com.gsg.it4u.repository.EmailAuditHourlyRepository;
 import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.service.mail.EmailAuditRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,9 +16,12 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/email-audit")
@@ -22,8 +29,11 @@ import java.time.LocalDateTime;
 public class AdminEmailAuditController {
 
     private final EmailAuditRepository emailAuditRepository;
+    private final EmailAuditHourlyRepository emailAuditHourlyRepository;
+    private final EmailAuditRollupService emailAuditRollupService;
 
     @GetMapping
+    @Transactional(readOnly = true)
     @PreAuthorize("hasAnyRole('ADMIN', 'IT_SUPPORT')")
     public ResponseEntity<Page<com.gsg.it4u.dto.EmailAuditDTO>> getEmailAudits(
             @RequestParam(required = false) String status,
@@ -53,4 +63,61 @@ public class AdminEmailAuditController {
         Page<EmailAudit> audits = emailAuditRepository.findAll(spec, pageable);
         return ResponseEntity.ok(audits.map(com.gsg.it4u.dto.EmailAuditDTO::fromEntity));
     }
+
+    /**
+     * Hourly delivery rollup rows (maintained incrementally by
+     * EmailAuditRollupService).
+     */
+    @GetMapping("/rollup/hourly")
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAnyRole('ADMIN', 'IT_SUPPORT')")
+    public ResponseEntity<Page<EmailAuditHourly>> getHourlyRollup(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) EmailEventType eventType,
+            @RequestParam(required = false) String domain,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+            @PageableDefault(size = 100, sort = "bucketStart", direction = Sort.Direction.DESC) Pageable pageable) {
+        Specification<EmailAuditHourly> spec = Specification.where(null);
+
+        if (status != null && !status.isEmpty()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), status.toUpperCase()));
+        }
+        if (eventType != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("eventType"), eventType));
+        }
+        if (domain != null && !domain.isEmpty()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("recipientDomain"), domain.toLowerCase()));
+        }
+        if (fromDate != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("bucketStart"), fromDate));
+        }
+        if (toDate != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("bucketStart"), toDate));
+        }
+
+        return ResponseEntity.ok(emailAuditHourlyRepository.findAll(spec, pageable));
+    }
+
+    /**
+     * Sent/failed totals and failure reasons per event type and recipient domain.
+     * Defaults to the last 24 hours.
+     */
+    @GetMapping("/rollup/summary")
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAnyRole('ADMIN', 'IT_SUPPORT')")
+    public ResponseEntity<List<EmailDeliverySummaryDTO>> getDeliverySummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate) {
+        LocalDateTime to = toDate != null ? toDate : LocalDateTime.now();
+        LocalDateTime from = fromDate != null ? fromDate : to.minusHours(24);
+        return ResponseEntity.ok(emailAuditRollupService.summarize(from, to));
+    }
+
+    @PostMapping("/rollup/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> refreshRollup() {
+        int processed = emailAuditRollupService.rollup();
+        return ResponseEntity.ok(Map.of("processed", processed));
+    }
 }
@@ -1,5 +1,6 @@
 package com.gsg.it4u.controller;
 
+import com.gsg.it4u.api.FileDownloadSupport;
 import com.gsg.it4u.dto.AttachmentDTO;
 import com.gsg.it4u.entity.Attachment;
 import com.gsg.it4u.entity.Ticket;
@@ -7,20 +8,28 @@ import com.gsg.it4u.entity.User;
 import com.gsg.it4u.repository.AttachmentRepository;
 import com.gsg.it4u.repository.TicketRepository;
 import com.gsg.it4u.repository.UserRepository;
+import com.gsg.it4u.service.AttachmentArchiveService;
 import com.gsg.it4u.service.StorageService;
+import com.gsg.it4u.service.ThumbnailService;
 import com.gsg.it4u.service.TicketAccessService;
+import com.gsg.it4u.service.storage.AttachmentCache;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Path;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
@@ -44,6 +53,21 @@ public class AttachmentController {
     @Autowired
     private TicketAccessService ticketAccessService;
 
+    @Autowired
+    private FileDownloadSupport fileDownloadSupport;
+
+    @Autowired
+    private AttachmentStore attachmentStore;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AttachmentArchiveService attachmentArchiveService;
+
+    @Autowired
+    private AttachmentCache attachmentCache;
+
     private User getAuthenticatedUser() {
         org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder
                 .getContext().getAuthentication();
@@ -69,10 +93,58 @@ public class AttachmentController {
         return user;
     }
 
+    private static final long MAX_UPLOAD_BYTES = 5 * 1024 * 1024;
+
     @PostMapping
     @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','IT_SUPPORT','ADMIN')")
     public ResponseEntity<?> uploadAttachment(@PathVariable Long ticketId,
             @RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is empty");
+        }
+
+        // Validate size (5MB)
+        if (file.getSize() > MAX_UPLOAD_BYTES) {
+            return ResponseEntity.status(413).body("File too large. Max 5 MB");
+        }
+
+        try (InputStream in = file.getInputStream()) {
+            return saveAttachment(ticketId, file.getOriginalFilename(), file.getContentType(), in);
+        } catch (IOException e) {
+            log.error("Upload failed for Ticket #{}", ticketId, e);
+            return ResponseEntity.internalServerError().body("Upload failed");
+        }
+    }
+
+    /**
+     * Raw-body upload: the request body is the file itself, so it is streamed
+     * straight to storage instead of being spooled by the multipart resolver
+     * first. Same limits and checks as the multipart upload.
+     */
+    @PostMapping("/stream")
+    @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','IT_SUPPORT','ADMIN')")
+    public ResponseEntity<?> uploadAttachmentStream(@PathVariable Long ticketId,
+            @RequestParam("filename") String filename, HttpServletRequest request) {
+        if (request.getContentLengthLong() > MAX_UPLOAD_BYTES) {
+            return ResponseEntity.status(413).body("File too large. Max 5 MB");
+        }
+
+        // Drop parameters such as "; charset=UTF-8" so the type checks match the multipart path
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.indexOf(';') >= 0) {
+            contentType = contentType.substring(0, contentType.indexOf(';')).trim();
+        }
+
+        try {
+            return saveAttachment(ticketId, filename, contentType, request.getInputStream());
+        } catch (IOException e) {
+            log.error("Upload failed for Ticket #{}", ticketId, e);
+            return ResponseEntity.internalServerError().body("Upload failed");
+        }
+    }
+
+    private ResponseEntity<?> saveAttachment(Long ticketId, String originalFilename, String contentType,
+            InputStream in) throws IOException {
         User user = getAuthenticatedUser();
         if (user == null) {
             log.warn("Upload failed: User not authenticated");
@@ -91,18 +163,38 @@ public class AttachmentController {
                     .body("Access Denied: You do not have permission to upload to this ticket.");
         }
 
-        if (file.isEmpty()) {
-            return ResponseEntity.badRequest().body("File is empty");
+        if (!isAllowedType(originalFilename, contentType)) {
+            return ResponseEntity.badRequest().body("Only PDF, JPG, PNG, TXT, CSV files are allowed");
         }
 
-        // Validate size (5MB)
-        if (file.getSize() > 5 * 1024 * 1024) {
-            return ResponseEntity.status(413).body("File too large. Max 5 MB");
+        StorageService.StoredFile stored;
+        try {
+            stored = storageService.store(in, ticketId, MAX_UPLOAD_BYTES, contentType);
+        } catch (ResponseStatusException e) {
+            log.warn("Upload rejected for Ticket #{}: {}", ticketId, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         }
 
-        // Validate type
-        String contentType = file.getContentType();
-        String originalFilename = file.getOriginalFilename();
+        Attachment attachment = new Attachment();
+        attachment.setTicket(ticket);
+        attachment.setOriginalFileName(originalFilename);
+        attachment.setStoredFileName(stored.storedFileName());
+        attachment.setContentType(contentType);
+        attachment.setSizeBytes(stored.sizeBytes());
+        attachment.setSha256(stored.sha256());
+        attachment.setContentEncoding(stored.contentEncoding());
+        attachment.setUploadedBy(user);
+
+        Attachment saved = attachmentRepository.save(attachment);
+        log.info("Attachment uploaded successfully: {} for Ticket #{} by {}", saved.getOriginalFileName(), ticketId,
+                user.getUsername());
+        if (ThumbnailService.supports(contentType)) {
+            thumbnailService.generateAsync(ticketId, stored.storedFileName(), contentType);
+        }
+        return ResponseEntity.ok(AttachmentDTO.fromEntity(saved));
+    }
+
+    private static boolean isAllowedType(String originalFilename, String contentType) {
         if (originalFilename == null)
             originalFilename = "";
         String extension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
@@ -126,31 +218,7 @@ public class AttachmentController {
                     || mime.equals("text/plain")))
                 isValidMime = true;
         }
-
-        if (!isValidExtension || !isValidMime) {
-            return ResponseEntity.badRequest().body("Only PDF, JPG, PNG, TXT, CSV files are allowed");
-        }
-
-        try {
-            String storedName = storageService.store(file, ticketId);
-
-            Attachment attachment = new Attachment();
-            attachment.setTicket(ticket);
-            attachment.setOriginalFileName(file.getOriginalFilename());
-            attachment.setStoredFileName(storedName);
-            attachment.setContentType(contentType);
-            attachment.setSizeBytes(file.getSize());
-            attachment.setUploadedBy(user);
-
-            Attachment saved = attachmentRepository.save(attachment);
-            log.info("Attachment uploaded successfully: {} for Ticket #{} by {}", saved.getOriginalFileName(), ticketId,
-                    user.getUsername());
-            return ResponseEntity.ok(AttachmentDTO.fromEntity(saved));
-
-        } catch (IOException e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().body("Upload failed");
-        }
+        return isValidExtension && isValidMime;
     }
 
     @GetMapping
@@ -175,9 +243,53 @@ public class AttachmentController {
         return ResponseEntity.ok(attachments);
     }
 
+    /**
+     * All live attachments of the ticket as one ZIP, streamed as it is
+     * written; access is checked once for the whole set. Written on the
+     * request thread like single-file downloads, so archives never queue
+     * behind report exports on the streaming executor.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<?> downloadArchive(@PathVariable Long ticketId, HttpServletResponse response)
+            throws IOException {
+        User user = getAuthenticatedUser();
+        if (user == null)
+            return ResponseEntity.status(401).build();
+
+        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+        if (ticket == null)
+            return ResponseEntity.notFound().build();
+
+        if (!ticketAccessService.canViewTicket(user, ticket)) {
+            return ResponseEntity.status(403).body("Access Denied");
+        }
+
+        List<AttachmentArchiveService.Entry> entries = attachmentRepository.findByTicketIdAndDeletedFalse(ticketId)
+                .stream()
+                .map(AttachmentArchiveService.Entry::of)
+                .collect(Collectors.toList());
+        if (entries.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String name = (ticket.getTicketNumber() != null ? ticket.getTicketNumber() : "ticket-" + ticketId)
+                .replaceAll("[^a-zA-Z0-9._-]", "_") + "-attachments.zip";
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        attachmentArchiveService.write(entries, response.getOutputStream());
+        response.flushBuffer();
+        // The response is complete; a null entity tells MVC not to write one
+        return null;
+    }
+
+    /**
+     * Supports conditional (304) and Range (206) requests so interrupted
+     * downloads resume; see {@link FileDownloadSupport}.
+     */
     @GetMapping("/{attachmentId}/download")
     public ResponseEntity<?> downloadAttachment(@PathVariable Long ticketId,
-            @PathVariable Long attachmentId) {
+            @PathVariable Long attachmentId, HttpServletRequest request, HttpServletResponse response) {
         User user = getAuthenticatedUser();
         if (user == null)
             return ResponseEntity.status(401).build();
@@ -196,26 +308,63 @@ public class AttachmentController {
         }
 
         try {
-            Path filePath = storageService.load(ticketId, attachment.getStoredFileName());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType
-                                .parseMediaType(attachment.getContentType() != null ? attachment.getContentType()
-                                        : "application/octet-stream"))
-                        .header(HttpHeaders.CONTENT_DISPOSITION,
-                                "attachment; filename=\""
-                                        + attachment.getOriginalFileName().replaceAll("[^a-zA-Z0-9._-]", "_") + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+            String key = StorageService.key(ticketId, attachment.getStoredFileName(),
+                    attachment.getContentEncoding());
+            MediaType contentType = MediaType.parseMediaType(attachment.getContentType() != null
+                    ? attachment.getContentType()
+                    : "application/octet-stream");
+            String downloadName = attachment.getOriginalFileName().replaceAll("[^a-zA-Z0-9._-]", "_");
+            if (StorageService.GZIP.equals(attachment.getContentEncoding())) {
+                return fileDownloadSupport.downloadGzipped(attachmentStore, key, attachment.getStoredFileName(),
+                        contentType, downloadName, attachment.getSizeBytes(), request, response);
             }
+            return fileDownloadSupport.download(attachmentStore, key, attachment.getStoredFileName(),
+                    attachment.getSizeBytes(), contentType, downloadName, request, response);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Small JPEG preview of an image attachment (404 for other types). The
+     * URL always names the same bytes, so browsers may cache it for good.
+     */
+    @GetMapping("/{attachmentId}/thumbnail")
+    public ResponseEntity<?> getThumbnail(@PathVariable Long ticketId, @PathVariable Long attachmentId) {
+        User user = getAuthenticatedUser();
+        if (user == null)
+            return ResponseEntity.status(401).build();
+
+        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+        if (ticket == null)
+            return ResponseEntity.notFound().build();
+
+        if (!ticketAccessService.canViewTicket(user, ticket)) {
+            return ResponseEntity.status(403).body("Access Denied");
+        }
+
+        Attachment attachment = attachmentRepository.findById(attachmentId).orElse(null);
+        if (attachment == null || !attachment.getTicket().getId().equals(ticketId) || attachment.isDeleted()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            String key = thumbnailService.getOrCreate(ticketId, attachment.getStoredFileName(),
+                    attachment.getContentType());
+            if (key == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                    .contentLength(attachmentStore.size(key))
+                    .body(new InputStreamResource(attachmentStore.get(key, 0, -1)));
+        } catch (IOException e) {
+            log.warn("Thumbnail of attachment {} unavailable: {}", attachmentId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @DeleteMapping("/{attachmentId}")
     public ResponseEntity<?> deleteAttachment(@PathVariable Long ticketId,
             @PathVariable Long attachmentId) {
@@ -241,13 +390,12 @@ public class AttachmentController {
             return ResponseEntity.status(403).body("You can only delete files you uploaded");
         }
 
-        // Soft delete
+        // Soft delete; AttachmentReclaimer frees the file after the grace period
         attachment.setDeleted(true);
+        attachment.setDeletedAt(java.time.LocalDateTime.now());
         attachmentRepository.save(attachment);
-
-        // Optional: Remove physical file if policy dictates, or keep for audit.
-        // For Enterprise soft-delete, we usually keep the file or move to archive.
-        // If hard delete was requested, we would call storageService.delete(...)
+        attachmentCache.invalidate(StorageService.key(ticketId, attachment.getStoredFileName(),
+                attachment.getContentEncoding()));
 
         return ResponseEntity.noContent().build();
     }
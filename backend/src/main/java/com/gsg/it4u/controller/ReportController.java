@@ -1,25 +1,58 @@
 package com.gsg.it4u.controller;
 
+import com.gsg.it4u.dto.FacetedPage;
+import com.gsg.it4u.dto.LifecycleAnalyticsDTO;
+import com.gsg.it4u.dto.ReportExportJobDTO;
+import com.gsg.it4u.dto.ReportExportJobRequest;
 import com.gsg.it4u.dto.ReportFilter;
+import com.gsg.it4u.dto.ScheduledReportDTO;
+import com.gsg.it4u.dto.ScheduledReportRequest;
+import com.gsg.it4u.dto.TicketStatsSummaryDTO;
 import com.gsg.it4u.dto.TicketReportDTO;
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.service.LifecycleAnalyticsService;
+import com.gsg.it4u.service.ReportExportJobService;
 import com.gsg.it4u.service.ReportService;
+import com.gsg.it4u.service.ScheduledReportService;
+import com.gsg.it4u.service.TicketChangeFeedService;
+import com.gsg.it4u.service.TicketStatsRollupService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin/reports")
@@ -27,6 +60,11 @@ import java.time.format.DateTimeFormatter;
 public class ReportController {
 
         private final ReportService reportService;
+        private final ReportExportJobService reportExportJobService;
+        private final TicketStatsRollupService ticketStatsRollupService;
+        private final LifecycleAnalyticsService lifecycleAnalyticsService;
+        private final ScheduledReportService scheduledReportService;
+        private final TicketChangeFeedService ticketChangeFeedService;
 
         @GetMapping("/tickets")
         // Relying on global security like TicketController
@@ -36,33 +74,198 @@ public class ReportController {
                 return ResponseEntity.ok(reportService.getTickets(filter, pageable));
         }
 
+        /**
+         * Same page as above plus facet counts for the filter (one aggregate
+         * query), selected with {@code ?facets=true}.
+         */
+        @GetMapping(value = "/tickets", params = "facets=true")
+        public ResponseEntity<FacetedPage<TicketReportDTO>> getTicketReportWithFacets(
+                        @ModelAttribute ReportFilter filter,
+                        @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+                return ResponseEntity.ok(new FacetedPage<>(reportService.getTickets(filter, pageable),
+                                reportService.getTicketFacets(filter)));
+        }
+
+        /**
+         * Dashboard counts from the pre-aggregated daily stats table; defaults to
+         * the last 30 days.
+         */
+        @GetMapping("/summary")
+        public ResponseEntity<TicketStatsSummaryDTO> getSummary(
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+                LocalDate end = to != null ? to : LocalDate.now();
+                LocalDate start = from != null ? from : end.minusDays(29);
+                if (start.isAfter(end)) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'");
+                }
+                return ResponseEntity.ok(ticketStatsRollupService.summarize(start, end));
+        }
+
+        @PostMapping("/summary/refresh")
+        public ResponseEntity<Map<String, Object>> refreshSummary(
+                        @RequestParam(defaultValue = "false") boolean rebuild) {
+                int days = rebuild ? ticketStatsRollupService.rebuild() : ticketStatsRollupService.refresh();
+                return ResponseEntity.ok(Map.of("daysRecomputed", days));
+        }
+
+        /**
+         * Time-in-stage percentiles grouped by category, priority, assignee and
+         * month; defaults to the current and previous five months.
+         */
+        @GetMapping("/lifecycle")
+        public ResponseEntity<LifecycleAnalyticsDTO> getLifecycleAnalytics(
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+                LocalDate end = to != null ? to : LocalDate.now();
+                LocalDate start = from != null ? from : end.minusMonths(5).withDayOfMonth(1);
+                if (start.isAfter(end)) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'");
+                }
+                return ResponseEntity.ok(lifecycleAnalyticsService.getLifecycleAnalytics(start, end));
+        }
+
         @GetMapping("/tickets/export")
         // Relying on global security like TicketController
-        public ResponseEntity<InputStreamResource> exportTicketReport(@ModelAttribute ReportFilter filter) {
+        public ResponseEntity<StreamingResponseBody> exportTicketReport(@ModelAttribute ReportFilter filter) {
                 String filename = "tickets_report_"
                                 + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"))
                                 + ".xlsx";
-                InputStreamResource file = new InputStreamResource(reportService.exportTicketsToExcel(filter));
+                // Written on the MVC async executor after this method returns; no row cap
+                StreamingResponseBody body = out -> reportService.writeTicketsToExcel(filter, out);
 
                 return ResponseEntity.ok()
                                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
                                 .contentType(
                                                 MediaType.parseMediaType(
                                                                 "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                                .body(file);
+                                .body(body);
         }
 
         @GetMapping("/tickets/export/csv")
         // Relying on global security like TicketController
-        public ResponseEntity<InputStreamResource> exportTicketReportCsv(@ModelAttribute ReportFilter filter) {
+        public ResponseEntity<StreamingResponseBody> exportTicketReportCsv(@ModelAttribute ReportFilter filter,
+                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
                 String filename = "tickets_report_"
                                 + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"))
                                 + ".csv";
-                InputStreamResource file = new InputStreamResource(reportService.exportTicketsToCsv(filter));
+                boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
 
-                return ResponseEntity.ok()
+                StreamingResponseBody body = out -> {
+                        if (gzip) {
+                                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                                reportService.writeTicketsToCsv(filter, gzipOut);
+                                gzipOut.finish();
+                        } else {
+                                reportService.writeTicketsToCsv(filter, out);
+                        }
+                };
+
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                                .contentType(MediaType.parseMediaType("text/csv"))
+                                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
+                if (gzip) {
+                        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+                return response.body(body);
+        }
+
+        /**
+         * Incremental feed of changed tickets (plus new comments and email audits
+         * with {@code include=comments,audit}) as NDJSON. {@code since} is the
+         * cursor from the previous response's end record, or an ISO date-time.
+         */
+        @GetMapping("/feed.jsonl")
+        public ResponseEntity<StreamingResponseBody> getChangeFeed(
+                        @RequestParam(required = false) String since,
+                        @RequestParam(required = false) Integer limit,
+                        @RequestParam(required = false) List<String> include) {
+                // Validated up front so a bad cursor is a 400, not a broken stream
+                TicketChangeFeedService.Cursor cursor = ticketChangeFeedService.parseSince(since);
+                Set<TicketChangeFeedService.Include> sections = ticketChangeFeedService.parseIncludes(include);
+                int pageSize = ticketChangeFeedService.resolveLimit(limit);
+
+                StreamingResponseBody body = out -> ticketChangeFeedService.writeFeed(cursor, sections, pageSize, out);
+                return ResponseEntity.ok()
+                                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                                .body(body);
+        }
+
+        @PostMapping("/jobs")
+        public ResponseEntity<ReportExportJobDTO> submitExportJob(
+                        @RequestBody @Valid ReportExportJobRequest request) {
+                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+                ReportExportJobDTO job = reportExportJobService.submit(request.getFilter(), request.getFormat(),
+                                auth != null ? auth.getName() : null);
+                return ResponseEntity.accepted()
+                                .location(URI.create("/api/admin/reports/jobs/" + job.getId()))
+                                .body(job);
+        }
+
+        @GetMapping("/jobs")
+        public ResponseEntity<List<ReportExportJobDTO>> getExportJobs() {
+                return ResponseEntity.ok(reportExportJobService.getRecentJobs());
+        }
+
+        @GetMapping("/jobs/{id}")
+        public ResponseEntity<ReportExportJobDTO> getExportJob(@PathVariable String id) {
+                return ResponseEntity.ok(reportExportJobService.getJob(id));
+        }
+
+        /**
+         * Returning a Resource lets Spring MVC answer Range requests with 206 and
+         * advertise Accept-Ranges, so interrupted downloads can resume.
+         */
+        @GetMapping("/jobs/{id}/file")
+        public ResponseEntity<Resource> downloadExportJob(@PathVariable String id) {
+                Resource file = reportExportJobService.getFile(id);
+                ReportExportJob job = reportExportJobService.findJob(id);
+                return ResponseEntity.ok()
+                                .header(HttpHeaders.CONTENT_DISPOSITION,
+                                                "attachment; filename=" + job.getFileName())
+                                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
                                 .body(file);
         }
+
+        @GetMapping("/schedules")
+        public ResponseEntity<List<ScheduledReportDTO>> getScheduledReports() {
+                return ResponseEntity.ok(scheduledReportService.getAll());
+        }
+
+        @GetMapping("/schedules/{id}")
+        public ResponseEntity<ScheduledReportDTO> getScheduledReport(@PathVariable Long id) {
+                return ResponseEntity.ok(scheduledReportService.get(id));
+        }
+
+        @PostMapping("/schedules")
+        public ResponseEntity<ScheduledReportDTO> createScheduledReport(
+                        @RequestBody @Valid ScheduledReportRequest request) {
+                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+                ScheduledReportDTO report = scheduledReportService.create(request,
+                                auth != null ? auth.getName() : null);
+                return ResponseEntity.created(URI.create("/api/admin/reports/schedules/" + report.getId()))
+                                .body(report);
+        }
+
+        @PutMapping("/schedules/{id}")
+        public ResponseEntity<ScheduledReportDTO> updateScheduledReport(@PathVariable Long id,
+                        @RequestBody @Valid ScheduledReportRequest request) {
+                return ResponseEntity.ok(scheduledReportService.update(id, request));
+        }
+
+        @DeleteMapping("/schedules/{id}")
+        public ResponseEntity<Void> deleteScheduledReport(@PathVariable Long id) {
+                scheduledReportService.delete(id);
+                return ResponseEntity.noContent().build();
+        }
+
+        /** Runs a saved report immediately; the result is tracked as an export job. */
+        @PostMapping("/schedules/{id}/run")
+        public ResponseEntity<ReportExportJobDTO> runScheduledReport(@PathVariable Long id) {
+                ReportExportJobDTO job = scheduledReportService.runNow(id);
+                return ResponseEntity.accepted()
+                                .location(URI.create("/api/admin/reports/jobs/" + job.getId()))
+                                .body(job);
+        }
 }
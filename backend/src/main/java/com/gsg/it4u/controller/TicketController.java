@@ -2,9 +2,11 @@ package com.gsg.it4u.controller;
 
 import com.gsg.it4u.entity.Ticket;
 import com.gsg.it4u.entity.User;
+import com.gsg.it4u.dto.FacetedPage;
 import com.gsg.it4u.dto.TicketDTO;
 import com.gsg.it4u.repository.TicketRepository;
 import com.gsg.it4u.repository.UserRepository;
+import com.gsg.it4u.service.TicketFacetService;
 import com.gsg.it4u.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +34,7 @@ import java.time.LocalDateTime;
 import com.gsg.it4u.repository.TicketSpecification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 
 @RestController
 @RequestMapping("/api/tickets")
@@ -49,6 +52,9 @@ public class TicketController {
     @Autowired
     private TicketService ticketService;
 
+    @Autowired
+    private TicketFacetService ticketFacetService;
+
     @org.springframework.beans.factory.annotation.Value("${IT4U_TEST_MODE:false}")
     private boolean testMode;
 
@@ -94,6 +100,7 @@ public class TicketController {
     }
 
     @GetMapping
+    @Transactional(readOnly = true, timeoutString = "${it4u.reports.query-timeout.interactive-seconds:15}")
     public Page<TicketDTO> getAllTickets(
             @RequestParam(required = false) String ticketNumber,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
@@ -129,17 +136,41 @@ public class TicketController {
             pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), newSort);
         }
 
-        LocalDateTime from = createdFrom != null ? createdFrom.atStartOfDay() : null;
-        LocalDateTime to = createdTo != null ? createdTo.atTime(23, 59, 59) : null;
-
-        Specification<Ticket> spec = TicketSpecification.filterTickets(
-                ticketNumber, from, to, raisedBy, managerAssigned);
+        Specification<Ticket> spec = listFilter(ticketNumber, createdFrom, createdTo, raisedBy, managerAssigned);
 
         return ticketRepository.findAll(spec, pageable)
                 .map(t -> TicketDTO.fromEntity(t, false));
     }
 
+    /**
+     * Same page as {@link #getAllTickets} plus facet counts (status, category,
+     * priority, assignee, approval status) for the same filter, selected with
+     * {@code ?facets=true}.
+     */
+    @GetMapping(params = "facets=true")
+    @Transactional(readOnly = true, timeoutString = "${it4u.reports.query-timeout.interactive-seconds:15}")
+    public FacetedPage<TicketDTO> getAllTicketsWithFacets(
+            @RequestParam(required = false) String ticketNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(required = false) String raisedBy,
+            @RequestParam(required = false) String managerAssigned,
+            Pageable pageable) {
+        Page<TicketDTO> page = getAllTickets(ticketNumber, createdFrom, createdTo, raisedBy, managerAssigned,
+                pageable);
+        return new FacetedPage<>(page, ticketFacetService
+                .facets(listFilter(ticketNumber, createdFrom, createdTo, raisedBy, managerAssigned)));
+    }
+
+    private static Specification<Ticket> listFilter(String ticketNumber, LocalDate createdFrom, LocalDate createdTo,
+            String raisedBy, String managerAssigned) {
+        LocalDateTime from = createdFrom != null ? createdFrom.atStartOfDay() : null;
+        LocalDateTime to = createdTo != null ? createdTo.atTime(23, 59, 59) : null;
+        return TicketSpecification.filterTickets(ticketNumber, from, to, raisedBy, managerAssigned);
+    }
+
     @GetMapping("/my")
+    @Transactional(readOnly = true)
     public List<TicketDTO> getMyTickets() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
@@ -191,6 +222,7 @@ public class TicketController {
     }
 
     @GetMapping("/approvals")
+    @Transactional(readOnly = true)
     public List<TicketDTO> getManagerApprovals(@RequestParam Long managerId,
             @RequestParam(required = false) Ticket.ManagerApprovalStatus status) {
         List<Ticket> tickets;
@@ -203,6 +235,7 @@ public class TicketController {
     }
 
     @GetMapping("/manager/pending")
+    @Transactional(readOnly = true)
     public List<TicketDTO> getManagerPendingTickets(@RequestParam Long managerId) {
         return ticketRepository
                 .findByManagerIdAndManagerApprovalStatusWithAttachments(managerId,
@@ -213,6 +246,7 @@ public class TicketController {
     }
 
     @GetMapping("/manager/approved")
+    @Transactional(readOnly = true)
     public List<TicketDTO> getManagerApprovedTickets(@RequestParam Long managerId) {
         List<Ticket.ManagerApprovalStatus> approvedStatuses = java.util.Arrays.asList(
                 Ticket.ManagerApprovalStatus.APPROVED,
@@ -0,0 +1,40 @@
+package com.gsg.it4u.controller.admin;
+
+import com.gsg.it4u.service.AttachmentReclaimer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin/attachments/reclaim")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AttachmentReclaimController {
+
+    private final AttachmentReclaimer attachmentReclaimer;
+
+    /** Dry run: what the next reclaim would delete and how many bytes it would free. */
+    @GetMapping
+    public ResponseEntity<AttachmentReclaimer.Report> report() throws IOException {
+        return ResponseEntity.ok(run(true));
+    }
+
+    /** Reclaims now instead of waiting for the nightly run. */
+    @PostMapping
+    public ResponseEntity<AttachmentReclaimer.Report> reclaim() throws IOException {
+        return ResponseEntity.ok(run(false));
+    }
+
+    private AttachmentReclaimer.Report run(boolean dryRun) throws IOException {
+        AttachmentReclaimer.Report report = attachmentReclaimer.reclaim(dryRun);
+        if (report == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A reclaim is already running");
+        }
+        return report;
+    }
+}
@@ -0,0 +1,36 @@
+package com.gsg.it4u.controller.admin;
+
+import com.gsg.it4u.dto.ThreadPoolResizeRequest;
+import com.gsg.it4u.dto.ThreadPoolStatsDTO;
+import com.gsg.it4u.service.ThreadPoolAdminService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/system/pools")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ThreadPoolAdminController {
+
+    private final ThreadPoolAdminService threadPoolAdminService;
+
+    @GetMapping
+    public ResponseEntity<List<ThreadPoolStatsDTO>> getPools() {
+        return ResponseEntity.ok(threadPoolAdminService.getStats());
+    }
+
+    /**
+     * Resize a pool at runtime. Pools: mail, tomcat, scheduler. Omitted fields are
+     * left unchanged; queueCapacity is only supported for the mail pool.
+     */
+    @PutMapping("/{pool}")
+    public ResponseEntity<ThreadPoolStatsDTO> resizePool(@PathVariable String pool,
+            @RequestBody @Valid ThreadPoolResizeRequest request) {
+        return ResponseEntity.ok(threadPoolAdminService.resize(pool, request));
+    }
+}
@@ -0,0 +1,30 @@
+package com.gsg.it4u.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the report change feed. {@code cursor} resumes the feed right
+ * after this record; the closing {@code end} record carries the cursor for the
+ * next call and whether more changes were already waiting.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeFeedRecord {
+    public static final String TICKET = "ticket";
+    public static final String COMMENT = "comment";
+    public static final String EMAIL_AUDIT = "email_audit";
+    public static final String END = "end";
+
+    private String type;
+    private Long id;
+    private Long ticketId;
+    private LocalDateTime changedAt;
+    private String cursor;
+    private Object data;
+    private Boolean hasMore;
+}
@@ -0,0 +1,17 @@
+package com.gsg.it4u.dto;
+
+import com.gsg.it4u.constant.EmailEventType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class EmailDeliverySummaryDTO {
+    private EmailEventType eventType;
+    private String recipientDomain;
+    private long sentCount;
+    private long failedCount;
+    private Map<String, Long> failureReasons;
+}
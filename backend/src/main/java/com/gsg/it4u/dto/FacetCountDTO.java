@@ -0,0 +1,19 @@
+package com.gsg.it4u.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountDTO {
+    /**
+     * Filter value (enum name or user id); empty when the field is unset, null
+     * for the "Others" entry summing assignees beyond the listed ones.
+     */
+    private String value;
+    /** Display name where the value is an id (assignee); otherwise null. */
+    private String label;
+    private long count;
+}
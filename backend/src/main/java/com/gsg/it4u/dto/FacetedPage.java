@@ -0,0 +1,25 @@
+package com.gsg.it4u.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.web.PagedModel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The usual page JSON ({@code content} + {@code page}) plus facet counts for the
+ * same filter, keyed by facet name.
+ */
+public class FacetedPage<T> extends PagedModel<T> {
+
+    private final Map<String, List<FacetCountDTO>> facets;
+
+    public FacetedPage(Page<T> page, Map<String, List<FacetCountDTO>> facets) {
+        super(page);
+        this.facets = facets;
+    }
+
+    public Map<String, List<FacetCountDTO>> getFacets() {
+        return facets;
+    }
+}
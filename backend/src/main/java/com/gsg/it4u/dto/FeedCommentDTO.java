@@ -0,0 +1,14 @@
+package com.gsg.it4u.dto;
+
+import java.time.LocalDateTime;
+
+/** A comment as it appears in the report change feed. */
+public record FeedCommentDTO(
+        Long id,
+        Long ticketId,
+        String ticketNumber,
+        String content,
+        String authorUsername,
+        String authorName,
+        LocalDateTime createdAt) {
+}
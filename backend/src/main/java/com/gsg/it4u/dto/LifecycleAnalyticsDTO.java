@@ -0,0 +1,51 @@
+package com.gsg.it4u.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Time-in-stage percentiles for tickets created in [from, to]. All durations
+ * are in seconds; a percentile is null when no ticket in the group reached
+ * that stage.
+ */
+@Data
+@Builder
+public class LifecycleAnalyticsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private LocalDateTime computedAt;
+    private Group overall;
+    private List<Group> byCategory;
+    private List<Group> byPriority;
+    private List<Group> byAssignee;
+    private List<Group> byMonth;
+
+    @Data
+    @Builder
+    public static class Group {
+        /** Category/priority name, assignee id, or yyyy-MM; empty for overall. */
+        private String key;
+        /** Assignee full name; null for other dimensions. */
+        private String label;
+        private long tickets;
+        private Percentiles approval;
+        private Percentiles firstResponse;
+        private Percentiles resolve;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Percentiles {
+        private long samples;
+        private Double p50Seconds;
+        private Double p90Seconds;
+        private Double p99Seconds;
+    }
+}
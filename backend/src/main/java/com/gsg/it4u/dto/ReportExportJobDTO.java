@@ -0,0 +1,54 @@
+package com.gsg.it4u.dto;
+
+import com.gsg.it4u.entity.ReportExportJob;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ReportExportJobDTO {
+    private String id;
+    private ReportExportJob.Format format;
+    private ReportExportJob.Status status;
+    private String requestedBy;
+    private Long totalRows;
+    private long rowsWritten;
+    /** 0-100; null while the total is not yet known. */
+    private Integer progressPercent;
+    private String fileName;
+    private Long sizeBytes;
+    private String errorMessage;
+    private String downloadUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    public static ReportExportJobDTO fromEntity(ReportExportJob job, long rowsWritten) {
+        Integer percent = null;
+        if (job.getStatus() == ReportExportJob.Status.COMPLETED) {
+            percent = 100;
+        } else if (job.getTotalRows() != null) {
+            percent = job.getTotalRows() == 0 ? 0 : (int) Math.min(99, rowsWritten * 100 / job.getTotalRows());
+        }
+        return ReportExportJobDTO.builder()
+                .id(job.getId())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .requestedBy(job.getRequestedBy())
+                .totalRows(job.getTotalRows())
+                .rowsWritten(rowsWritten)
+                .progressPercent(percent)
+                .fileName(job.getFileName())
+                .sizeBytes(job.getSizeBytes())
+                .errorMessage(job.getErrorMessage())
+                .downloadUrl(job.getStatus() == ReportExportJob.Status.COMPLETED
+                        ? "/api/admin/reports/jobs/" + job.getId() + "/file"
+                        : null)
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.gsg.it4u.dto;
+
+import com.gsg.it4u.entity.ReportExportJob;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ReportExportJobRequest {
+
+    @NotNull
+    private ReportExportJob.Format format;
+
+    /** Same filter as GET /api/admin/reports/tickets; null exports everything. */
+    private ReportFilter filter;
+}
@@ -0,0 +1,54 @@
+package com.gsg.it4u.dto;
+
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.entity.ScheduledReport;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class ScheduledReportDTO {
+    private Long id;
+    private String name;
+    private ReportExportJob.Format format;
+    private ReportFilter filter;
+    private String cron;
+    private ScheduledReport.Delivery delivery;
+    private List<String> recipients;
+    private boolean enabled;
+    private String createdBy;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime lastRunAt;
+    private String lastJobId;
+    private String lastStatus;
+    private String lastError;
+
+    public static ScheduledReportDTO fromEntity(ScheduledReport report, ReportFilter filter) {
+        return ScheduledReportDTO.builder()
+                .id(report.getId())
+                .name(report.getName())
+                .format(report.getFormat())
+                .filter(filter)
+                .cron(report.getCron())
+                .delivery(report.getDelivery())
+                .recipients(splitRecipients(report.getRecipients()))
+                .enabled(report.isEnabled())
+                .createdBy(report.getCreatedBy())
+                .nextRunAt(report.getNextRunAt())
+                .lastRunAt(report.getLastRunAt())
+                .lastJobId(report.getLastJobId())
+                .lastStatus(report.getLastStatus())
+                .lastError(report.getLastError())
+                .build();
+    }
+
+    public static List<String> splitRecipients(String recipients) {
+        if (recipients == null || recipients.isBlank()) {
+            return List.of();
+        }
+        return List.of(recipients.split(","));
+    }
+}
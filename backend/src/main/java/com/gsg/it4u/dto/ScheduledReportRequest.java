@@ -0,0 +1,35 @@
+package com.gsg.it4u.dto;
+
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.entity.ScheduledReport;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ScheduledReportRequest {
+
+    @NotBlank
+    private String name;
+
+    @NotNull
+    private ReportExportJob.Format format;
+
+    /** Same filter as GET /api/admin/reports/tickets; null exports everything. */
+    private ReportFilter filter;
+
+    /** Spring cron, e.g. {@code 0 0 6 * * MON} for Mondays 06:00 before office hours. */
+    @NotBlank
+    private String cron;
+
+    @NotNull
+    private ScheduledReport.Delivery delivery;
+
+    private List<@Email String> recipients = new ArrayList<>();
+
+    private boolean enabled = true;
+}
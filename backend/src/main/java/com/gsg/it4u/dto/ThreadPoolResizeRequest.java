@@ -0,0 +1,16 @@
+package com.gsg.it4u.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+@Data
+public class ThreadPoolResizeRequest {
+    @Min(1)
+    private Integer corePoolSize;
+
+    @Min(1)
+    private Integer maxPoolSize;
+
+    @Min(0)
+    private Integer queueCapacity;
+}
@@ -0,0 +1,18 @@
+package com.gsg.it4u.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ThreadPoolStatsDTO {
+    private String pool;
+    private int corePoolSize;
+    private int maxPoolSize;
+    private int poolSize;
+    private int activeCount;
+    private int queueSize;
+    private Integer queueCapacity; // null when the pool has no bounded/resizable queue
+    private Long rejectedCount; // null when the pool does not track rejections
+    private long completedCount;
+}
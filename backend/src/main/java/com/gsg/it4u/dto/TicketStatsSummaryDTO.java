@@ -0,0 +1,41 @@
+package com.gsg.it4u.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard counts read from ticket_stats_daily. The by* maps count tickets
+ * created in [from, to] by their current value; opened/closed count tickets
+ * created/closed in the range.
+ */
+@Data
+@Builder
+public class TicketStatsSummaryDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private long opened;
+    private long closed;
+    private Map<String, Long> byStatus;
+    private Map<String, Long> byCategory;
+    private Map<String, Long> byPriority;
+    private Map<String, Long> byManagerApproval;
+    private List<DailyFlow> daily;
+    /** When the rollup last caught up with ticket changes. */
+    private LocalDateTime refreshedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyFlow {
+        private LocalDate date;
+        private long opened;
+        private long closed;
+    }
+}
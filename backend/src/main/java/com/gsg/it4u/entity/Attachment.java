@@ -31,6 +31,10 @@ public class Attachment {
 
     private String sha256;
 
+    /** "gzip" when the stored file is compressed at rest; sizeBytes is always the original size. */
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
     @ManyToOne
     @JoinColumn(name = "ticket_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnore
@@ -44,6 +48,10 @@ public class Attachment {
 
     private boolean deleted = false;
 
+    /** When the attachment was soft-deleted; its file is reclaimed a grace period later. */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         uploadedAt = LocalDateTime.now();
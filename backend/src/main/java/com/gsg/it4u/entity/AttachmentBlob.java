@@ -0,0 +1,48 @@
+package com.gsg.it4u.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored file in the content-addressed attachment store, shared by every
+ * attachment whose content hashes to {@link #sha256}. There is no reference
+ * count: whether a blob is still needed is decided from the attachment rows
+ * linked to it (see AttachmentBlobRepository).
+ */
+@Entity
+@Table(name = "attachment_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+
+    /** Last time an upload linked this blob; unreferenced blobs are only reclaimed well after it. */
+    @Column(name = "last_referenced_at")
+    private LocalDateTime lastReferencedAt;
+
+    /** "gzip" when the file is stored compressed, else null. */
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
+    /** Last time the verifier re-hashed the file, null if never. */
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
+
+    /** Set when the file was missing or its hash no longer matched. */
+    @Column(nullable = false)
+    private boolean corrupt;
+}
@@ -0,0 +1,44 @@
+package com.gsg.it4u.entity;
+
+import com.gsg.it4u.constant.EmailEventType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_audit_hourly")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailAuditHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "event_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EmailEventType eventType;
+
+    @Column(name = "status", nullable = false)
+    private String status; // SENT / FAILED
+
+    @Column(name = "recipient_domain", nullable = false)
+    private String recipientDomain;
+
+    @Column(name = "failure_reason", nullable = false)
+    @Builder.Default
+    private String failureReason = "";
+
+    @Column(name = "message_count", nullable = false)
+    @Builder.Default
+    private Long messageCount = 0L;
+}
@@ -0,0 +1,62 @@
+package com.gsg.it4u.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inbound_mail_receipts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboundMailReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false, unique = true, length = 512)
+    private String messageId;
+
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Column(name = "comment_id")
+    private Long commentId;
+
+    private String sender;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Status status;
+
+    @Column(length = 1000)
+    private String detail;
+
+    /** Failed processing attempts; a FAILED receipt is retried until this reaches the limit. */
+    @Column(name = "failed_attempts", nullable = false)
+    private int failedAttempts;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (processedAt == null) {
+            processedAt = LocalDateTime.now();
+        }
+    }
+
+    public enum Status {
+        APPLIED, // Appended as a ticket comment
+        UNMATCHED, // No ticket thread referenced
+        REJECTED, // Unknown sender, not a participant, or empty reply
+        IGNORED, // Auto-reply, or over the per-ticket sender rate limit
+        FAILED // Processing threw; retried on later polls up to the attempt limit
+    }
+}
@@ -0,0 +1,48 @@
+package com.gsg.it4u.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker for incremental background jobs (rollups, pollers).
+ */
+@Entity
+@Table(name = "job_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobWatermark {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+
+    /**
+     * Identifies the sequence {@link #lastId} counts in, e.g. an IMAP folder's
+     * UIDVALIDITY; when it changes, lastId no longer means anything.
+     */
+    private Long validity;
+
+    @Column(name = "last_timestamp")
+    private LocalDateTime lastTimestamp;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public JobWatermark(String jobName) {
+        this.jobName = jobName;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
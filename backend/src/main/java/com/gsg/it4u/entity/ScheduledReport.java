@@ -0,0 +1,100 @@
+package com.gsg.it4u.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A saved report (filter + format) generated on a cron schedule. Each run is
+ * an ordinary {@link ReportExportJob}, requested by {@code schedule:<id>};
+ * {@code lastJobId} links the latest one.
+ */
+@Entity
+@Table(name = "scheduled_reports")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduledReport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReportExportJob.Format format;
+
+    @Column(name = "filter_json", columnDefinition = "TEXT")
+    private String filterJson;
+
+    /** Spring cron expression (second minute hour day month weekday), server time zone. */
+    @Column(nullable = false, length = 120)
+    private String cron;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Delivery delivery;
+
+    /** Comma-separated addresses; required for EMAIL delivery. */
+    @Column(length = 2000)
+    private String recipients;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean enabled = true;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "next_run_at")
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_job_id", length = 36)
+    private String lastJobId;
+
+    @Column(name = "last_status", length = 32)
+    private String lastStatus;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /** Optimistic lock: an edit fails rather than overwrite a run recorded after it was loaded. */
+    @Version
+    private Long version;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum Delivery {
+        /** Mail the file (or a download link when too large) to the recipients. */
+        EMAIL,
+        /** Keep the file as an export job for download only. */
+        STORE
+    }
+}
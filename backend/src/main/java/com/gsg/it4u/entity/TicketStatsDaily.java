@@ -0,0 +1,46 @@
+package com.gsg.it4u.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "ticket_stats_daily")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketStatsDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "dimension", nullable = false, length = 32)
+    @Enumerated(EnumType.STRING)
+    private Dimension dimension;
+
+    @Column(name = "dim_value", nullable = false, length = 64)
+    @Builder.Default
+    private String dimValue = "";
+
+    @Column(name = "ticket_count", nullable = false)
+    @Builder.Default
+    private Long ticketCount = 0L;
+
+    public enum Dimension {
+        STATUS, // Tickets created that day, by current status
+        CATEGORY,
+        PRIORITY,
+        MANAGER_APPROVAL,
+        OPENED, // Tickets created that day
+        CLOSED // Tickets closed that day
+    }
+}
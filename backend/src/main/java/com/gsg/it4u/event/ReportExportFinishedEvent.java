@@ -0,0 +1,18 @@
+package com.gsg.it4u.event;
+
+import com.gsg.it4u.entity.ReportExportJob;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/** Published on the export thread once a job is COMPLETED or FAILED. */
+@Getter
+public class ReportExportFinishedEvent extends ApplicationEvent {
+    private final String jobId;
+    private final ReportExportJob.Status status;
+
+    public ReportExportFinishedEvent(Object source, String jobId, ReportExportJob.Status status) {
+        super(source);
+        this.jobId = jobId;
+        this.status = status;
+    }
+}
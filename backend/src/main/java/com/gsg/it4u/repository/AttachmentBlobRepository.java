@@ -0,0 +1,71 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.AttachmentBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+    String UNREFERENCED = "AND COALESCE(b.last_referenced_at, b.created_at) < :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM attachments a WHERE a.sha256 = b.sha256 "
+            + "AND a.stored_file_name = b.sha256 AND (a.deleted = false OR a.deleted_at IS NULL "
+            + "OR a.deleted_at >= :cutoff))";
+
+    /**
+     * Creates the blob row or stamps it as referenced now, atomically. Waits
+     * for a reclaimer holding {@link #lockIfUnreferenced}, so an upload must
+     * take its reference before checking whether the file exists.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO attachment_blobs (sha256, size_bytes, content_encoding, last_referenced_at) "
+            + "VALUES (:sha256, :size, :encoding, now()) "
+            + "ON CONFLICT (sha256) DO UPDATE SET last_referenced_at = now()", nativeQuery = true)
+    int addReference(@Param("sha256") String sha256, @Param("size") long sizeBytes,
+            @Param("encoding") String contentEncoding);
+
+    /**
+     * Blobs no live attachment points to (none at all, or only soft-deleted
+     * ones deleted before {@code cutoff}) and not linked since {@code cutoff},
+     * after {@code afterSha256} in hash order.
+     */
+    @Query(value = "SELECT * FROM attachment_blobs b WHERE b.sha256 > :after " + UNREFERENCED
+            + " ORDER BY b.sha256 LIMIT :limit", nativeQuery = true)
+    List<AttachmentBlob> findUnreferenced(@Param("cutoff") LocalDateTime cutoff,
+            @Param("after") String afterSha256, @Param("limit") int limit);
+
+    /**
+     * Locks the blob row if it is still unreferenced, until the caller's
+     * transaction ends. An upload's {@link #addReference} waits on the lock,
+     * so the file can be deleted under it without a new reference landing on
+     * a blob that is about to disappear.
+     */
+    @Query(value = "SELECT * FROM attachment_blobs b WHERE b.sha256 = :sha256 " + UNREFERENCED + " FOR UPDATE",
+            nativeQuery = true)
+    Optional<AttachmentBlob> lockIfUnreferenced(@Param("sha256") String sha256, @Param("cutoff") LocalDateTime cutoff);
+
+    /** Deletes the blob row if it is still unreferenced, so a concurrent upload keeps it. */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM attachment_blobs b WHERE b.sha256 = :sha256 " + UNREFERENCED, nativeQuery = true)
+    int deleteIfUnreferenced(@Param("sha256") String sha256, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT b FROM AttachmentBlob b ORDER BY b.verifiedAt ASC NULLS FIRST, b.sha256")
+    List<AttachmentBlob> findLeastRecentlyVerified(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AttachmentBlob b SET b.verifiedAt = :at, b.corrupt = :corrupt WHERE b.sha256 = :sha256")
+    int markVerified(@Param("sha256") String sha256, @Param("at") LocalDateTime at,
+            @Param("corrupt") boolean corrupt);
+}
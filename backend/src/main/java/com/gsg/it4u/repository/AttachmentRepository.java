@@ -1,12 +1,28 @@
 package com.gsg.it4u.repository;
 
 import com.gsg.it4u.entity.Attachment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
     List<Attachment> findByTicketIdAndDeletedFalse(Long ticketId);
+
+    /** Soft-deleted before {@code cutoff}, by id after {@code afterId}, for batched reclaiming. */
+    List<Attachment> findByDeletedTrueAndDeletedAtBeforeAndIdGreaterThanOrderByIdAsc(LocalDateTime cutoff,
+            Long afterId, Pageable pageable);
+
+    /** Hard-deletes a soft-deleted row; 0 if it is gone or was restored meanwhile. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Attachment a WHERE a.id = :id AND a.deleted = true")
+    int deleteSoftDeleted(@Param("id") Long id);
 }
@@ -1,9 +1,30 @@
 package com.gsg.it4u.repository;
 
+import com.gsg.it4u.dto.FeedCommentDTO;
 import com.gsg.it4u.entity.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    /**
+     * Comments created after the keyset position (at, id) and no later than
+     * {@code until}, oldest first. Projected, so the eager ticket and its users
+     * are not loaded per comment.
+     */
+    @Query("SELECT new com.gsg.it4u.dto.FeedCommentDTO(c.id, t.id, t.ticketNumber, c.content, a.username, "
+            + "a.fullName, c.createdAt) FROM Comment c JOIN c.ticket t LEFT JOIN c.author a "
+            + "WHERE c.createdAt <= :until AND (c.createdAt > :at OR (c.createdAt = :at AND c.id > :id)) "
+            + "ORDER BY c.createdAt ASC, c.id ASC")
+    List<FeedCommentDTO> findFeedPage(@Param("at") LocalDateTime at, @Param("id") Long id,
+            @Param("until") LocalDateTime until, Pageable pageable);
+
+    boolean existsByTicketIdAndAuthorId(Long ticketId, Long authorId);
 }
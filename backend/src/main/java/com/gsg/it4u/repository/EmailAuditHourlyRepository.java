@@ -0,0 +1,22 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.EmailAuditHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailAuditHourlyRepository
+        extends JpaRepository<EmailAuditHourly, Long>, JpaSpecificationExecutor<EmailAuditHourly>,
+        EmailAuditHourlyRepositoryCustom {
+
+    @Query("SELECT h.eventType, h.status, h.recipientDomain, h.failureReason, SUM(h.messageCount) "
+            + "FROM EmailAuditHourly h WHERE h.bucketStart >= :from AND h.bucketStart < :to "
+            + "GROUP BY h.eventType, h.status, h.recipientDomain, h.failureReason")
+    List<Object[]> summarizeBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
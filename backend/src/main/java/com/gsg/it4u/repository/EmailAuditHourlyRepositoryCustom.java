@@ -0,0 +1,17 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.EmailAuditHourly;
+
+import java.util.Collection;
+
+public interface EmailAuditHourlyRepositoryCustom {
+
+    /**
+     * Adds each row's messageCount to the hourly row with the same key,
+     * creating it if missing, with multi-row INSERT ... ON CONFLICT DO UPDATE
+     * statements instead of a find and a save per key. Keys must be distinct.
+     *
+     * @return number of rows inserted or updated
+     */
+    int addCounts(Collection<EmailAuditHourly> increments);
+}
@@ -0,0 +1,50 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.EmailAuditHourly;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class EmailAuditHourlyRepositoryCustomImpl implements EmailAuditHourlyRepositoryCustom {
+
+    /** Rows per statement: 6 parameters each, well below the PostgreSQL driver's bind parameter limit. */
+    static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT = "INSERT INTO email_audit_hourly "
+            + "(bucket_start, event_type, status, recipient_domain, failure_reason, message_count) VALUES ";
+    private static final String ON_CONFLICT = " ON CONFLICT (bucket_start, event_type, status, recipient_domain, "
+            + "failure_reason) DO UPDATE SET message_count = email_audit_hourly.message_count + "
+            + "EXCLUDED.message_count";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int addCounts(Collection<EmailAuditHourly> increments) {
+        List<EmailAuditHourly> rows = new ArrayList<>(increments);
+        int updated = 0;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<EmailAuditHourly> chunk = rows.subList(from, Math.min(rows.size(), from + ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder(INSERT);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?)");
+            }
+            Query query = entityManager.createNativeQuery(sql.append(ON_CONFLICT).toString());
+            int position = 1;
+            for (EmailAuditHourly row : chunk) {
+                query.setParameter(position++, row.getBucketStart());
+                query.setParameter(position++, row.getEventType().name());
+                query.setParameter(position++, row.getStatus());
+                query.setParameter(position++, row.getRecipientDomain());
+                query.setParameter(position++, row.getFailureReason());
+                query.setParameter(position++, row.getMessageCount());
+            }
+            updated += query.executeUpdate();
+        }
+        return updated;
+    }
+}
@@ -1,6 +1,7 @@
 package com.gsg.it4u.repository;
 
 import com.gsg.it4u.entity.EmailAudit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -9,12 +10,21 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface EmailAuditRepository extends JpaRepository<EmailAudit, Long>, JpaSpecificationExecutor<EmailAudit> {
     List<EmailAudit> findTop50ByOrderByCreatedAtDesc();
 
+    List<EmailAudit> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /** Audit rows created after the keyset position (at, id) and no later than {@code until}, oldest first. */
+    @Query("SELECT e FROM EmailAudit e WHERE e.createdAt <= :until "
+            + "AND (e.createdAt > :at OR (e.createdAt = :at AND e.id > :id)) ORDER BY e.createdAt ASC, e.id ASC")
+    List<EmailAudit> findFeedPage(@Param("at") LocalDateTime at, @Param("id") Long id,
+            @Param("until") LocalDateTime until, Pageable pageable);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM EmailAudit e WHERE e.ticketId = :ticketId")
@@ -0,0 +1,16 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.InboundMailReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InboundMailReceiptRepository extends JpaRepository<InboundMailReceipt, Long> {
+    Optional<InboundMailReceipt> findByMessageId(String messageId);
+
+    long countByTicketIdAndSenderIgnoreCaseAndStatusAndProcessedAtAfter(Long ticketId, String sender,
+            InboundMailReceipt.Status status, LocalDateTime after);
+}
@@ -0,0 +1,41 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.ReportExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReportExportJobRepository extends JpaRepository<ReportExportJob, String> {
+
+    List<ReportExportJob> findByStatusInAndHeartbeatAtBefore(Collection<ReportExportJob.Status> statuses,
+            LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportExportJob j SET j.heartbeatAt = :now WHERE j.id IN :ids")
+    int touchHeartbeat(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Fails the job if it is still unfinished and its heartbeat is still older
+     * than {@code cutoff}, so a node that resumed meanwhile keeps it.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportExportJob j SET j.status = :failed, j.errorMessage = :error, j.completedAt = :now "
+            + "WHERE j.id = :id AND j.status IN :unfinished AND j.heartbeatAt < :cutoff")
+    int failIfStale(@Param("id") String id, @Param("unfinished") Collection<ReportExportJob.Status> unfinished,
+            @Param("cutoff") LocalDateTime cutoff, @Param("failed") ReportExportJob.Status failed,
+            @Param("error") String error, @Param("now") LocalDateTime now);
+
+    List<ReportExportJob> findByStatusAndCompletedAtBefore(ReportExportJob.Status status, LocalDateTime cutoff);
+
+    List<ReportExportJob> findTop50ByOrderByCreatedAtDesc();
+}
@@ -0,0 +1,72 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.ScheduledReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScheduledReportRepository extends JpaRepository<ScheduledReport, Long> {
+
+    List<ScheduledReport> findByEnabledTrueAndNextRunAtLessThanEqualOrderByNextRunAtAsc(LocalDateTime now);
+
+    List<ScheduledReport> findAllByOrderByNameAsc();
+
+    /**
+     * Moves a due run to its next slot only if nobody else did first, so each
+     * slot runs once even with several nodes polling.
+     *
+     * @return 1 if this caller claimed the run
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledReport r SET r.nextRunAt = :next, r.lastRunAt = :now, r.version = r.version + 1 "
+            + "WHERE r.id = :id AND r.nextRunAt = :expected AND r.enabled = true")
+    int claimRun(@Param("id") Long id, @Param("expected") LocalDateTime expected,
+            @Param("next") LocalDateTime next, @Param("now") LocalDateTime now);
+
+    // Run state is written column by column, never by saving the whole entity, so the scheduler, the
+    // finished-job listener and an edit through the API do not overwrite each other; each bumps the
+    // version so an edit loaded before it fails instead of writing back stale run state.
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledReport r SET r.lastRunAt = :now, r.version = r.version + 1 WHERE r.id = :id")
+    int recordManualRun(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Links a submitted job as QUEUED, unless its outcome was already recorded
+     * because it finished before this ran.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledReport r SET r.lastJobId = :jobId, r.lastStatus = 'QUEUED', r.lastError = NULL, "
+            + "r.version = r.version + 1 WHERE r.id = :id AND (r.lastJobId IS NULL OR r.lastJobId <> :jobId)")
+    int recordQueued(@Param("id") Long id, @Param("jobId") String jobId);
+
+    /** A due run that could not be submitted: retried at {@code next}. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledReport r SET r.nextRunAt = :next, r.lastStatus = 'FAILED', r.lastError = :error, "
+            + "r.version = r.version + 1 WHERE r.id = :id")
+    int recordNotQueued(@Param("id") Long id, @Param("next") LocalDateTime next, @Param("error") String error);
+
+    /**
+     * Records how a run's job ended, unless a later run of the same schedule
+     * (a newer job with the same {@code requestedBy}) has been submitted since.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledReport r SET r.lastJobId = :jobId, r.lastStatus = :status, r.lastError = :error, "
+            + "r.version = r.version + 1 WHERE r.id = :id AND NOT EXISTS (SELECT j.id FROM ReportExportJob j "
+            + "WHERE j.requestedBy = :requestedBy AND j.createdAt > :createdAt)")
+    int recordOutcome(@Param("id") Long id, @Param("jobId") String jobId, @Param("requestedBy") String requestedBy,
+            @Param("createdAt") LocalDateTime createdAt, @Param("status") String status,
+            @Param("error") String error);
+}
@@ -5,10 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecificationExecutor<Ticket> {
+public interface TicketRepository
+                extends JpaRepository<Ticket, Long>, JpaSpecificationExecutor<Ticket>, TicketRepositoryCustom {
 
         @org.springframework.data.jpa.repository.Query("select distinct t from Ticket t left join fetch t.attachments")
         List<Ticket> findAllWithAttachments();
@@ -39,6 +41,27 @@ public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecif
                         @org.springframework.data.repository.query.Param("managerId") Long managerId,
                         @org.springframework.data.repository.query.Param("statuses") java.util.List<Ticket.ManagerApprovalStatus> statuses);
 
+        /**
+         * Loads a ticket with Hibernate dirty checking disabled, so callers (mail
+         * workers) can never flush an UPDATE to tickets.
+         */
+        @org.springframework.data.jpa.repository.Query("SELECT t FROM Ticket t WHERE t.id = :id")
+        @org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true"))
+        java.util.Optional<Ticket> findReadOnlyById(@org.springframework.data.repository.query.Param("id") Long id);
+
+        java.util.Optional<Ticket> findFirstByEmailThreadMessageIdIn(java.util.Collection<String> messageIds);
+
+        @org.springframework.data.jpa.repository.Query("SELECT t.id FROM Ticket t WHERE t.emailThreadMessageId IS NULL")
+        List<Long> findIdsWithoutEmailThreadMessageId();
+
+        /**
+         * Single-column write of the thread root; never overwrites an existing id.
+         */
+        @org.springframework.data.jpa.repository.Modifying
+        @org.springframework.data.jpa.repository.Query("UPDATE Ticket t SET t.emailThreadMessageId = :messageId WHERE t.id = :id AND t.emailThreadMessageId IS NULL")
+        int assignEmailThreadMessageIdIfAbsent(@org.springframework.data.repository.query.Param("id") Long id,
+                        @org.springframework.data.repository.query.Param("messageId") String messageId);
+
         boolean existsByRequesterId(Long requesterId);
 
         boolean existsByAssignedToId(Long assignedToId);
@@ -58,4 +81,110 @@ public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecif
                         "attachments", "attachments.uploadedBy", "assignedTo", "requester", "manager", "updatedBy" })
         java.util.Optional<Ticket> findByIdWithAssociations(
                         @org.springframework.data.repository.query.Param("id") Long id);
+
+        // ---- Daily stats rollup (native: must see soft-deleted rows that @SQLRestriction hides) ----
+
+        @org.springframework.data.jpa.repository.Query(value = "SELECT MAX(updated_at) FROM tickets", nativeQuery = true)
+        LocalDateTime findMaxUpdatedAt();
+
+        /**
+         * Created and closed days of every ticket touched after {@code since},
+         * including tickets soft-deleted since then.
+         */
+        @org.springframework.data.jpa.repository.Query(value = "SELECT CAST(created_at AS DATE) FROM tickets "
+                        + "WHERE updated_at > :since AND created_at IS NOT NULL "
+                        + "UNION SELECT CAST(closed_at AS DATE) FROM tickets "
+                        + "WHERE updated_at > :since AND closed_at IS NOT NULL", nativeQuery = true)
+        List<Object> findStatDaysTouchedSince(
+                        @org.springframework.data.repository.query.Param("since") LocalDateTime since);
+
+        @org.springframework.data.jpa.repository.Query(value = "SELECT MIN(CAST(created_at AS DATE)) FROM tickets", nativeQuery = true)
+        Object findFirstCreatedDay();
+
+        /**
+         * Rows of (day, dimension, value, count) for live tickets with created_at
+         * (or closed_at, for CLOSED) in [from, to).
+         */
+        @org.springframework.data.jpa.repository.Query(value = ""
+                        + "SELECT CAST(created_at AS DATE), 'STATUS', COALESCE(status, ''), COUNT(*) FROM tickets "
+                        + "WHERE " + LIVE_CREATED_IN_RANGE + " GROUP BY 1, 3 "
+                        + "UNION ALL SELECT CAST(created_at AS DATE), 'CATEGORY', COALESCE(category, ''), COUNT(*) FROM tickets "
+                        + "WHERE " + LIVE_CREATED_IN_RANGE + " GROUP BY 1, 3 "
+                        + "UNION ALL SELECT CAST(created_at AS DATE), 'PRIORITY', COALESCE(priority, ''), COUNT(*) FROM tickets "
+                        + "WHERE " + LIVE_CREATED_IN_RANGE + " GROUP BY 1, 3 "
+                        + "UNION ALL SELECT CAST(created_at AS DATE), 'MANAGER_APPROVAL', COALESCE(manager_approval_status, ''), COUNT(*) FROM tickets "
+                        + "WHERE " + LIVE_CREATED_IN_RANGE + " GROUP BY 1, 3 "
+                        + "UNION ALL SELECT CAST(created_at AS DATE), 'OPENED', '', COUNT(*) FROM tickets "
+                        + "WHERE " + LIVE_CREATED_IN_RANGE + " GROUP BY 1 "
+                        + "UNION ALL SELECT CAST(closed_at AS DATE), 'CLOSED', '', COUNT(*) FROM tickets "
+                        + "WHERE (deleted = false OR deleted IS NULL) AND closed_at >= :from AND closed_at < :to GROUP BY 1",
+                        nativeQuery = true)
+        List<Object[]> aggregateDailyStats(@org.springframework.data.repository.query.Param("from") LocalDateTime from,
+                        @org.springframework.data.repository.query.Param("to") LocalDateTime to);
+
+        String LIVE_CREATED_IN_RANGE = "(deleted = false OR deleted IS NULL) AND created_at >= :from AND created_at < :to";
+
+        /**
+         * p50/p90/p99 (seconds) of approval latency, time to first response and
+         * time to resolve for live tickets created in [from, to), in one pass over
+         * GROUPING SETS: category, priority, assignee, month, and overall ('ALL').
+         * First response is the earlier of in_progress_at and the first comment by
+         * anyone other than the requester (picked with ROW_NUMBER).
+         * Columns: dimension, value, tickets, then (samples, p50, p90, p99) for
+         * approval, first response and resolve.
+         */
+        @org.springframework.data.jpa.repository.Query(value = ""
+                        + "WITH first_reply AS ("
+                        + "  SELECT ticket_id, created_at FROM ("
+                        + "    SELECT c.ticket_id, c.created_at,"
+                        + "      ROW_NUMBER() OVER (PARTITION BY c.ticket_id ORDER BY c.created_at) AS rn"
+                        + "    FROM comments c JOIN tickets t ON t.id = c.ticket_id"
+                        + "    WHERE c.author_id IS DISTINCT FROM t.requester_id"
+                        + "      AND t.created_at >= :from AND t.created_at < :to"
+                        + "  ) ranked WHERE rn = 1"
+                        + "), durations AS ("
+                        + "  SELECT t.category, t.priority, t.assigned_to_id,"
+                        + "    DATE_TRUNC('month', t.created_at) AS month,"
+                        + "    EXTRACT(EPOCH FROM (t.approved_at - t.created_at)) AS approval_s,"
+                        + "    EXTRACT(EPOCH FROM (LEAST(fr.created_at, t.in_progress_at) - t.created_at)) AS first_response_s,"
+                        + "    EXTRACT(EPOCH FROM (COALESCE(t.resolved_at, t.closed_at) - t.created_at)) AS resolve_s"
+                        + "  FROM tickets t LEFT JOIN first_reply fr ON fr.ticket_id = t.id"
+                        + "  WHERE (t.deleted = false OR t.deleted IS NULL)"
+                        + "    AND t.created_at >= :from AND t.created_at < :to"
+                        + ") "
+                        + "SELECT"
+                        + "  CASE WHEN GROUPING(category) = 0 THEN 'CATEGORY' WHEN GROUPING(priority) = 0 THEN 'PRIORITY'"
+                        + "       WHEN GROUPING(assigned_to_id) = 0 THEN 'ASSIGNEE' WHEN GROUPING(month) = 0 THEN 'MONTH'"
+                        + "       ELSE 'ALL' END,"
+                        + "  CASE WHEN GROUPING(category) = 0 THEN category WHEN GROUPING(priority) = 0 THEN priority"
+                        + "       WHEN GROUPING(assigned_to_id) = 0 THEN CAST(assigned_to_id AS VARCHAR)"
+                        + "       WHEN GROUPING(month) = 0 THEN TO_CHAR(month, 'YYYY-MM') ELSE '' END,"
+                        + "  COUNT(*),"
+                        + "  COUNT(approval_s),"
+                        + "  PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY approval_s),"
+                        + "  PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY approval_s),"
+                        + "  PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY approval_s),"
+                        + "  COUNT(first_response_s),"
+                        + "  PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY first_response_s),"
+                        + "  PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY first_response_s),"
+                        + "  PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY first_response_s),"
+                        + "  COUNT(resolve_s),"
+                        + "  PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY resolve_s),"
+                        + "  PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY resolve_s),"
+                        + "  PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY resolve_s) "
+                        + "FROM durations "
+                        + "GROUP BY GROUPING SETS ((category), (priority), (assigned_to_id), (month), ())",
+                        nativeQuery = true)
+        List<Object[]> lifecyclePercentiles(@org.springframework.data.repository.query.Param("from") LocalDateTime from,
+                        @org.springframework.data.repository.query.Param("to") LocalDateTime to);
+
+        /**
+         * Whether a ticket still owns its files: it is live, or was soft-deleted
+         * at or after {@code cutoff}. Native, so soft-deleted rows are visible.
+         */
+        @org.springframework.data.jpa.repository.Query(value = "SELECT EXISTS (SELECT 1 FROM tickets WHERE id = :id "
+                        + "AND (deleted = false OR deleted IS NULL OR deleted_at IS NULL OR deleted_at >= :cutoff))",
+                        nativeQuery = true)
+        boolean isRetained(@org.springframework.data.repository.query.Param("id") Long id,
+                        @org.springframework.data.repository.query.Param("cutoff") LocalDateTime cutoff);
 }
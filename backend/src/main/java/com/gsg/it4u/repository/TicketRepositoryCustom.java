@@ -0,0 +1,55 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.Ticket;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TicketRepositoryCustom {
+
+    /**
+     * Streams matching tickets over a server-side cursor instead of loading
+     * them into a List. Must be called inside a (read-only) transaction and the
+     * stream must be closed. Each ticket is detached once handed to the
+     * consumer, so the persistence context does not grow with the result size.
+     */
+    Stream<Ticket> streamAll(Specification<Ticket> spec, Sort sort, int fetchSize);
+
+    /**
+     * As above, but stops after {@code maxResults} rows (no limit when not
+     * positive). The limit is part of the SQL, so a keyset page can be served
+     * from an index instead of sorting the whole match.
+     */
+    Stream<Ticket> streamAll(Specification<Ticket> spec, Sort sort, int fetchSize, int maxResults);
+
+    /**
+     * One aggregate over {@code spec}, grouped by every enum facet column at
+     * once. Rows are (status, category, priority, managerApprovalStatus,
+     * count); per-facet totals are the marginals of these rows.
+     */
+    List<Object[]> facetCombinations(Specification<Ticket> spec);
+
+    /**
+     * The {@code limit} assignees with the most tickets matching {@code spec},
+     * most first, as (assigneeId, assigneeName, count); unassigned tickets
+     * are the row with a null id.
+     */
+    List<Object[]> topAssignees(Specification<Ticket> spec, int limit);
+
+    /**
+     * (min id, max id, count) of the tickets matching {@code spec}; ids are
+     * null when nothing matches.
+     */
+    Object[] idRange(Specification<Ticket> spec);
+
+    /**
+     * Splits the tickets matching {@code spec}, in id order, into consecutive
+     * buckets of {@code rowsPerPartition} rows (by row number; the last may be
+     * smaller) and returns each bucket's (min id, max id, count), highest ids
+     * first. Unlike splitting the id span, this stays balanced when a filter or
+     * deletions leave the ids uneven.
+     */
+    List<Object[]> idPartitions(Specification<Ticket> spec, long rowsPerPartition);
+}
@@ -0,0 +1,172 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaDerivedRoot;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.criteria.JpaSubQuery;
+import org.hibernate.query.criteria.JpaWindow;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class TicketRepositoryCustomImpl implements TicketRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Ticket> streamAll(Specification<Ticket> spec, Sort sort, int fetchSize) {
+        return streamAll(spec, sort, fetchSize, 0);
+    }
+
+    @Override
+    public Stream<Ticket> streamAll(Specification<Ticket> spec, Sort sort, int fetchSize, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ticket> query = cb.createQuery(Ticket.class);
+        Root<Ticket> root = query.from(Ticket.class);
+        // The to-one users are EAGER; fetch them in the same row rather than one
+        // select per ticket once the persistence context is being cleared.
+        root.fetch("requester", JoinType.LEFT);
+        root.fetch("assignedTo", JoinType.LEFT);
+        root.fetch("manager", JoinType.LEFT);
+        root.fetch("updatedBy", JoinType.LEFT);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Ticket> typed = entityManager.createQuery(query);
+        if (maxResults > 0) {
+            typed.setMaxResults(maxResults);
+        }
+        return typed
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public List<Object[]> facetCombinations(Specification<Ticket> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ticket> root = query.from(Ticket.class);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        List<Expression<?>> keys = List.of(root.get("status"), root.get("category"), root.get("priority"),
+                root.get("managerApprovalStatus"));
+        List<Selection<?>> selections = new ArrayList<>(keys);
+        selections.add(cb.count(root));
+        query.multiselect(selections).groupBy(keys);
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> topAssignees(Specification<Ticket> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ticket> root = query.from(Ticket.class);
+        Join<Ticket, User> assignee = root.join("assignedTo", JoinType.LEFT);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        Expression<Long> count = cb.count(root);
+        query.multiselect(assignee.get("id"), assignee.get("fullName"), count)
+                .groupBy(assignee.get("id"), assignee.get("fullName"))
+                .orderBy(cb.desc(count), cb.asc(assignee.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    @Override
+    public Object[] idRange(Specification<Ticket> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ticket> root = query.from(Ticket.class);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        Expression<Long> id = root.get("id");
+        query.multiselect(cb.min(id), cb.max(id), cb.count(root));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getSingleResult();
+    }
+
+    @Override
+    public List<Object[]> idPartitions(Specification<Ticket> spec, long rowsPerPartition) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        JpaCriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        JpaSubQuery<Tuple> ranked = query.subquery(Tuple.class);
+        JpaRoot<Ticket> root = ranked.from(Ticket.class);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                ranked.where(predicate);
+            }
+        }
+        Expression<Long> id = root.get("id");
+        JpaWindow byId = cb.createWindow().orderBy(cb.asc(id));
+        ranked.multiselect(id.alias("id"),
+                cb.quot(cb.diff(cb.rowNumber(byId), 1L), rowsPerPartition).alias("part"));
+
+        JpaDerivedRoot<Tuple> bucket = query.from(ranked);
+        Expression<Long> bucketId = bucket.get("id");
+        query.multiselect(cb.min(bucketId), cb.max(bucketId), cb.count(bucketId))
+                .groupBy(bucket.get("part"))
+                .orderBy(cb.desc(cb.max(bucketId)));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+}
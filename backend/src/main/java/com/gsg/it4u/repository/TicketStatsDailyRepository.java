@@ -0,0 +1,27 @@
+package com.gsg.it4u.repository;
+
+import com.gsg.it4u.entity.TicketStatsDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TicketStatsDailyRepository extends JpaRepository<TicketStatsDaily, Long> {
+
+    @Modifying
+    @Query("DELETE FROM TicketStatsDaily s WHERE s.statDate >= :from AND s.statDate < :to")
+    int deleteByStatDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT s.dimension, s.dimValue, SUM(s.ticketCount) FROM TicketStatsDaily s "
+            + "WHERE s.statDate >= :from AND s.statDate < :to GROUP BY s.dimension, s.dimValue")
+    List<Object[]> sumByDimension(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<TicketStatsDaily> findByStatDateGreaterThanEqualAndStatDateLessThanAndDimensionInOrderByStatDateAsc(
+            LocalDate from, LocalDate to, Collection<TicketStatsDaily.Dimension> dimensions);
+}
@@ -0,0 +1,139 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.Attachment;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a ticket's attachments as one ZIP straight to the response: no temp
+ * files, one store read per attachment for all but the largest files. Types
+ * that are already compressed (images, PDFs) are STORED, since deflating
+ * them again costs CPU and saves nothing; text is deflated.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttachmentArchiveService {
+
+    private static final Set<String> COMPRESSED_TYPES = Set.of("image/png", "image/jpeg", "image/jpg",
+            "image/webp", "image/gif", "application/pdf", "application/zip", "application/gzip",
+            "application/x-7z-compressed");
+
+    private final AttachmentStore attachmentStore;
+    private final StorageService storageService;
+
+    /**
+     * STORED entries need their CRC before their data. Files up to this size
+     * are read once into memory; larger ones are read twice from the store.
+     */
+    @Value("${it4u.attachments.archive.buffer-bytes:8388608}")
+    private long bufferBytes = 8 * 1024 * 1024;
+
+    /** What the archive needs of an attachment, detached from the persistence context. */
+    public record Entry(String key, String fileName, String contentType, String contentEncoding,
+            LocalDateTime uploadedAt) {
+
+        public static Entry of(Attachment attachment) {
+            return new Entry(StorageService.key(attachment.getTicket().getId(), attachment.getStoredFileName(),
+                    attachment.getContentEncoding()), attachment.getOriginalFileName(), attachment.getContentType(),
+                    attachment.getContentEncoding(), attachment.getUploadedAt());
+        }
+    }
+
+    static boolean isCompressed(String contentType) {
+        return contentType != null && COMPRESSED_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    /** Writes the ZIP of {@code entries} to {@code out} and finishes it; does not close {@code out}. */
+    public void write(List<Entry> entries, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Set<String> names = new HashSet<>();
+        for (Entry entry : entries) {
+            ZipEntry zipEntry = new ZipEntry(uniqueName(entry.fileName(), names));
+            if (entry.uploadedAt() != null) {
+                zipEntry.setTime(entry.uploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            try {
+                // Files gzipped at rest are text; inflating them into a deflated entry is the cheap path
+                if (isCompressed(entry.contentType()) && entry.contentEncoding() == null) {
+                    writeStored(zip, zipEntry, entry.key());
+                } else {
+                    try (InputStream in = storageService.open(entry.key(), entry.contentEncoding())) {
+                        zip.putNextEntry(zipEntry);
+                        in.transferTo(zip);
+                    }
+                }
+                zip.closeEntry();
+            } catch (NoSuchFileException e) {
+                // A missing file should not cost the user the rest of the archive
+                log.warn("Attachment {} missing from store, left out of archive", entry.key());
+            }
+        }
+        zip.finish();
+    }
+
+    private void writeStored(ZipOutputStream zip, ZipEntry zipEntry, String key) throws IOException {
+        zipEntry.setMethod(ZipEntry.STORED);
+        long size = attachmentStore.size(key);
+        if (size < 0) {
+            throw new NoSuchFileException(key);
+        }
+        CRC32 crc = new CRC32();
+        zipEntry.setSize(size);
+        zipEntry.setCompressedSize(size);
+        if (size <= bufferBytes) {
+            byte[] content;
+            try (InputStream in = attachmentStore.get(key, 0, -1)) {
+                content = in.readAllBytes();
+            }
+            crc.update(content);
+            zipEntry.setCrc(crc.getValue());
+            zip.putNextEntry(zipEntry);
+            zip.write(content);
+            return;
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = attachmentStore.get(key, 0, -1)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        zipEntry.setCrc(crc.getValue());
+        zip.putNextEntry(zipEntry);
+        try (InputStream in = attachmentStore.get(key, 0, -1)) {
+            in.transferTo(zip);
+        }
+    }
+
+    /** Flat, safe entry names; repeated names become "name (2).ext". */
+    static String uniqueName(String fileName, Set<String> taken) {
+        String name = fileName == null || fileName.isBlank() ? "attachment"
+                : fileName.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_");
+        String candidate = name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int n = 2; !taken.add(candidate.toLowerCase(Locale.ROOT)); n++) {
+            candidate = base + " (" + n + ")" + extension;
+        }
+        return candidate;
+    }
+}
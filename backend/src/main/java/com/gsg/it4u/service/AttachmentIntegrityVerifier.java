@@ -0,0 +1,78 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.AttachmentBlob;
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Re-hashes a batch of attachment blobs each night, least recently verified
+ * first, so every stored file is checked on a rolling basis without reading
+ * the whole volume in one go. A blob that is missing or no longer matches its
+ * name is flagged corrupt and logged; nothing is repaired automatically.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttachmentIntegrityVerifier {
+
+    private final AttachmentBlobRepository blobRepository;
+    private final StorageService storageService;
+
+    @Value("${it4u.attachments.verify.sample-size:500}")
+    private int sampleSize = 500;
+
+    @Scheduled(cron = "${it4u.attachments.verify.cron:0 15 4 * * *}")
+    public void scheduledVerify() {
+        try {
+            int corrupt = verifySample();
+            if (corrupt > 0) {
+                log.error("Attachment verifier found {} corrupt or missing blob(s)", corrupt);
+            }
+        } catch (Exception e) {
+            log.error("Attachment verification failed", e);
+        }
+    }
+
+    /** @return how many of the sampled blobs failed verification */
+    public int verifySample() {
+        List<AttachmentBlob> sample = blobRepository.findLeastRecentlyVerified(PageRequest.of(0, sampleSize));
+        int corrupt = 0;
+        for (AttachmentBlob blob : sample) {
+            boolean ok = verify(blob);
+            if (!ok) {
+                corrupt++;
+            }
+            blobRepository.markVerified(blob.getSha256(), LocalDateTime.now(), !ok);
+        }
+        log.debug("Attachment verifier checked {} blob(s), {} corrupt", sample.size(), corrupt);
+        return corrupt;
+    }
+
+    private boolean verify(AttachmentBlob blob) {
+        try {
+            String actual = storageService.hash(StorageService.blobKey(blob.getSha256(), blob.getContentEncoding()),
+                    blob.getContentEncoding());
+            if (!actual.equals(blob.getSha256())) {
+                log.warn("Attachment blob {} hashes to {}", blob.getSha256(), actual);
+                return false;
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            log.warn("Attachment blob {} is missing", blob.getSha256());
+            return false;
+        } catch (IOException e) {
+            log.warn("Attachment blob {} could not be read: {}", blob.getSha256(), e.getMessage());
+            return false;
+        }
+    }
+}
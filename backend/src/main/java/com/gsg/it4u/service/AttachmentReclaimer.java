@@ -0,0 +1,301 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.Attachment;
+import com.gsg.it4u.entity.AttachmentBlob;
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.repository.AttachmentRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.service.storage.AttachmentCache;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Frees storage that no attachment needs any more, in throttled batches:
+ * <ul>
+ * <li>attachments soft-deleted longer than the grace period (row, legacy
+ * file and thumbnail);</li>
+ * <li>blobs that no live attachment links to, e.g. after the last reference
+ * was reclaimed or its ticket was hard-deleted or reset;</li>
+ * <li>legacy per-ticket directories whose ticket no longer exists or was
+ * soft-deleted longer than the grace period.</li>
+ * </ul>
+ * A blob counts as needed while any attachment row links to it. A dry run
+ * walks the same candidates and reports them without deleting.
+ */
+@Service
+@Slf4j
+public class AttachmentReclaimer {
+
+    /** How many candidate keys a report lists; the counts are always complete. */
+    private static final int SAMPLE_SIZE = 50;
+
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentBlobRepository blobRepository;
+    private final TicketRepository ticketRepository;
+    private final AttachmentStore attachmentStore;
+    private final ThumbnailService thumbnailService;
+    private final AttachmentCache attachmentCache;
+    private final TransactionTemplate transaction;
+    private final Counter reclaimedBytes;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${it4u.attachments.base-path:./storage/attachments}")
+    private String basePath;
+
+    @Value("${it4u.attachments.reclaim.grace-days:30}")
+    private int graceDays = 30;
+
+    @Value("${it4u.attachments.reclaim.batch-size:100}")
+    private int batchSize = 100;
+
+    /** Pause between batches so a large backlog does not saturate the disk or the bucket. */
+    @Value("${it4u.attachments.reclaim.batch-pause-ms:500}")
+    private long batchPauseMillis = 500;
+
+    public AttachmentReclaimer(AttachmentRepository attachmentRepository, AttachmentBlobRepository blobRepository,
+            TicketRepository ticketRepository, AttachmentStore attachmentStore, ThumbnailService thumbnailService,
+            AttachmentCache attachmentCache, PlatformTransactionManager transactionManager,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.attachmentRepository = attachmentRepository;
+        this.blobRepository = blobRepository;
+        this.ticketRepository = ticketRepository;
+        this.attachmentStore = attachmentStore;
+        this.thumbnailService = thumbnailService;
+        this.attachmentCache = attachmentCache;
+        this.transaction = new TransactionTemplate(transactionManager);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.reclaimedBytes = registry == null ? null
+                : Counter.builder("it4u.attachments.reclaimed.bytes")
+                        .description("Attachment storage freed by the reclaimer")
+                        .baseUnit("bytes")
+                        .register(registry);
+    }
+
+    /** What a run deleted, or in a dry run would delete. */
+    public record Report(boolean dryRun, LocalDateTime cutoff, int softDeletedAttachments, int orphanBlobs,
+            int orphanTicketDirectories, long bytes, List<String> sample) {
+    }
+
+    @Scheduled(cron = "${it4u.attachments.reclaim.cron:0 45 3 * * *}")
+    public void scheduledReclaim() {
+        try {
+            Report report = reclaim(false);
+            if (report != null && report.bytes() > 0) {
+                log.info("Attachment reclaimer freed {} bytes: {} soft-deleted attachment(s), {} blob(s), "
+                        + "{} ticket director(y/ies)", report.bytes(), report.softDeletedAttachments(),
+                        report.orphanBlobs(), report.orphanTicketDirectories());
+            }
+        } catch (Exception e) {
+            log.error("Attachment reclaim failed", e);
+        }
+    }
+
+    /**
+     * Runs one pass over everything reclaimable now.
+     *
+     * @return the report, or null if a pass is already running
+     */
+    public Report reclaim(boolean dryRun) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            Pass pass = new Pass(dryRun, LocalDateTime.now().minusDays(graceDays));
+            reclaimSoftDeleted(pass);
+            reclaimBlobs(pass);
+            reclaimTicketDirectories(pass);
+            if (!dryRun && reclaimedBytes != null) {
+                reclaimedBytes.increment(pass.bytes);
+            }
+            return new Report(dryRun, pass.cutoff, pass.softDeleted, pass.blobs, pass.directories, pass.bytes,
+                    pass.sample);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void reclaimSoftDeleted(Pass pass) throws IOException {
+        long afterId = 0;
+        List<Attachment> batch;
+        do {
+            batch = attachmentRepository.findByDeletedTrueAndDeletedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                    pass.cutoff, afterId, PageRequest.of(0, batchSize));
+            for (Attachment attachment : batch) {
+                afterId = attachment.getId();
+                if (!pass.dryRun && attachmentRepository.deleteSoftDeleted(attachment.getId()) == 0) {
+                    continue;
+                }
+                pass.softDeleted++;
+                // A blob may be shared with live attachments; it is freed below once nothing links it
+                if (!StorageService.isBlobName(attachment.getStoredFileName())) {
+                    Long ticketId = attachment.getTicket().getId();
+                    pass.free(StorageService.key(ticketId, attachment.getStoredFileName(),
+                            attachment.getContentEncoding()));
+                    pass.free(thumbnailService.thumbnailKey(ticketId, attachment.getStoredFileName()));
+                }
+            }
+            pass.pause(batch.size());
+        } while (batch.size() == batchSize);
+    }
+
+    private void reclaimBlobs(Pass pass) throws IOException {
+        String after = "";
+        List<AttachmentBlob> batch;
+        do {
+            batch = blobRepository.findUnreferenced(pass.cutoff, after, batchSize);
+            for (AttachmentBlob blob : batch) {
+                after = blob.getSha256();
+                if (pass.dryRun) {
+                    pass.blobs++;
+                    freeBlob(pass, blob);
+                } else if (reclaimBlob(pass, blob)) {
+                    pass.blobs++;
+                }
+            }
+            pass.pause(batch.size());
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Deletes the blob's files, then its row, under the row lock: an upload
+     * referencing the same content meanwhile waits, then finds the file gone
+     * and stores it again.
+     */
+    private boolean reclaimBlob(Pass pass, AttachmentBlob blob) throws IOException {
+        try {
+            return Boolean.TRUE.equals(transaction.execute(status -> {
+                if (blobRepository.lockIfUnreferenced(blob.getSha256(), pass.cutoff).isEmpty()) {
+                    return false;
+                }
+                try {
+                    freeBlob(pass, blob);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                blobRepository.deleteIfUnreferenced(blob.getSha256(), pass.cutoff);
+                return true;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void freeBlob(Pass pass, AttachmentBlob blob) throws IOException {
+        pass.free(StorageService.blobKey(blob.getSha256(), blob.getContentEncoding()));
+        pass.free(thumbnailService.thumbnailKey(null, blob.getSha256()));
+    }
+
+    /**
+     * Per-ticket directories only exist on the filesystem store, from before
+     * content-addressed storage; hard-deleted and reset tickets left them behind.
+     * A soft-deleted ticket keeps its directory for the same grace period as
+     * soft-deleted attachments.
+     */
+    private void reclaimTicketDirectories(Pass pass) throws IOException {
+        Path root = Paths.get(basePath);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> directories;
+        try (Stream<Path> children = Files.list(root)) {
+            directories = children.filter(Files::isDirectory)
+                    .filter(dir -> dir.getFileName().toString().matches("\\d{1,18}"))
+                    .toList();
+        }
+        int checked = 0;
+        for (Path dir : directories) {
+            Long ticketId = Long.valueOf(dir.getFileName().toString());
+            if (!ticketRepository.isRetained(ticketId, pass.cutoff)) {
+                pass.directories++;
+                pass.freeTree(dir);
+                pass.freeTree(root.resolve("thumbs").resolve(dir.getFileName()));
+            }
+            if (++checked % batchSize == 0) {
+                pass.pause(batchSize);
+            }
+        }
+    }
+
+    private class Pass {
+        final boolean dryRun;
+        final LocalDateTime cutoff;
+        final List<String> sample = new ArrayList<>();
+        int softDeleted;
+        int blobs;
+        int directories;
+        long bytes;
+
+        Pass(boolean dryRun, LocalDateTime cutoff) {
+            this.dryRun = dryRun;
+            this.cutoff = cutoff;
+        }
+
+        void free(String key) throws IOException {
+            long size = attachmentStore.size(key);
+            if (size < 0) {
+                return;
+            }
+            if (!dryRun) {
+                attachmentStore.delete(key);
+                attachmentCache.invalidate(key);
+            }
+            bytes += size;
+            if (sample.size() < SAMPLE_SIZE) {
+                sample.add(key);
+            }
+        }
+
+        void freeTree(Path dir) throws IOException {
+            if (!Files.isDirectory(dir)) {
+                return;
+            }
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(dir)) {
+                paths = walk.sorted(Comparator.reverseOrder()).toList();
+            }
+            for (Path path : paths) {
+                if (Files.isRegularFile(path)) {
+                    bytes += Files.size(path);
+                }
+                if (!dryRun) {
+                    Files.delete(path);
+                }
+            }
+            if (sample.size() < SAMPLE_SIZE) {
+                sample.add(Paths.get(basePath).relativize(dir) + "/");
+            }
+        }
+
+        void pause(int batchCount) {
+            if (dryRun || batchCount < batchSize || batchPauseMillis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(batchPauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gsg.it4u.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes one CSV field straight to a Writer. Plain fields (the common case)
+ * are handed to the writer as-is with no intermediate String; only fields with
+ * a delimiter, quote or line break are written char by char.
+ * <p>
+ * Same rules the report export always used: line breaks become a single
+ * space ({@code \r\n} counts as one), and fields containing {@code ,},
+ * {@code "} or {@code '} are quoted with embedded quotes doubled.
+ */
+public final class CsvEscaper {
+
+    private CsvEscaper() {
+    }
+
+    public static void writeField(Writer out, String data) throws IOException {
+        if (data == null) {
+            return;
+        }
+        boolean quote = false;
+        boolean lineBreak = false;
+        int len = data.length();
+        for (int i = 0; i < len; i++) {
+            char c = data.charAt(i);
+            if (c == ',' || c == '"' || c == '\'') {
+                quote = true;
+            } else if (isLineBreak(c)) {
+                lineBreak = true;
+            }
+        }
+        if (!quote && !lineBreak) {
+            out.write(data);
+            return;
+        }
+
+        if (quote) {
+            out.write('"');
+        }
+        for (int i = 0; i < len; i++) {
+            char c = data.charAt(i);
+            if (c == '"') {
+                out.write("\"\"");
+            } else if (isLineBreak(c)) {
+                if (c == '\r' && i + 1 < len && data.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                out.write(' ');
+            } else {
+                out.write(c);
+            }
+        }
+        if (quote) {
+            out.write('"');
+        }
+    }
+
+    /** The characters matched by the regex {@code \R}. */
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\f' || c == '\u0085'
+                // U+2028/U+2029 as casts: unicode escapes for them break the source line
+                || c == (char) 0x2028 || c == (char) 0x2029;
+    }
+}
@@ -0,0 +1,65 @@
+package com.gsg.it4u.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Checks the first bytes of an upload against its declared content type, so a
+ * renamed executable does not pass as a PDF just because of its extension.
+ * Text types have no signature; they are only required to contain no NUL bytes.
+ */
+public final class FileSignatures {
+
+    /** Bytes of the first block that are enough for every check below. */
+    public static final int HEAD_BYTES = 8192;
+
+    private static final byte[] PDF = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+    private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private FileSignatures() {
+    }
+
+    /** True when {@code head[0..length)} looks like {@code contentType}; unknown types never match. */
+    public static boolean matches(String contentType, byte[] head, int length) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int semicolon = type.indexOf(';');
+        if (semicolon >= 0) {
+            type = type.substring(0, semicolon).trim();
+        }
+        return switch (type) {
+            case "application/pdf" -> startsWith(head, length, 0, PDF);
+            case "image/png" -> startsWith(head, length, 0, PNG);
+            case "image/jpeg", "image/jpg" -> startsWith(head, length, 0, JPEG);
+            case "image/webp" -> startsWith(head, length, 0, RIFF) && startsWith(head, length, 8, WEBP);
+            case "text/plain", "text/csv", "application/vnd.ms-excel" -> isText(head, length);
+            default -> type.startsWith("text/") && isText(head, length);
+        };
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, byte[] magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isText(byte[] head, int length) {
+        for (int i = 0; i < length; i++) {
+            if (head[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
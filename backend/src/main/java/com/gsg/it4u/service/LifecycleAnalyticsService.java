@@ -0,0 +1,133 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.dto.LifecycleAnalyticsDTO;
+import com.gsg.it4u.dto.LifecycleAnalyticsDTO.Group;
+import com.gsg.it4u.dto.LifecycleAnalyticsDTO.Percentiles;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Approval latency, time to first response and time to resolve percentiles,
+ * computed by Postgres in a single GROUPING SETS query
+ * ({@link TicketRepository#lifecyclePercentiles}). Results are cached per date
+ * range ({@link ResultCache}) for {@code it4u.reports.analytics.cache-ttl-seconds};
+ * the numbers only move as tickets progress, so a few minutes of staleness is fine.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LifecycleAnalyticsService {
+
+    private static final int MAX_CACHED_RANGES = 32;
+
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+
+    private final ResultCache<String, LifecycleAnalyticsDTO> cache = new ResultCache<>(Duration.ofSeconds(300),
+            MAX_CACHED_RANGES);
+
+    @Value("${it4u.reports.analytics.cache-ttl-seconds:300}")
+    void setCacheTtlSeconds(long seconds) {
+        cache.setTtl(Duration.ofSeconds(seconds));
+    }
+
+    @Transactional(readOnly = true)
+    public LifecycleAnalyticsDTO getLifecycleAnalytics(LocalDate from, LocalDate to) {
+        return cache.get(from + "|" + to, () -> {
+            long start = System.nanoTime();
+            LifecycleAnalyticsDTO result = compute(from, to);
+            log.debug("Lifecycle analytics {}..{} computed in {} ms", from, to,
+                    (System.nanoTime() - start) / 1_000_000);
+            return result;
+        });
+    }
+
+    public void clearCache() {
+        cache.invalidateAll();
+    }
+
+    private LifecycleAnalyticsDTO compute(LocalDate from, LocalDate to) {
+        Map<String, List<Group>> byDimension = new HashMap<>();
+        Group overall = null;
+        for (Object[] r : ticketRepository.lifecyclePercentiles(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            String dimension = (String) r[0];
+            Group group = Group.builder()
+                    .key(r[1] != null ? (String) r[1] : "")
+                    .tickets(((Number) r[2]).longValue())
+                    .approval(percentiles(r, 3))
+                    .firstResponse(percentiles(r, 7))
+                    .resolve(percentiles(r, 11))
+                    .build();
+            if ("ALL".equals(dimension)) {
+                overall = group;
+            } else {
+                byDimension.computeIfAbsent(dimension, d -> new ArrayList<>()).add(group);
+            }
+        }
+
+        List<Group> byAssignee = byDimension.getOrDefault("ASSIGNEE", new ArrayList<>());
+        labelAssignees(byAssignee);
+
+        Comparator<Group> byKey = Comparator.comparing(Group::getKey);
+        return LifecycleAnalyticsDTO.builder()
+                .from(from)
+                .to(to)
+                .computedAt(LocalDateTime.now())
+                .overall(overall != null ? overall : emptyGroup())
+                .byCategory(sorted(byDimension.get("CATEGORY"), byKey))
+                .byPriority(sorted(byDimension.get("PRIORITY"), byKey))
+                .byAssignee(sorted(byAssignee, Comparator.comparingLong(Group::getTickets).reversed()))
+                .byMonth(sorted(byDimension.get("MONTH"), byKey))
+                .build();
+    }
+
+    private void labelAssignees(List<Group> groups) {
+        Set<Long> ids = new HashSet<>();
+        for (Group group : groups) {
+            if (!group.getKey().isEmpty()) {
+                ids.add(Long.valueOf(group.getKey()));
+            }
+        }
+        Map<Long, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (Group group : groups) {
+            User user = group.getKey().isEmpty() ? null : users.get(Long.valueOf(group.getKey()));
+            group.setLabel(user != null ? user.getFullName() : "Unassigned");
+        }
+    }
+
+    private static Percentiles percentiles(Object[] row, int offset) {
+        return new Percentiles(((Number) row[offset]).longValue(), toDouble(row[offset + 1]),
+                toDouble(row[offset + 2]), toDouble(row[offset + 3]));
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    private static List<Group> sorted(List<Group> groups, Comparator<Group> order) {
+        if (groups == null) {
+            return new ArrayList<>();
+        }
+        groups.sort(order);
+        return groups;
+    }
+
+    private static Group emptyGroup() {
+        Percentiles none = new Percentiles(0, null, null, null);
+        return Group.builder().key("").tickets(0).approval(none).firstResponse(none).resolve(none).build();
+    }
+}
@@ -5,6 +5,7 @@ import com.gsg.it4u.entity.ServiceNode;
 import com.gsg.it4u.repository.NodeHealthLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,14 +21,17 @@ public class NodeHealthLogService {
     @Autowired
     private ServiceNodeService serviceNodeService;
 
+    @Transactional(readOnly = true)
     public List<NodeHealthLog> getAllHealthLogs() {
         return nodeHealthLogRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<NodeHealthLog> getHealthLogsByServiceNode(ServiceNode serviceNode) {
         return nodeHealthLogRepository.findByServiceNode(serviceNode);
     }
 
+    @Transactional(readOnly = true)
     public List<NodeHealthLog> getHealthLogsByServiceNodeId(Long serviceNodeId) {
         ServiceNode serviceNode = serviceNodeService.getServiceNodeById(serviceNodeId)
                 .orElseThrow(() -> new RuntimeException("Service node not found"));
@@ -60,6 +64,7 @@ public class NodeHealthLogService {
         return nodeHealthLogRepository.save(healthLog);
     }
 
+    @Transactional(readOnly = true)
     public List<NodeHealthLog> getRecentHealthLogs(Long serviceNodeId, int hours) {
         ServiceNode serviceNode = serviceNodeService.getServiceNodeById(serviceNodeId)
                 .orElseThrow(() -> new RuntimeException("Service node not found"));
@@ -68,6 +73,7 @@ public class NodeHealthLogService {
         return nodeHealthLogRepository.findRecentLogsByServiceNode(serviceNode, since);
     }
 
+    @Transactional(readOnly = true)
     public Long getCriticalLogsCount(Long serviceNodeId, int hours) {
         ServiceNode serviceNode = serviceNodeService.getServiceNodeById(serviceNodeId)
                 .orElseThrow(() -> new RuntimeException("Service node not found"));
@@ -76,6 +82,7 @@ public class NodeHealthLogService {
         return nodeHealthLogRepository.countCriticalLogsSince(serviceNode, since);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Long> getHealthStatusSummary(int hours) {
         LocalDateTime since = LocalDateTime.now().minusHours(hours);
         return nodeHealthLogRepository.countLogsByStatusSince(since).stream()
@@ -0,0 +1,234 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.TicketRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Runs the ticket cursors behind report exports. Small exports stream on the
+ * caller's thread in one read-only transaction. Large ones (at least
+ * {@code it4u.reports.parallel-export.min-rows}) are split by id range into
+ * partitions of {@code partition-rows} tickets each; each partition is fetched
+ * and rendered to a block on the reportRenderExecutor, in its own read-only
+ * transaction, and the blocks are handed to the caller strictly in order.
+ * <p>
+ * Only a window of blocks is in flight at once, so memory is bounded by
+ * the window size rather than the export size. Partitions run highest ids
+ * first and each is sorted like the serial export, so the output keeps the
+ * newest-first order as long as ids follow creation time. Each partition reads
+ * its own snapshot; a ticket edited mid-export may show either version.
+ * <p>
+ * Every transaction is bounded: exports streamed to a browser get
+ * {@code it4u.reports.query-timeout.export-seconds}, background export jobs
+ * the longer {@code job-seconds}. While a request's QueryCancellation is bound,
+ * the running statements are cancelled when its client goes away.
+ */
+@Service
+@Slf4j
+public class PartitionedTicketExporter {
+
+    private final TicketRepository ticketRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final AsyncTaskExecutor renderExecutor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${it4u.reports.parallel-export.min-rows:20000}")
+    private long minRows = 20000;
+
+    @Value("${it4u.reports.parallel-export.partition-rows:5000}")
+    private long partitionRows = 5000;
+
+    @Value("${it4u.reports.parallel-export.window:8}")
+    private int window = 8;
+
+    @Value("${it4u.reports.query-timeout.export-seconds:300}")
+    private int exportTimeoutSeconds = 300;
+
+    @Value("${it4u.reports.query-timeout.job-seconds:1800}")
+    private int jobTimeoutSeconds = 1800;
+
+    @Autowired
+    public PartitionedTicketExporter(TicketRepository ticketRepository, PlatformTransactionManager transactionManager,
+            @Qualifier("reportRenderExecutor") AsyncTaskExecutor renderExecutor) {
+        this.ticketRepository = ticketRepository;
+        this.transactionManager = transactionManager;
+        this.renderExecutor = renderExecutor;
+    }
+
+    /** Consumes a whole ticket cursor; may write to the export output. */
+    @FunctionalInterface
+    public interface TicketStreamWriter {
+        void write(Stream<Ticket> tickets) throws IOException;
+    }
+
+    /** Receives rendered blocks in partition order, on the caller's thread. */
+    @FunctionalInterface
+    public interface BlockSink<B> {
+        void accept(B block) throws IOException;
+    }
+
+    /** Inclusive id bounds of one partition. */
+    public record IdRange(long from, long to) {
+    }
+
+    /**
+     * Id ranges to export {@code spec} in, highest first, or an empty list
+     * when the result is small enough to stream serially. Boundaries are
+     * placed by row count over the filtered tickets, so every partition holds
+     * about {@code partition-rows} of them however uneven the ids are. Both
+     * queries scan the filtered tickets, so they run bounded and cancellable
+     * like the export itself.
+     */
+    public List<IdRange> partition(Specification<Ticket> spec) {
+        if (minRows <= 0 || partitionRows <= 0) {
+            return Collections.emptyList();
+        }
+        QueryCancellation cancellation = QueryCancellation.current();
+        return readOnlyTransaction(cancellation).execute(status -> {
+            try (QueryCancellation.Registration guard = QueryCancellation.guard(cancellation, entityManager)) {
+                Object[] range = ticketRepository.idRange(spec);
+                if (range == null || range[0] == null || ((Number) range[2]).longValue() < minRows) {
+                    return Collections.<IdRange>emptyList();
+                }
+                return contiguous(ticketRepository.idPartitions(spec, partitionRows));
+            }
+        });
+    }
+
+    /** Streams all of {@code spec} to {@code writer} in one read-only transaction. */
+    public void stream(Specification<Ticket> spec, Sort sort, int fetchSize, TicketStreamWriter writer)
+            throws IOException {
+        QueryCancellation cancellation = QueryCancellation.current();
+        try {
+            readOnlyTransaction(cancellation).executeWithoutResult(status -> {
+                try (QueryCancellation.Registration guard = QueryCancellation.guard(cancellation, entityManager);
+                        Stream<Ticket> tickets = ticketRepository.streamAll(spec, sort, fetchSize)) {
+                    writer.write(tickets);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Renders each partition of {@code spec} with {@code renderer} in parallel
+     * and passes the blocks to {@code sink} in partition order. If the sink
+     * fails (e.g. the client went away) partitions not yet consumed are
+     * cancelled, including statements already running.
+     */
+    public <B> void render(Specification<Ticket> spec, List<IdRange> partitions, Sort sort, int fetchSize,
+            Function<Stream<Ticket>, B> renderer, BlockSink<B> sink) throws IOException {
+        long start = System.nanoTime();
+        QueryCancellation request = QueryCancellation.current();
+        TransactionTemplate transaction = readOnlyTransaction(request);
+        // Partition statements run on pool threads; cancelled with the request or when this export fails
+        QueryCancellation running = new QueryCancellation();
+        QueryCancellation.Registration requestGuard = request != null ? request.register(running::cancel)
+                : QueryCancellation.Registration.NONE;
+        Deque<Future<B>> pending = new ArrayDeque<>();
+        int next = 0;
+        boolean completed = false;
+        try {
+            while (next < partitions.size() || !pending.isEmpty()) {
+                while (next < partitions.size() && pending.size() < Math.max(1, window)) {
+                    Specification<Ticket> part = spec.and(inRange(partitions.get(next++)));
+                    pending.add(renderExecutor.submit(() -> transaction.execute(status -> {
+                        try (QueryCancellation.Registration guard = QueryCancellation.guard(running, entityManager);
+                                Stream<Ticket> tickets = ticketRepository.streamAll(part, sort, fetchSize)) {
+                            return renderer.apply(tickets);
+                        }
+                    })));
+                }
+                if (running.isCancelled()) {
+                    throw new IOException("Export cancelled: the client went away");
+                }
+                sink.accept(await(pending.poll()));
+            }
+            completed = true;
+        } finally {
+            requestGuard.close();
+            if (!completed) {
+                running.cancel();
+            }
+            pending.forEach(f -> f.cancel(true));
+        }
+        log.debug("Rendered {} export partition(s) in {} ms", partitions.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private TransactionTemplate readOnlyTransaction(QueryCancellation request) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout(request != null ? exportTimeoutSeconds : jobTimeoutSeconds);
+        return transaction;
+    }
+
+    /**
+     * Ranges from (min id, max id, count) rows, highest first, each widened
+     * down to the range below it: a ticket created between two partitions
+     * after they were computed is still exported by exactly one of them.
+     */
+    static List<IdRange> contiguous(List<Object[]> partitions) {
+        List<IdRange> ranges = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            long from = i + 1 < partitions.size()
+                    ? ((Number) partitions.get(i + 1)[1]).longValue() + 1
+                    : ((Number) partitions.get(i)[0]).longValue();
+            ranges.add(new IdRange(from, ((Number) partitions.get(i)[1]).longValue()));
+        }
+        return ranges;
+    }
+
+    private static Specification<Ticket> inRange(IdRange range) {
+        return (root, query, cb) -> cb.between(root.get("id"), range.from(), range.to());
+    }
+
+    private static <B> B await(Future<B> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering export", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
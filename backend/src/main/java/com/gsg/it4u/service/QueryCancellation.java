@@ -0,0 +1,94 @@
+package com.gsg.it4u.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets report queries be cancelled from another thread once nobody is waiting
+ * for them. One instance per streamed request, bound to the thread writing the
+ * response (see QueryCancellationInterceptor); query code registers a cancel
+ * action for as long as its statement runs. A client that disconnects
+ * mid-stream already fails the next write, but a query still computing its
+ * first row would otherwise run to completion.
+ */
+@Slf4j
+public class QueryCancellation {
+
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Set<Runnable> actions = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /** Deregisters a cancel action; does not throw. */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        Registration NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+
+    /** The cancellation of the request this thread is writing, or null. */
+    public static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Registers {@code action} until the returned registration is closed. If
+     * this was already cancelled, the action runs straight away.
+     */
+    public Registration register(Runnable action) {
+        actions.add(action);
+        if (cancelled) {
+            run(action);
+        }
+        return () -> actions.remove(action);
+    }
+
+    /**
+     * Registers cancellation of whatever statement {@code entityManager}'s
+     * current session is executing with {@code cancellation}; a no-op when
+     * either is absent.
+     */
+    public static Registration guard(QueryCancellation cancellation, EntityManager entityManager) {
+        if (cancellation == null || entityManager == null) {
+            return Registration.NONE;
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return cancellation.register(() -> session.getJdbcCoordinator().cancelLastQuery());
+    }
+
+    /** Cancels every registered statement; later registrations are cancelled on arrival. */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        actions.forEach(QueryCancellation::run);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private static void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.debug("Query cancel action failed", e);
+        }
+    }
+}
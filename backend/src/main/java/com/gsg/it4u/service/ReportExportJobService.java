@@ -0,0 +1,359 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gsg.it4u.dto.ReportExportJobDTO;
+import com.gsg.it4u.dto.ReportFilter;
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.event.ReportExportFinishedEvent;
+import com.gsg.it4u.repository.ReportExportJobRepository;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs report exports in the background on the bounded reportExportExecutor,
+ * so a large export holds neither a Tomcat thread nor an HTTP connection. The
+ * file is written under {@code it4u.reports.export-dir} and, once complete,
+ * put in the shared {@link AttachmentStore} under {@code report-exports/}, so
+ * any node can serve and expire it. It is kept for
+ * {@code it4u.reports.export-retention-hours}.
+ * <p>
+ * Row progress of a running job lives in memory on the node running it; the
+ * job row is updated at start and finish. That node also refreshes the row's
+ * heartbeat while the job is queued or running, so another node (or itself,
+ * after a restart) can tell a job that will never finish from one that is
+ * still working.
+ */
+@Service
+@Slf4j
+public class ReportExportJobService {
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    static final String KEY_PREFIX = "report-exports/";
+
+    private final ReportExportJobRepository jobRepository;
+    private final ReportService reportService;
+    private final TaskExecutor exportExecutor;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AttachmentStore attachmentStore;
+    private final Map<String, AtomicLong> liveProgress = new ConcurrentHashMap<>();
+    /** Jobs queued or running on this node. */
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+
+    /** Node-local scratch space for files still being written. */
+    @Value("${it4u.reports.export-dir:./storage/report-exports}")
+    private String exportDir;
+
+    @Value("${it4u.reports.export-retention-hours:24}")
+    private long retentionHours;
+
+    /** How long a QUEUED or RUNNING job may go without a heartbeat before it is failed. */
+    @Value("${it4u.reports.export-stale-after-ms:300000}")
+    private long staleAfterMs = 300000;
+
+    @Autowired
+    public ReportExportJobService(ReportExportJobRepository jobRepository, ReportService reportService,
+            @Qualifier("reportExportExecutor") TaskExecutor exportExecutor, ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher, AttachmentStore attachmentStore) {
+        this.jobRepository = jobRepository;
+        this.reportService = reportService;
+        this.exportExecutor = exportExecutor;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.attachmentStore = attachmentStore;
+    }
+
+    public ReportExportJobDTO submit(ReportFilter filter, ReportExportJob.Format format, String requestedBy) {
+        ReportFilter effectiveFilter = filter != null ? filter : new ReportFilter();
+        ReportExportJob job = ReportExportJob.builder()
+                .id(UUID.randomUUID().toString())
+                .format(format)
+                .status(ReportExportJob.Status.QUEUED)
+                .filterJson(toJson(effectiveFilter))
+                .requestedBy(requestedBy)
+                .fileName("tickets_report_" + LocalDateTime.now().format(FILE_STAMP) + "." + format.getExtension())
+                .build();
+        job = jobRepository.save(job);
+
+        String jobId = job.getId();
+        localJobs.add(jobId);
+        try {
+            exportExecutor.execute(() -> run(jobId, effectiveFilter));
+        } catch (TaskRejectedException e) {
+            localJobs.remove(jobId);
+            job.setStatus(ReportExportJob.Status.FAILED);
+            job.setErrorMessage("Export queue is full");
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many exports are queued, try again later");
+        }
+        log.info("Export job {} queued: format={}, requestedBy={}", jobId, format, requestedBy);
+        return toDto(job);
+    }
+
+    public ReportExportJobDTO getJob(String id) {
+        return toDto(findJob(id));
+    }
+
+    public List<ReportExportJobDTO> getRecentJobs() {
+        return jobRepository.findTop50ByOrderByCreatedAtDesc().stream().map(this::toDto).toList();
+    }
+
+    /**
+     * The finished file, for a download that may use Range requests.
+     */
+    public Resource getFile(String id) {
+        ReportExportJob job = findJob(id);
+        if (job.getStatus() == ReportExportJob.Status.EXPIRED) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Export " + id + " has expired");
+        }
+        if (job.getStatus() != ReportExportJob.Status.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Export " + id + " is " + job.getStatus() + ", not ready for download");
+        }
+        String key = fileKey(job);
+        Optional<Path> local = attachmentStore.localPath(key);
+        if (local.isPresent()) {
+            if (!Files.isReadable(local.get())) {
+                throw gone(id);
+            }
+            return new FileSystemResource(local.get());
+        }
+        long size;
+        try {
+            size = attachmentStore.size(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (size < 0) {
+            throw gone(id);
+        }
+        return new StoredFileResource(attachmentStore, key, size);
+    }
+
+    private static ResponseStatusException gone(String id) {
+        return new ResponseStatusException(HttpStatus.GONE, "Export file for " + id + " is no longer available");
+    }
+
+    public ReportExportJob findJob(String id) {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export job not found: " + id));
+    }
+
+    void run(String jobId, ReportFilter filter) {
+        ReportExportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            localJobs.remove(jobId);
+            return;
+        }
+        AtomicLong progress = new AtomicLong();
+        liveProgress.put(jobId, progress);
+        Path part = Paths.get(exportDir).resolve(jobId + ".part");
+        try {
+            job.setStatus(ReportExportJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job.setHeartbeatAt(job.getStartedAt());
+            job.setTotalRows(reportService.countTickets(filter));
+            job = jobRepository.save(job);
+
+            Files.createDirectories(part.getParent());
+            try (OutputStream out = Files.newOutputStream(part)) {
+                switch (job.getFormat()) {
+                    case XLSX -> reportService.writeTicketsToExcel(filter, out, progress::set);
+                    case CSV -> reportService.writeTicketsToCsv(filter, out, progress::set);
+                    case JSONL -> reportService.writeTicketsToJsonl(filter, out, progress::set);
+                }
+            }
+            long size = Files.size(part);
+            attachmentStore.put(fileKey(job), part);
+            deleteQuietly(part);
+
+            job.setStatus(ReportExportJob.Status.COMPLETED);
+            job.setRowsWritten(progress.get());
+            job.setSizeBytes(size);
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            log.info("Export job {} completed: {} rows, {} bytes", jobId, job.getRowsWritten(), job.getSizeBytes());
+            publishFinished(job);
+        } catch (Exception e) {
+            log.error("Export job {} failed", jobId, e);
+            deleteQuietly(part);
+            job.setStatus(ReportExportJob.Status.FAILED);
+            job.setRowsWritten(progress.get());
+            job.setErrorMessage(truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            publishFinished(job);
+        } finally {
+            liveProgress.remove(jobId);
+            localJobs.remove(jobId);
+        }
+    }
+
+    private void publishFinished(ReportExportJob job) {
+        try {
+            eventPublisher.publishEvent(new ReportExportFinishedEvent(this, job.getId(), job.getStatus()));
+        } catch (Exception e) {
+            log.error("Export job {} finish listener failed", job.getId(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${it4u.reports.export-heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (!localJobs.isEmpty()) {
+            jobRepository.touchHeartbeat(List.copyOf(localJobs), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Jobs left QUEUED or RUNNING by a process that stopped will never finish.
+     * Only those without a heartbeat for {@code export-stale-after-ms} are
+     * failed: jobs still running on other nodes keep refreshing theirs. Runs
+     * at startup and then periodically, which also catches nodes that died
+     * and never came back.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${it4u.reports.export-heartbeat-ms:30000}",
+            initialDelayString = "${it4u.reports.export-stale-after-ms:300000}")
+    public void failInterruptedJobs() {
+        EnumSet<ReportExportJob.Status> unfinished = EnumSet.of(ReportExportJob.Status.QUEUED,
+                ReportExportJob.Status.RUNNING);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusNanos(staleAfterMs * 1_000_000);
+        int failed = 0;
+        for (ReportExportJob job : jobRepository.findByStatusInAndHeartbeatAtBefore(unfinished, cutoff)) {
+            if (localJobs.contains(job.getId())) {
+                continue;
+            }
+            if (jobRepository.failIfStale(job.getId(), unfinished, cutoff, ReportExportJob.Status.FAILED,
+                    "Interrupted: the node running it stopped", now) > 0) {
+                deleteQuietly(Paths.get(exportDir).resolve(job.getId() + ".part"));
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.warn("Marked {} interrupted export job(s) as FAILED", failed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${it4u.reports.export-cleanup-interval-ms:3600000}")
+    public void expireOldExports() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        List<ReportExportJob> expired = jobRepository
+                .findByStatusAndCompletedAtBefore(ReportExportJob.Status.COMPLETED, cutoff);
+        for (ReportExportJob job : expired) {
+            try {
+                attachmentStore.delete(fileKey(job));
+            } catch (IOException e) {
+                log.warn("Could not delete export file {}: {}", fileKey(job), e.getMessage());
+            }
+            job.setStatus(ReportExportJob.Status.EXPIRED);
+        }
+        if (!expired.isEmpty()) {
+            jobRepository.saveAll(expired);
+            log.info("Expired {} export file(s) older than {}h", expired.size(), retentionHours);
+        }
+    }
+
+    private ReportExportJobDTO toDto(ReportExportJob job) {
+        AtomicLong live = liveProgress.get(job.getId());
+        return ReportExportJobDTO.fromEntity(job, live != null ? live.get() : job.getRowsWritten());
+    }
+
+    private static String fileKey(ReportExportJob job) {
+        return KEY_PREFIX + job.getId() + "." + job.getFormat().getExtension();
+    }
+
+    private String toJson(ReportFilter filter) {
+        try {
+            return objectMapper.writeValueAsString(filter);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize report filter", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    /**
+     * An export in a store without local files. Each read opens a fresh
+     * stream, so mail attachments can read it twice and Spring MVC can serve
+     * Range requests from it.
+     */
+    private static final class StoredFileResource extends AbstractResource {
+
+        private final AttachmentStore store;
+        private final String key;
+        private final long size;
+
+        StoredFileResource(AttachmentStore store, String key, long size) {
+            this.store = store;
+            this.key = key;
+            this.size = size;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return store.get(key, 0, -1);
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "Stored export [" + key + "]";
+        }
+    }
+}
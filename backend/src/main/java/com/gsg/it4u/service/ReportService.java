@@ -1,60 +1,178 @@
 package com.gsg.it4u.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gsg.it4u.dto.FacetCountDTO;
 import com.gsg.it4u.dto.ReportFilter;
 import com.gsg.it4u.dto.TicketReportDTO;
 import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.event.TicketCreatedEvent;
+import com.gsg.it4u.event.TicketManagerDecisionEvent;
+import com.gsg.it4u.event.TicketStatusChangedEvent;
 import com.gsg.it4u.repository.TicketRepository;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ReportService {
 
-    private final TicketRepository ticketRepository;
+    static final String[] EXPORT_HEADERS = {
+            "Ticket No", "Title", "Category", "Sub-Category", "Status", "Manager Approval",
+            "Priority", "Employee Name", "Employee ID", "Employee Email", "Manager Name",
+            "Assigned To", "Device Details", "Created At", "Updated At", "SLA Status",
+            "Department", "Location"
+    };
+
+    /** Rows SXSSF keeps in memory before flushing to its temp file. */
+    private static final int EXCEL_ROW_WINDOW = 200;
+    /** JDBC fetch size for export cursors; Postgres only streams inside a transaction. */
+    static final int EXPORT_FETCH_SIZE = 500;
+    private static final int CSV_BUFFER_CHARS = 64 * 1024;
+    static final Sort EXPORT_SORT = Sort.by(Sort.Direction.DESC, "createdAt");
 
+    /** Rows between progress callbacks during an export. */
+    static final int PROGRESS_INTERVAL = 500;
+
+    private final TicketRepository ticketRepository;
+    private final ObjectMapper objectMapper;
+    private final TicketFacetService ticketFacetService;
+    private final PartitionedTicketExporter partitionedExporter;
+
+    private final ResultCache<PageKey, Page<TicketReportDTO>> pageCache = new ResultCache<>(Duration.ofSeconds(60),
+            200);
+    private final ResultCache<ReportFilter, Map<String, List<FacetCountDTO>>> facetCache = new ResultCache<>(
+            Duration.ofSeconds(60), 200);
+
+    /**
+     * Served from a short-lived cache keyed by the normalized filter and page;
+     * identical concurrent requests share one query.
+     * <p>
+     * Not read-only, so cache loads run on the primary: the reload right after
+     * {@link #invalidateCachedReports} must not cache a lagging replica's view
+     * for a whole TTL. The cache already absorbs the repeat reads.
+     */
+    @Transactional(timeoutString = "${it4u.reports.query-timeout.interactive-seconds:15}")
     public Page<TicketReportDTO> getTickets(ReportFilter filter, Pageable pageable) {
-        Specification<Ticket> spec = createSpecification(filter);
-        return ticketRepository.findAll(spec, pageable).map(TicketReportDTO::fromEntity);
+        ReportFilter key = normalize(filter);
+        return pageCache.get(new PageKey(key, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort()),
+                () -> ticketRepository.findAll(createSpecification(key), pageable).map(TicketReportDTO::fromEntity));
     }
 
-    public ByteArrayInputStream exportTicketsToExcel(ReportFilter filter) {
-        Specification<Ticket> spec = createSpecification(filter);
-        // Limit export to 10,000 to avoid memory issues as requested
-        // using pagination for fetching all might be better if dataset is huge, but for
-        // 10k literal limit:
-        List<Ticket> tickets = ticketRepository.findAll(spec);
-
-        if (tickets.size() > 10000) {
-            tickets = tickets.subList(0, 10000);
-            log.warn("Export limit reached. Truncating to 10000 rows.");
+    /** Facet counts for the same filter as {@link #getTickets}; cached, so also loaded from the primary. */
+    @Transactional(timeoutString = "${it4u.reports.query-timeout.interactive-seconds:15}")
+    public Map<String, List<FacetCountDTO>> getTicketFacets(ReportFilter filter) {
+        ReportFilter key = normalize(filter);
+        return facetCache.get(key, () -> ticketFacetService.facets(createSpecification(key)));
+    }
+
+    /**
+     * Drops cached report pages once a lifecycle change commits. Other edits
+     * (admin delete, data reset) are bounded by the TTL.
+     */
+    @TransactionalEventListener(classes = { TicketCreatedEvent.class, TicketStatusChangedEvent.class,
+            TicketManagerDecisionEvent.class }, phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void invalidateCachedReports() {
+        pageCache.invalidateAll();
+        facetCache.invalidateAll();
+    }
+
+    @Value("${it4u.reports.cache.ttl-seconds:60}")
+    void setCacheTtlSeconds(long seconds) {
+        pageCache.setTtl(Duration.ofSeconds(seconds));
+        facetCache.setTtl(Duration.ofSeconds(seconds));
+    }
+
+    @Value("${it4u.reports.cache.max-entries:200}")
+    void setCacheMaxEntries(int maxEntries) {
+        pageCache.setMaxEntries(maxEntries);
+        facetCache.setMaxEntries(maxEntries);
+    }
+
+    /**
+     * Copy with equivalent filters made equal: the date range only applies when
+     * both ends are set, so a half-open range is the same as none.
+     */
+    static ReportFilter normalize(ReportFilter filter) {
+        ReportFilter copy = new ReportFilter();
+        if (filter == null) {
+            return copy;
+        }
+        if (filter.getStartDate() != null && filter.getEndDate() != null) {
+            copy.setStartDate(filter.getStartDate());
+            copy.setEndDate(filter.getEndDate());
         }
+        copy.setManagerId(filter.getManagerId());
+        copy.setAssignedToId(filter.getAssignedToId());
+        copy.setEmployeeId(filter.getEmployeeId());
+        copy.setCategory(filter.getCategory());
+        copy.setPriority(filter.getPriority());
+        copy.setStatus(filter.getStatus());
+        copy.setManagerApprovalStatus(filter.getManagerApprovalStatus());
+        return copy;
+    }
 
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Ticket Report");
+    /**
+     * Writes the filtered tickets as XLSX straight to {@code out}. Rows come off
+     * a JDBC cursor and SXSSF only keeps a small window of them in memory (the
+     * rest is flushed to a compressed temp file), so heap use stays flat no
+     * matter how many rows match.
+     */
+    public void writeTicketsToExcel(ReportFilter filter, OutputStream out) throws IOException {
+        writeTicketsToExcel(filter, out, rows -> {
+        });
+    }
 
-            // Header
-            String[] commonHeaders = {
-                    "Ticket No", "Title", "Category", "Sub-Category", "Status", "Manager Approval",
-                    "Priority", "Employee Name", "Employee ID", "Employee Email", "Manager Name",
-                    "Assigned To", "Device Details", "Created At", "Updated At", "SLA Status",
-                    "Department", "Location"
-            };
+    /**
+     * As {@link #writeTicketsToExcel(ReportFilter, OutputStream)}, reporting the
+     * running row count to {@code progress} every {@value #PROGRESS_INTERVAL}
+     * rows and once at the end.
+     * <p>
+     * Large exports are fetched and mapped to cell values in parallel
+     * partitions ({@link PartitionedTicketExporter}); the workbook itself is
+     * not thread-safe, so rows are still added on this thread.
+     */
+    public void writeTicketsToExcel(ReportFilter filter, OutputStream out, LongConsumer progress)
+            throws IOException {
+        Specification<Ticket> spec = createSpecification(filter);
+        List<PartitionedTicketExporter.IdRange> partitions = partitionedExporter.partition(spec);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Ticket Report");
 
             Row headerRow = sheet.createRow(0);
             CellStyle headerCellStyle = workbook.createCellStyle();
@@ -62,55 +180,80 @@ public class ReportService {
             headerFont.setBold(true);
             headerCellStyle.setFont(headerFont);
 
-            for (int col = 0; col < commonHeaders.length; col++) {
+            for (int col = 0; col < EXPORT_HEADERS.length; col++) {
                 Cell cell = headerRow.createCell(col);
-                cell.setCellValue(commonHeaders[col]);
+                cell.setCellValue(EXPORT_HEADERS[col]);
                 cell.setCellStyle(headerCellStyle);
             }
 
             // Data
-            int rowIdx = 1;
+            int[] rowIdx = { 1 };
             DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            Consumer<String[]> addRow = cells -> {
+                Row row = sheet.createRow(rowIdx[0]++);
+                for (int col = 0; col < cells.length; col++) {
+                    row.createCell(col).setCellValue(cells[col]);
+                }
+                if ((rowIdx[0] - 1) % PROGRESS_INTERVAL == 0) {
+                    progress.accept(rowIdx[0] - 1);
+                }
+            };
 
-            for (Ticket ticket : tickets) {
-                TicketReportDTO dto = TicketReportDTO.fromEntity(ticket);
-                Row row = sheet.createRow(rowIdx++);
-
-                row.createCell(0).setCellValue(dto.getTicketNumber());
-                row.createCell(1).setCellValue(dto.getTitle());
-                row.createCell(2).setCellValue(dto.getCategory());
-                row.createCell(3).setCellValue(dto.getSubCategory());
-                row.createCell(4).setCellValue(dto.getStatus());
-                row.createCell(5).setCellValue(dto.getManagerApprovalStatus());
-                row.createCell(6).setCellValue(dto.getPriority());
-                row.createCell(7).setCellValue(dto.getEmployeeName());
-                row.createCell(8).setCellValue(dto.getEmployeeId());
-                row.createCell(9).setCellValue(dto.getEmployeeEmail());
-                row.createCell(10).setCellValue(dto.getManagerName());
-                row.createCell(11).setCellValue(dto.getAssignedToName());
-                row.createCell(12).setCellValue(dto.getDeviceDetails());
-                row.createCell(13)
-                        .setCellValue(dto.getCreatedAt() != null ? dto.getCreatedAt().format(dateFormatter) : "");
-                row.createCell(14)
-                        .setCellValue(dto.getUpdatedAt() != null ? dto.getUpdatedAt().format(dateFormatter) : "");
-                row.createCell(15).setCellValue(dto.getSlaStatus());
-                row.createCell(16).setCellValue(dto.getDepartment());
-                row.createCell(17).setCellValue(dto.getLocation());
+            if (partitions.isEmpty()) {
+                partitionedExporter.stream(spec, EXPORT_SORT, EXPORT_FETCH_SIZE, tickets -> tickets
+                        .forEach(ticket -> addRow.accept(excelCells(TicketReportDTO.fromEntity(ticket), dateFormatter))));
+            } else {
+                partitionedExporter.render(spec, partitions, EXPORT_SORT, EXPORT_FETCH_SIZE,
+                        tickets -> renderExcelBlock(tickets, dateFormatter),
+                        block -> block.forEachRow(addRow));
             }
+            progress.accept(rowIdx[0] - 1);
 
-            // Auto size columns (optional, can be slow for large data)
-            // for (int i = 0; i < commonHeaders.length; i++) {
-            // sheet.autoSizeColumn(i);
-            // }
-
+            // No autoSizeColumn: it needs every row in memory, which SXSSF has flushed
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
-        } catch (IOException e) {
-            log.error("Failed to export data to Excel", e);
-            throw new RuntimeException("Fail to import data to Excel file: " + e.getMessage());
+            log.info("Excel export written: {} rows ({} partitions)", rowIdx[0] - 1, partitions.size());
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
+    private static ExcelBlock renderExcelBlock(Stream<Ticket> tickets, DateTimeFormatter dateFormatter) {
+        StringBuilder cells = new StringBuilder(CSV_BUFFER_CHARS);
+        int rows = 0;
+        Iterator<Ticket> it = tickets.iterator();
+        while (it.hasNext()) {
+            for (String cell : excelCells(TicketReportDTO.fromEntity(it.next()), dateFormatter)) {
+                ExcelBlock.append(cells, cell);
+            }
+            rows++;
+        }
+        return new ExcelBlock(cells, rows);
+    }
+
+    private static String[] excelCells(TicketReportDTO dto, DateTimeFormatter dateFormatter) {
+        return new String[] {
+                dto.getTicketNumber(),
+                dto.getTitle(),
+                dto.getCategory(),
+                dto.getSubCategory(),
+                dto.getStatus(),
+                dto.getManagerApprovalStatus(),
+                dto.getPriority(),
+                dto.getEmployeeName(),
+                dto.getEmployeeId(),
+                dto.getEmployeeEmail(),
+                dto.getManagerName(),
+                dto.getAssignedToName(),
+                dto.getDeviceDetails(),
+                dto.getCreatedAt() != null ? dto.getCreatedAt().format(dateFormatter) : "",
+                dto.getUpdatedAt() != null ? dto.getUpdatedAt().format(dateFormatter) : "",
+                dto.getSlaStatus(),
+                dto.getDepartment(),
+                dto.getLocation()
+        };
+    }
+
     private Specification<Ticket> createSpecification(ReportFilter filter) {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -151,56 +294,175 @@ public class ReportService {
         };
     }
 
-    public ByteArrayInputStream exportTicketsToCsv(ReportFilter filter) {
+    /**
+     * Writes the filtered tickets as UTF-8 CSV straight to {@code out}, one row
+     * at a time off a JDBC cursor. The caller owns {@code out} (e.g. wraps it in
+     * gzip); it is flushed here but not closed.
+     */
+    public void writeTicketsToCsv(ReportFilter filter, OutputStream out) throws IOException {
+        writeTicketsToCsv(filter, out, rows -> {
+        });
+    }
+
+    /**
+     * Large exports are rendered to CSV text in parallel partitions
+     * ({@link PartitionedTicketExporter}) and copied to {@code out} in order.
+     */
+    public void writeTicketsToCsv(ReportFilter filter, OutputStream out, LongConsumer progress) throws IOException {
         Specification<Ticket> spec = createSpecification(filter);
-        List<Ticket> tickets = ticketRepository.findAll(spec);
+        List<PartitionedTicketExporter.IdRange> partitions = partitionedExporter.partition(spec);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_CHARS);
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-        if (tickets.size() > 10000) {
-            tickets = tickets.subList(0, 10000);
-            log.warn("Export limit reached. Truncating to 10000 rows.");
+        writer.write(String.join(",", EXPORT_HEADERS));
+        writer.write('\n');
+
+        long[] rows = { 0 };
+        if (partitions.isEmpty()) {
+            partitionedExporter.stream(spec, EXPORT_SORT, EXPORT_FETCH_SIZE, tickets -> {
+                Iterator<Ticket> it = tickets.iterator();
+                while (it.hasNext()) {
+                    writeCsvRow(writer, TicketReportDTO.fromEntity(it.next()), dateFormatter);
+                    if (++rows[0] % PROGRESS_INTERVAL == 0) {
+                        progress.accept(rows[0]);
+                    }
+                }
+            });
+        } else {
+            partitionedExporter.render(spec, partitions, EXPORT_SORT, EXPORT_FETCH_SIZE,
+                    tickets -> renderCsvBlock(tickets, dateFormatter),
+                    block -> {
+                        block.text().writeTo(writer);
+                        rows[0] += block.rows();
+                        progress.accept(rows[0]);
+                    });
         }
+        writer.flush();
+        progress.accept(rows[0]);
+        log.info("CSV export written: {} rows ({} partitions)", rows[0], partitions.size());
+    }
 
-        StringBuilder csv = new StringBuilder();
-        // Header
-        csv.append(
-                "Ticket No,Title,Category,Sub-Category,Status,Manager Approval,Priority,Employee Name,Employee ID,Employee Email,Manager Name,Assigned To,Device Details,Created At,Updated At,SLA Status,Department,Location\n");
-
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static CsvBlock renderCsvBlock(Stream<Ticket> tickets, DateTimeFormatter dateFormatter) {
+        CharArrayWriter text = new CharArrayWriter(CSV_BUFFER_CHARS);
+        int rows = 0;
+        try {
+            Iterator<Ticket> it = tickets.iterator();
+            while (it.hasNext()) {
+                writeCsvRow(text, TicketReportDTO.fromEntity(it.next()), dateFormatter);
+                rows++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CsvBlock(text, rows);
+    }
 
-        for (Ticket ticket : tickets) {
-            TicketReportDTO dto = TicketReportDTO.fromEntity(ticket);
-            csv.append(escapeSpecialCharacters(dto.getTicketNumber())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getTitle())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getCategory())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getSubCategory())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getStatus())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getManagerApprovalStatus())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getPriority())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getEmployeeName())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getEmployeeId())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getEmployeeEmail())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getManagerName())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getAssignedToName())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getDeviceDetails())).append(",");
-            csv.append(dto.getCreatedAt() != null ? dto.getCreatedAt().format(dateFormatter) : "").append(",");
-            csv.append(dto.getUpdatedAt() != null ? dto.getUpdatedAt().format(dateFormatter) : "").append(",");
-            csv.append(escapeSpecialCharacters(dto.getSlaStatus())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getDepartment())).append(",");
-            csv.append(escapeSpecialCharacters(dto.getLocation())).append("\n");
+    private static void writeCsvRow(Writer writer, TicketReportDTO dto, DateTimeFormatter dateFormatter)
+            throws IOException {
+        field(writer, dto.getTicketNumber());
+        field(writer, dto.getTitle());
+        field(writer, dto.getCategory());
+        field(writer, dto.getSubCategory());
+        field(writer, dto.getStatus());
+        field(writer, dto.getManagerApprovalStatus());
+        field(writer, dto.getPriority());
+        field(writer, dto.getEmployeeName());
+        field(writer, dto.getEmployeeId());
+        field(writer, dto.getEmployeeEmail());
+        field(writer, dto.getManagerName());
+        field(writer, dto.getAssignedToName());
+        field(writer, dto.getDeviceDetails());
+        if (dto.getCreatedAt() != null) {
+            dateFormatter.formatTo(dto.getCreatedAt(), writer);
         }
+        writer.write(',');
+        if (dto.getUpdatedAt() != null) {
+            dateFormatter.formatTo(dto.getUpdatedAt(), writer);
+        }
+        writer.write(',');
+        field(writer, dto.getSlaStatus());
+        field(writer, dto.getDepartment());
+        CsvEscaper.writeField(writer, dto.getLocation());
+        writer.write('\n');
+    }
 
-        return new ByteArrayInputStream(csv.toString().getBytes());
+    /**
+     * Writes the filtered tickets as JSON Lines (one {@link TicketReportDTO} per
+     * line) to {@code out}. Flushed, not closed.
+     */
+    public void writeTicketsToJsonl(ReportFilter filter, OutputStream out, LongConsumer progress)
+            throws IOException {
+        Specification<Ticket> spec = createSpecification(filter);
+        ObjectWriter writer = objectMapper.writerFor(TicketReportDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        OutputStream buffered = new BufferedOutputStream(out, CSV_BUFFER_CHARS);
+
+        long[] rows = { 0 };
+        partitionedExporter.stream(spec, EXPORT_SORT, EXPORT_FETCH_SIZE, tickets -> {
+            Iterator<Ticket> it = tickets.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(buffered, TicketReportDTO.fromEntity(it.next()));
+                buffered.write('\n');
+                if (++rows[0] % PROGRESS_INTERVAL == 0) {
+                    progress.accept(rows[0]);
+                }
+            }
+        });
+        buffered.flush();
+        progress.accept(rows[0]);
+        log.info("JSONL export written: {} rows", rows[0]);
+    }
+
+    /** Progress total for background export jobs, so bounded like the job itself. */
+    @Transactional(readOnly = true, timeoutString = "${it4u.reports.query-timeout.job-seconds:1800}")
+    public long countTickets(ReportFilter filter) {
+        return ticketRepository.count(createSpecification(filter));
+    }
+
+    private static void field(Writer writer, String value) throws IOException {
+        CsvEscaper.writeField(writer, value);
+        writer.write(',');
+    }
+
+    private record PageKey(ReportFilter filter, int page, int size, Sort sort) {
     }
 
-    private String escapeSpecialCharacters(String data) {
-        if (data == null) {
-            return "";
+    /** Rendered CSV text of one export partition. */
+    private record CsvBlock(CharArrayWriter text, int rows) {
+    }
+
+    /**
+     * Cell values of one export partition, written straight into one buffer
+     * (each cell length-prefixed) rather than kept as a String[] per row, so
+     * blocks waiting in the render window stay close to the size of their text.
+     */
+    private record ExcelBlock(StringBuilder cells, int rows) {
+
+        private static final char NULL_CELL = '\uFFFF';
+
+        static void append(StringBuilder cells, String cell) {
+            if (cell == null) {
+                cells.append(NULL_CELL);
+                return;
+            }
+            cells.append((char) (cell.length() >>> 16)).append((char) cell.length()).append(cell);
         }
-        String escapedData = data.replaceAll("\\R", " ");
-        if (data.contains(",") || data.contains("\"") || data.contains("'")) {
-            data = data.replace("\"", "\"\"");
-            escapedData = "\"" + data + "\"";
+
+        void forEachRow(Consumer<String[]> action) {
+            int pos = 0;
+            for (int row = 0; row < rows; row++) {
+                String[] values = new String[EXPORT_HEADERS.length];
+                for (int col = 0; col < values.length; col++) {
+                    char high = cells.charAt(pos++);
+                    if (high == NULL_CELL) {
+                        continue;
+                    }
+                    int length = high << 16 | cells.charAt(pos++);
+                    values[col] = cells.substring(pos, pos + length);
+                    pos += length;
+                }
+                action.accept(values);
+            }
         }
-        return escapedData;
     }
 }
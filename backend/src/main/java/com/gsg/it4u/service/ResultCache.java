@@ -0,0 +1,151 @@
+package com.gsg.it4u.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Small in-process cache for query results: entries expire after a TTL, the
+ * map is capped at a maximum size, and concurrent misses for the same key
+ * share one load (single flight) instead of each hitting the database.
+ * <p>
+ * {@link #invalidateAll()} also stops loads already in flight from storing
+ * their (possibly stale) result; their callers still get it.
+ */
+public class ResultCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+    private final LongSupplier clock;
+
+    private volatile long ttlNanos;
+    private volatile int maxEntries;
+
+    public ResultCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, System::nanoTime);
+    }
+
+    ResultCache(Duration ttl, int maxEntries, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        V cached = fresh(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            shared.incrementAndGet();
+            return await(leader);
+        }
+        try {
+            // Another leader may have finished between the first check and putIfAbsent
+            cached = fresh(key);
+            if (cached != null) {
+                mine.complete(cached);
+                return cached;
+            }
+            misses.incrementAndGet();
+            long startGeneration = generation.get();
+            V value = loader.get();
+            if (value != null && generation.get() == startGeneration) {
+                put(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Requests that waited on another caller's in-flight load. */
+    public long getShared() {
+        return shared.get();
+    }
+
+    private V fresh(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() - clock.getAsLong() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value();
+    }
+
+    private void put(K key, V value) {
+        long now = clock.getAsLong();
+        entries.put(key, new Entry<>(value, now + ttlNanos));
+        if (entries.size() > maxEntries) {
+            entries.values().removeIf(e -> e.expiresAt() - now <= 0);
+            while (entries.size() > maxEntries) {
+                entries.entrySet().stream()
+                        .min(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+                        .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,293 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gsg.it4u.dto.ReportExportJobDTO;
+import com.gsg.it4u.dto.ReportFilter;
+import com.gsg.it4u.dto.ScheduledReportDTO;
+import com.gsg.it4u.dto.ScheduledReportRequest;
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.entity.ScheduledReport;
+import com.gsg.it4u.event.ReportExportFinishedEvent;
+import com.gsg.it4u.repository.ScheduledReportRepository;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Saved report specs run on their cron schedule, so recurring heavy exports
+ * are generated off-peak instead of by several people at 9am. A due run is
+ * submitted as an ordinary export job (bounded reportExportExecutor, so runs
+ * falling on the same minute queue up rather than hit the DB together); when
+ * the job finishes the file is mailed to the recipients, or left as an export
+ * job to download for STORE delivery.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledReportService {
+
+    static final String COMPLETED = "COMPLETED";
+    static final String MAILED = "MAILED";
+    static final String MAIL_FAILED = "MAIL_FAILED";
+    static final String QUEUED = "QUEUED";
+    static final String FAILED = "FAILED";
+
+    private static final String REQUESTED_BY_PREFIX = "schedule:";
+    private static final DateTimeFormatter RUN_STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final ScheduledReportRepository scheduledReportRepository;
+    private final ReportExportJobService reportExportJobService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<JavaMailSender> mailSender;
+
+    @Value("${it4u.mail.enabled:false}")
+    private boolean mailEnabled;
+
+    @Value("${notifications.sender-address:}")
+    private String senderAddress;
+
+    @Value("${app.public-url:}")
+    private String publicUrl;
+
+    /** Larger files are mailed as a download link instead of an attachment. */
+    @Value("${it4u.reports.schedule.max-attachment-bytes:10485760}")
+    private long maxAttachmentBytes = 10485760;
+
+    /** A run that could not be queued is retried after this many minutes. */
+    @Value("${it4u.reports.schedule.retry-minutes:15}")
+    private long retryMinutes = 15;
+
+    public List<ScheduledReportDTO> getAll() {
+        return scheduledReportRepository.findAllByOrderByNameAsc().stream().map(this::toDto).toList();
+    }
+
+    public ScheduledReportDTO get(Long id) {
+        return toDto(find(id));
+    }
+
+    public ScheduledReportDTO create(ScheduledReportRequest request, String createdBy) {
+        ScheduledReport report = new ScheduledReport();
+        report.setCreatedBy(createdBy);
+        apply(report, request);
+        report = scheduledReportRepository.save(report);
+        log.info("Scheduled report {} '{}' created by {}: cron={}, next run {}", report.getId(), report.getName(),
+                createdBy, report.getCron(), report.getNextRunAt());
+        return toDto(report);
+    }
+
+    public ScheduledReportDTO update(Long id, ScheduledReportRequest request) {
+        ScheduledReport report = find(id);
+        apply(report, request);
+        try {
+            return toDto(scheduledReportRepository.save(report));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Scheduled report " + id + " changed while it was being edited, try again");
+        }
+    }
+
+    public void delete(Long id) {
+        scheduledReportRepository.delete(find(id));
+    }
+
+    /** Runs the report now, outside its schedule; the next scheduled run is unchanged. */
+    public ReportExportJobDTO runNow(Long id) {
+        ScheduledReport report = find(id);
+        scheduledReportRepository.recordManualRun(id, LocalDateTime.now());
+        ReportExportJobDTO job = reportExportJobService.submit(readFilter(report), report.getFormat(),
+                requestedBy(report));
+        scheduledReportRepository.recordQueued(id, job.getId());
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${it4u.reports.schedule.poll-interval-ms:60000}", initialDelay = 60000)
+    public void runDueReports() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ScheduledReport report : scheduledReportRepository
+                .findByEnabledTrueAndNextRunAtLessThanEqualOrderByNextRunAtAsc(now)) {
+            try {
+                runIfClaimed(report, now);
+            } catch (Exception e) {
+                log.error("Scheduled report {} could not be started", report.getId(), e);
+            }
+        }
+    }
+
+    private void runIfClaimed(ScheduledReport report, LocalDateTime now) {
+        LocalDateTime next = nextRun(report.getCron(), now);
+        if (scheduledReportRepository.claimRun(report.getId(), report.getNextRunAt(), next, now) == 0) {
+            return; // another node took this slot, or the spec changed meanwhile
+        }
+        try {
+            // The job may finish before this returns; its outcome is then recorded already and kept
+            ReportExportJobDTO job = reportExportJobService.submit(readFilter(report), report.getFormat(),
+                    requestedBy(report));
+            scheduledReportRepository.recordQueued(report.getId(), job.getId());
+            log.info("Scheduled report {} '{}' queued as export job {}", report.getId(), report.getName(),
+                    job.getId());
+        } catch (ResponseStatusException e) {
+            LocalDateTime retry = now.truncatedTo(ChronoUnit.SECONDS).plusMinutes(retryMinutes);
+            LocalDateTime nextAttempt = next == null || retry.isBefore(next) ? retry : next;
+            scheduledReportRepository.recordNotQueued(report.getId(), nextAttempt, truncate(e.getReason()));
+            log.warn("Scheduled report {} not queued ({}), next attempt {}", report.getId(), e.getReason(),
+                    nextAttempt);
+        }
+    }
+
+    /**
+     * Finds the schedule from the job's {@code requestedBy}, not from
+     * {@code lastJobId}: a fast job can finish before its id is recorded.
+     */
+    @EventListener
+    public void onExportFinished(ReportExportFinishedEvent event) {
+        ReportExportJob job = reportExportJobService.findJob(event.getJobId());
+        Long scheduleId = scheduleId(job.getRequestedBy());
+        if (scheduleId == null) {
+            return;
+        }
+        scheduledReportRepository.findById(scheduleId).ifPresent(report -> {
+            Outcome outcome;
+            if (event.getStatus() != ReportExportJob.Status.COMPLETED) {
+                outcome = new Outcome(FAILED, job.getErrorMessage());
+            } else if (report.getDelivery() == ScheduledReport.Delivery.EMAIL) {
+                outcome = deliver(report, job);
+            } else {
+                outcome = new Outcome(COMPLETED, null);
+            }
+            scheduledReportRepository.recordOutcome(scheduleId, job.getId(), job.getRequestedBy(),
+                    job.getCreatedAt(), outcome.status(), outcome.error());
+        });
+    }
+
+    private record Outcome(String status, String error) {
+    }
+
+    private Outcome deliver(ScheduledReport report, ReportExportJob job) {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (!mailEnabled || sender == null) {
+            return new Outcome(MAIL_FAILED, "Mail is disabled; the file is kept as export job " + job.getId());
+        }
+        List<String> recipients = ScheduledReportDTO.splitRecipients(report.getRecipients());
+        boolean attach = job.getSizeBytes() != null && job.getSizeBytes() <= maxAttachmentBytes;
+        try {
+            MimeMessage message = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, attach, "UTF-8");
+            helper.setFrom(senderAddress);
+            helper.setTo(recipients.toArray(new String[0]));
+            helper.setSubject("[IT4U] " + report.getName() + " - " + job.getCreatedAt().format(RUN_STAMP));
+            String body = "Scheduled report \"" + report.getName() + "\": " + job.getRowsWritten() + " tickets.\n\n";
+            if (attach) {
+                body += "The report is attached.";
+                helper.addAttachment(job.getFileName(), reportExportJobService.getFile(job.getId()));
+            } else {
+                body += "The report is too large to attach. Download it (sign-in required) from:\n"
+                        + publicUrl + "/api/admin/reports/jobs/" + job.getId() + "/file";
+            }
+            helper.setText(body, false);
+            sender.send(message);
+            log.info("Scheduled report {} mailed to {} ({})", report.getId(), recipients,
+                    attach ? "attached" : "link");
+            return new Outcome(MAILED, null);
+        } catch (Exception e) {
+            log.error("Scheduled report {} could not be mailed", report.getId(), e);
+            return new Outcome(MAIL_FAILED, truncate(e.getMessage()));
+        }
+    }
+
+    private void apply(ScheduledReport report, ScheduledReportRequest request) {
+        if (!CronExpression.isValidExpression(request.getCron())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cron expression: " + request.getCron());
+        }
+        if (request.getDelivery() == ScheduledReport.Delivery.EMAIL
+                && (request.getRecipients() == null || request.getRecipients().isEmpty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "EMAIL delivery needs at least one recipient");
+        }
+        LocalDateTime next = request.isEnabled() ? nextRun(request.getCron(), LocalDateTime.now()) : null;
+        if (request.isEnabled() && next == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cron expression never fires: " + request.getCron());
+        }
+        report.setName(request.getName());
+        report.setFormat(request.getFormat());
+        report.setFilterJson(writeFilter(request.getFilter() != null ? request.getFilter() : new ReportFilter()));
+        report.setCron(request.getCron());
+        report.setDelivery(request.getDelivery());
+        report.setRecipients(request.getRecipients() != null && !request.getRecipients().isEmpty()
+                ? String.join(",", request.getRecipients())
+                : null);
+        report.setEnabled(request.isEnabled());
+        report.setNextRunAt(next);
+    }
+
+    private ScheduledReport find(Long id) {
+        return scheduledReportRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Scheduled report not found: " + id));
+    }
+
+    private ScheduledReportDTO toDto(ScheduledReport report) {
+        return ScheduledReportDTO.fromEntity(report, readFilter(report));
+    }
+
+    private ReportFilter readFilter(ScheduledReport report) {
+        if (report.getFilterJson() == null) {
+            return new ReportFilter();
+        }
+        try {
+            return objectMapper.readValue(report.getFilterJson(), ReportFilter.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable filter on scheduled report " + report.getId(), e);
+        }
+    }
+
+    private String writeFilter(ReportFilter filter) {
+        try {
+            return objectMapper.writeValueAsString(filter);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize report filter", e);
+        }
+    }
+
+    private static LocalDateTime nextRun(String cron, LocalDateTime after) {
+        return CronExpression.parse(cron).next(after);
+    }
+
+    private static String requestedBy(ScheduledReport report) {
+        return REQUESTED_BY_PREFIX + report.getId();
+    }
+
+    /** The schedule a job was submitted for, or null for a job a user requested. */
+    static Long scheduleId(String requestedBy) {
+        if (requestedBy == null || !requestedBy.startsWith(REQUESTED_BY_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(requestedBy.substring(REQUESTED_BY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -4,6 +4,7 @@ import com.gsg.it4u.entity.ServiceNode;
 import com.gsg.it4u.repository.ServiceNodeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,6 +18,7 @@ public class ServiceNodeService {
     @Autowired
     private ServiceNodeRepository serviceNodeRepository;
 
+    @Transactional(readOnly = true)
     public List<ServiceNode> getAllServiceNodes() {
         return serviceNodeRepository.findAll();
     }
@@ -1,21 +1,52 @@
 package com.gsg.it4u.service;
 
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class StorageService {
 
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    static final String BLOBS_DIR = "blobs";
+    static final String INCOMING_DIR = "incoming";
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    public static final String GZIP = "gzip";
+
+    private final AttachmentBlobRepository blobRepository;
+    private final AttachmentStore attachmentStore;
+
     @Value("${it4u.attachments.base-path:./storage/attachments}")
     private String basePath;
 
+    /** Types stored gzip-compressed; logs and exports shrink several times over. */
+    @Value("${it4u.attachments.compress-types:text/plain,text/csv,application/vnd.ms-excel}")
+    private Set<String> compressTypes = Set.of("text/plain", "text/csv", "application/vnd.ms-excel");
+
     public void init() {
         try {
             Files.createDirectories(Paths.get(basePath));
@@ -24,30 +55,180 @@ public class StorageService {
         }
     }
 
-    public String store(MultipartFile file, Long ticketId) throws IOException {
-        // Create ticket specific folder
-        Path ticketDir = Paths.get(basePath, String.valueOf(ticketId));
-        if (!Files.exists(ticketDir)) {
-            Files.createDirectories(ticketDir);
+    /**
+     * Where and what was written by {@link #store(InputStream, Long, long, String)};
+     * sizeBytes and sha256 are of the original content.
+     */
+    public record StoredFile(String storedFileName, long sizeBytes, String sha256, String contentEncoding) {
+    }
+
+    /**
+     * Writes {@code in} once while computing size and SHA-256 in the same
+     * pass, then files it under its hash: identical content uploaded to any
+     * number of tickets is kept once and its blob row is stamped as referenced.
+     * The first block must match {@code contentType}'s file signature (415
+     * otherwise), and the copy stops as soon as {@code maxBytes} is exceeded
+     * (413); a rejected or failed upload leaves no file behind. Types in
+     * {@code it4u.attachments.compress-types} are gzipped on the way to disk,
+     * unless the same content is already stored uncompressed. {@code in} is
+     * not closed.
+     *
+     * @return the stored name (the SHA-256) to keep on the attachment
+     */
+    public StoredFile store(InputStream in, Long ticketId, long maxBytes, String contentType) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        int head = in.readNBytes(buffer, 0, FileSignatures.HEAD_BYTES);
+        if (head == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
+        }
+        if (!FileSignatures.matches(contentType, buffer, head)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "File content does not match its type " + contentType);
+        }
+
+        // On the filesystem store this is the blobs' volume, so filing the upload is a rename
+        Path incoming = Files.createDirectories(Paths.get(basePath, INCOMING_DIR))
+                .resolve(UUID.randomUUID().toString());
+        MessageDigest sha256 = sha256();
+        long size = 0;
+        String encoding = isCompressible(contentType) ? GZIP : null;
+        try {
+            try (OutputStream file = Files.newOutputStream(incoming, StandardOpenOption.CREATE_NEW);
+                    OutputStream out = encoding != null ? new GZIPOutputStream(file, COPY_BUFFER_BYTES) : file) {
+                int read = head;
+                while (read > 0) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "File too large. Max " + maxBytes / (1024 * 1024) + " MB");
+                    }
+                    sha256.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    read = in.read(buffer);
+                }
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            // Reference before looking: the reclaimer deletes a blob's file only while holding its row
+            // lock, which this upsert waits on, so whatever exists from here on stays
+            blobRepository.addReference(hash, size, encoding);
+            // One file per content: reuse whichever encoding of it is already stored
+            String otherEncoding = encoding != null ? null : GZIP;
+            if (attachmentStore.exists(blobKey(hash, encoding))) {
+                log.debug("Upload for Ticket #{} deduplicated to blob {}", ticketId, hash);
+            } else if (attachmentStore.exists(blobKey(hash, otherEncoding))) {
+                log.debug("Upload for Ticket #{} deduplicated to blob {}", ticketId, hash);
+                encoding = otherEncoding;
+            } else {
+                // Two concurrent uploads of the same content both land the same bytes; either may win
+                attachmentStore.put(blobKey(hash, encoding), incoming);
+            }
+            return new StoredFile(hash, size, hash, encoding);
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /**
+     * Stores a small file derived from an attachment (a thumbnail) under
+     * {@code key}, through the same incoming directory as uploads.
+     */
+    public void storeDerived(String key, byte[] content) throws IOException {
+        Path incoming = Files.createDirectories(Paths.get(basePath, INCOMING_DIR))
+                .resolve(UUID.randomUUID().toString());
+        try {
+            Files.write(incoming, content, StandardOpenOption.CREATE_NEW);
+            attachmentStore.put(key, incoming);
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /** Store key of the blob with this SHA-256: two levels of fan-out keep directories small. */
+    public static String blobKey(String sha256) {
+        return blobKey(sha256, null);
+    }
+
+    /** Store key of the blob with this SHA-256 in the given encoding; gzipped blobs end in .gz. */
+    public static String blobKey(String sha256, String contentEncoding) {
+        return BLOBS_DIR + "/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256
+                + (GZIP.equals(contentEncoding) ? ".gz" : "");
+    }
+
+    /**
+     * Store key of an attachment's file: its blob for content-addressed
+     * uploads, the per-ticket directory for files stored before that layout.
+     */
+    public static String key(Long ticketId, String storedFileName) {
+        return key(ticketId, storedFileName, null);
+    }
+
+    /** As {@link #key(Long, String)}, for an attachment stored with {@code contentEncoding}. */
+    public static String key(Long ticketId, String storedFileName, String contentEncoding) {
+        if (isBlobName(storedFileName)) {
+            return blobKey(storedFileName, contentEncoding);
+        }
+        return ticketId + "/" + storedFileName;
+    }
+
+    /** The original content of a stored object, decompressing on the fly if needed. */
+    public InputStream open(String key, String contentEncoding) throws IOException {
+        InputStream in = attachmentStore.get(key, 0, -1);
+        if (!GZIP.equals(contentEncoding)) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, COPY_BUFFER_BYTES);
+        } catch (IOException e) {
+            in.close();
+            throw e;
         }
+    }
 
-        // Generate secure random name
-        String storedFileName = UUID.randomUUID().toString();
-        Path destinationFile = ticketDir.resolve(storedFileName);
+    boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int params = contentType.indexOf(';');
+        String mediaType = params >= 0 ? contentType.substring(0, params) : contentType;
+        return compressTypes.contains(mediaType.trim().toLowerCase(Locale.ROOT));
+    }
 
-        Files.copy(file.getInputStream(), destinationFile);
+    /**
+     * Hex SHA-256 of a stored object's original content, read in one pass.
+     *
+     * @throws java.nio.file.NoSuchFileException if it does not exist
+     */
+    public String hash(String key, String contentEncoding) throws IOException {
+        MessageDigest sha256 = sha256();
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        try (InputStream in = open(key, contentEncoding)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                sha256.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
 
-        return storedFileName;
+    static boolean isBlobName(String storedFileName) {
+        return storedFileName != null && SHA256_HEX.matcher(storedFileName).matches();
     }
 
-    public Path load(Long ticketId, String storedFileName) {
-        return Paths.get(basePath, String.valueOf(ticketId)).resolve(storedFileName);
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
+    /** Deletes a legacy per-ticket file; shared blobs are left to the reclaimer. */
     public void delete(Long ticketId, String storedFileName) {
+        if (isBlobName(storedFileName)) {
+            return;
+        }
         try {
-            Path file = load(ticketId, storedFileName);
-            Files.deleteIfExists(file);
+            attachmentStore.delete(key(ticketId, storedFileName));
         } catch (IOException e) {
             // Log but don't fail hard
             e.printStackTrace();
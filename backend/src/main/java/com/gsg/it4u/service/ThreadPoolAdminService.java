@@ -0,0 +1,347 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.config.RejectionCountingHandler;
+import com.gsg.it4u.config.ResizableLinkedBlockingQueue;
+import com.gsg.it4u.dto.ThreadPoolResizeRequest;
+import com.gsg.it4u.dto.ThreadPoolStatsDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the mail executor, Tomcat request pool and @Scheduled scheduler
+ * pool as Micrometer gauges (it4u.pool.*, tagged by pool) and resizes them at
+ * runtime.
+ */
+@Service
+@Slf4j
+public class ThreadPoolAdminService {
+
+    public static final String MAIL = "mail";
+    public static final String TOMCAT = "tomcat";
+    public static final String SCHEDULER = "scheduler";
+
+    /** Copied on write: registered at startup and on web server init, read by admin requests. */
+    private volatile Map<String, PoolHandle> pools = Map.of();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ThreadPoolAdminService(@Qualifier("mailExecutor") ThreadPoolTaskExecutor mailExecutor,
+            ObjectProvider<ThreadPoolTaskScheduler> taskScheduler,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        register(MAIL, new TaskExecutorHandle(mailExecutor));
+        ThreadPoolTaskScheduler scheduler = taskScheduler.getIfUnique();
+        if (scheduler != null) {
+            register(SCHEDULER, new SchedulerHandle(scheduler));
+        }
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (!(event.getWebServer() instanceof TomcatWebServer tomcatWebServer)) {
+            return;
+        }
+        Executor executor = tomcatWebServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+        if (executor instanceof org.apache.tomcat.util.threads.ThreadPoolExecutor tomcatPool) {
+            register(TOMCAT, new TomcatHandle(tomcatPool));
+        } else {
+            log.warn("Tomcat executor is {}, pool metrics not registered",
+                    executor != null ? executor.getClass().getName() : "null");
+        }
+    }
+
+    public List<ThreadPoolStatsDTO> getStats() {
+        List<ThreadPoolStatsDTO> stats = new ArrayList<>();
+        pools.forEach((name, handle) -> stats.add(snapshot(name, handle)));
+        return stats;
+    }
+
+    /**
+     * Resizes one pool. Resizes of the same pool are serialized: the new sizes
+     * are checked against, and applied in an order that depends on, the
+     * current ones, so two interleaved requests could otherwise leave core
+     * above max or fail half-applied.
+     */
+    public ThreadPoolStatsDTO resize(String pool, ThreadPoolResizeRequest request) {
+        PoolHandle handle = pools.get(pool);
+        if (handle == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown pool: " + pool);
+        }
+
+        synchronized (handle) {
+            int core = request.getCorePoolSize() != null ? request.getCorePoolSize() : handle.core();
+            int max = request.getMaxPoolSize() != null ? request.getMaxPoolSize() : handle.max();
+            if (core > max) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "corePoolSize (" + core + ") must not exceed maxPoolSize (" + max + ")");
+            }
+            if (request.getQueueCapacity() != null && !handle.supportsQueueResize()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Pool '" + pool + "' does not support queue capacity changes");
+            }
+
+            ThreadPoolStatsDTO before = snapshot(pool, handle);
+            // Grow max before core, shrink core before max, so core <= max holds throughout
+            if (max >= handle.max()) {
+                handle.setMax(max);
+                handle.setCore(core);
+            } else {
+                handle.setCore(core);
+                handle.setMax(max);
+            }
+            if (request.getQueueCapacity() != null) {
+                handle.setQueueCapacity(request.getQueueCapacity());
+            }
+
+            ThreadPoolStatsDTO after = snapshot(pool, handle);
+            log.info("Thread pool '{}' resized: core {} -> {}, max {} -> {}, queue {} -> {}", pool,
+                    before.getCorePoolSize(), after.getCorePoolSize(), before.getMaxPoolSize(),
+                    after.getMaxPoolSize(), before.getQueueCapacity(), after.getQueueCapacity());
+            return after;
+        }
+    }
+
+    private synchronized void register(String name, PoolHandle handle) {
+        Map<String, PoolHandle> registered = new LinkedHashMap<>(pools);
+        registered.put(name, handle);
+        pools = Collections.unmodifiableMap(registered);
+        if (meterRegistry == null) {
+            return;
+        }
+        Tags tags = Tags.of("pool", name);
+        gauge("it4u.pool.core", tags, handle, PoolHandle::core);
+        gauge("it4u.pool.max", tags, handle, PoolHandle::max);
+        gauge("it4u.pool.size", tags, handle, PoolHandle::size);
+        gauge("it4u.pool.active", tags, handle, PoolHandle::active);
+        gauge("it4u.pool.queue.size", tags, handle, PoolHandle::queueSize);
+        gauge("it4u.pool.completed", tags, handle, PoolHandle::completed);
+        if (handle.rejected() != null) {
+            gauge("it4u.pool.rejected", tags, handle, h -> h.rejected());
+        }
+    }
+
+    private void gauge(String metric, Tags tags, PoolHandle handle, ToDoubleFunction<PoolHandle> fn) {
+        Gauge.builder(metric, handle, fn).tags(tags).register(meterRegistry);
+    }
+
+    private ThreadPoolStatsDTO snapshot(String name, PoolHandle handle) {
+        return ThreadPoolStatsDTO.builder()
+                .pool(name)
+                .corePoolSize(handle.core())
+                .maxPoolSize(handle.max())
+                .poolSize(handle.size())
+                .activeCount(handle.active())
+                .queueSize(handle.queueSize())
+                .queueCapacity(handle.queueCapacity())
+                .rejectedCount(handle.rejected())
+                .completedCount(handle.completed())
+                .build();
+    }
+
+    private static Long rejectedOf(java.util.concurrent.ThreadPoolExecutor executor) {
+        if (executor != null && executor.getRejectedExecutionHandler() instanceof RejectionCountingHandler handler) {
+            return handler.getRejectedCount();
+        }
+        return null;
+    }
+
+    private interface PoolHandle {
+        int core();
+
+        int max();
+
+        int size();
+
+        int active();
+
+        int queueSize();
+
+        Integer queueCapacity();
+
+        Long rejected();
+
+        long completed();
+
+        void setCore(int core);
+
+        void setMax(int max);
+
+        default boolean supportsQueueResize() {
+            return false;
+        }
+
+        default void setQueueCapacity(int capacity) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private record TaskExecutorHandle(ThreadPoolTaskExecutor executor) implements PoolHandle {
+        public int core() {
+            return executor.getCorePoolSize();
+        }
+
+        public int max() {
+            return executor.getMaxPoolSize();
+        }
+
+        public int size() {
+            return executor.getPoolSize();
+        }
+
+        public int active() {
+            return executor.getActiveCount();
+        }
+
+        public int queueSize() {
+            return executor.getQueueSize();
+        }
+
+        public Integer queueCapacity() {
+            BlockingQueue<Runnable> queue = executor.getThreadPoolExecutor().getQueue();
+            if (queue instanceof ResizableLinkedBlockingQueue<Runnable> resizable) {
+                return resizable.getCapacity();
+            }
+            return executor.getQueueCapacity();
+        }
+
+        public Long rejected() {
+            return rejectedOf(executor.getThreadPoolExecutor());
+        }
+
+        public long completed() {
+            return executor.getThreadPoolExecutor().getCompletedTaskCount();
+        }
+
+        public void setCore(int core) {
+            executor.setCorePoolSize(core);
+        }
+
+        public void setMax(int max) {
+            executor.setMaxPoolSize(max);
+        }
+
+        public boolean supportsQueueResize() {
+            return executor.getThreadPoolExecutor().getQueue() instanceof ResizableLinkedBlockingQueue;
+        }
+
+        public void setQueueCapacity(int capacity) {
+            ((ResizableLinkedBlockingQueue<Runnable>) executor.getThreadPoolExecutor().getQueue())
+                    .setCapacity(capacity);
+        }
+    }
+
+    /**
+     * A ScheduledThreadPoolExecutor is fixed-size with an unbounded delay queue,
+     * so core and max are the same knob.
+     */
+    private record SchedulerHandle(ThreadPoolTaskScheduler scheduler) implements PoolHandle {
+        private ScheduledThreadPoolExecutor pool() {
+            return scheduler.getScheduledThreadPoolExecutor();
+        }
+
+        public int core() {
+            return pool().getCorePoolSize();
+        }
+
+        public int max() {
+            return pool().getCorePoolSize();
+        }
+
+        public int size() {
+            return pool().getPoolSize();
+        }
+
+        public int active() {
+            return pool().getActiveCount();
+        }
+
+        public int queueSize() {
+            return pool().getQueue().size();
+        }
+
+        public Integer queueCapacity() {
+            return null;
+        }
+
+        public Long rejected() {
+            return rejectedOf(pool());
+        }
+
+        public long completed() {
+            return pool().getCompletedTaskCount();
+        }
+
+        public void setCore(int core) {
+            scheduler.setPoolSize(core);
+        }
+
+        public void setMax(int max) {
+            scheduler.setPoolSize(max);
+        }
+    }
+
+    private record TomcatHandle(org.apache.tomcat.util.threads.ThreadPoolExecutor pool) implements PoolHandle {
+        public int core() {
+            return pool.getCorePoolSize();
+        }
+
+        public int max() {
+            return pool.getMaximumPoolSize();
+        }
+
+        public int size() {
+            return pool.getPoolSize();
+        }
+
+        public int active() {
+            return pool.getActiveCount();
+        }
+
+        public int queueSize() {
+            return pool.getQueue().size();
+        }
+
+        public Integer queueCapacity() {
+            return null;
+        }
+
+        public Long rejected() {
+            return null;
+        }
+
+        public long completed() {
+            return pool.getCompletedTaskCount();
+        }
+
+        public void setCore(int core) {
+            pool.setCorePoolSize(core);
+        }
+
+        public void setMax(int max) {
+            pool.setMaximumPoolSize(max);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.service.storage.AttachmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Bounded-size JPEG thumbnails of image attachments, so ticket pages show
+ * previews without downloading the originals. Generated in the background
+ * right after upload and on demand for anything uploaded before; stored in
+ * the attachment store next to the original under {@code thumbs/}, keyed by
+ * the original's store key and the size, so a thumbnail never changes once
+ * written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/png", "image/jpeg", "image/jpg");
+
+    private final AttachmentStore attachmentStore;
+    private final StorageService storageService;
+
+    @Value("${it4u.attachments.thumbnail.max-edge:320}")
+    private int maxEdge = 320;
+
+    @Value("${it4u.attachments.thumbnail.quality:0.8}")
+    private float quality = 0.8f;
+
+    /** Larger images are not decoded at all (decompression bombs). */
+    @Value("${it4u.attachments.thumbnail.max-source-pixels:50000000}")
+    private long maxSourcePixels = 50_000_000;
+
+    public static boolean supports(String contentType) {
+        return contentType != null && SUPPORTED_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    public String thumbnailKey(Long ticketId, String storedFileName) {
+        return "thumbs/" + StorageService.key(ticketId, storedFileName) + "-" + maxEdge + ".jpg";
+    }
+
+    /** Generates the thumbnail off the request thread; failures are only logged. */
+    @Async("thumbnailExecutor")
+    public void generateAsync(Long ticketId, String storedFileName, String contentType) {
+        try {
+            getOrCreate(ticketId, storedFileName, contentType);
+        } catch (Exception e) {
+            log.warn("Thumbnail for {} on Ticket #{} failed: {}", storedFileName, ticketId, e.getMessage());
+        }
+    }
+
+    /**
+     * Store key of the attachment's thumbnail, creating it first if needed;
+     * null when the type has no thumbnail or the image cannot be decoded.
+     */
+    public String getOrCreate(Long ticketId, String storedFileName, String contentType) throws IOException {
+        if (!supports(contentType)) {
+            return null;
+        }
+        String key = thumbnailKey(ticketId, storedFileName);
+        if (attachmentStore.exists(key)) {
+            return key;
+        }
+        byte[] thumbnail;
+        try (InputStream in = attachmentStore.get(StorageService.key(ticketId, storedFileName), 0, -1)) {
+            thumbnail = render(in);
+        }
+        if (thumbnail == null) {
+            return null;
+        }
+        storageService.storeDerived(key, thumbnail);
+        return key;
+    }
+
+    /** JPEG bytes of the image scaled to fit {@code maxEdge}, or null if it cannot be read. */
+    byte[] render(InputStream source) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.debug("Skipping thumbnail of {}x{} image", width, height);
+                    return null;
+                }
+                // Subsampling while decoding keeps a large photo from ever being held at full size
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = thumbnail.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha: transparent PNG areas become white, as they look on the page
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(thumbnail, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,324 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gsg.it4u.dto.ChangeFeedRecord;
+import com.gsg.it4u.dto.EmailAuditDTO;
+import com.gsg.it4u.dto.FeedCommentDTO;
+import com.gsg.it4u.dto.TicketReportDTO;
+import com.gsg.it4u.entity.EmailAudit;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.CommentRepository;
+import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Incremental change feed for BI tools: tickets changed since a watermark,
+ * optionally with new comments and email audit rows, as newline-delimited
+ * JSON. Each section is read in (timestamp, id) keyset order - tickets by
+ * updatedAt, comments and audits (insert-only) by createdAt - so a page costs
+ * an index range scan however far the client has got.
+ * <p>
+ * The cursor holds one position per section and is opaque to clients. Rows
+ * newer than now minus {@code it4u.reports.feed.settle-seconds} are left for
+ * the next call: a timestamp is taken before its transaction commits, so a
+ * row stamped just before the last row handed out could otherwise become
+ * visible only after the cursor had passed it. Hard-deleted tickets simply
+ * stop appearing; there are no tombstones.
+ */
+@Service
+@Slf4j
+public class TicketChangeFeedService {
+
+    /** Optional sections; tickets are always included. */
+    public enum Include {
+        COMMENTS, AUDIT
+    }
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final Sort TICKET_ORDER = Sort.by(Sort.Order.asc("updatedAt"), Sort.Order.asc("id"));
+    private static final int FETCH_SIZE = 500;
+    private static final String CURSOR_VERSION = "1";
+
+    private final TicketRepository ticketRepository;
+    private final CommentRepository commentRepository;
+    private final EmailAuditRepository emailAuditRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${it4u.reports.feed.default-limit:1000}")
+    private int defaultLimit = 1000;
+
+    @Value("${it4u.reports.feed.max-limit:10000}")
+    private int maxLimit = 10000;
+
+    @Value("${it4u.reports.feed.settle-seconds:30}")
+    private long settleSeconds = 30;
+
+    @Value("${it4u.reports.query-timeout.export-seconds:300}")
+    private int queryTimeoutSeconds = 300;
+
+    @Autowired
+    public TicketChangeFeedService(TicketRepository ticketRepository, CommentRepository commentRepository,
+            EmailAuditRepository emailAuditRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.commentRepository = commentRepository;
+        this.emailAuditRepository = emailAuditRepository;
+        this.objectMapper = objectMapper;
+        this.transactionManager = transactionManager;
+    }
+
+    /** Keyset position within one section: the last (timestamp, id) handed out. */
+    public record Position(LocalDateTime at, long id) {
+        static final Position START = new Position(ORIGIN, 0);
+    }
+
+    /** Where the feed stands in each section. */
+    public record Cursor(Position tickets, Position comments, Position audits) {
+
+        public static final Cursor START = new Cursor(Position.START, Position.START, Position.START);
+
+        /** Everything changed at or after {@code since}. */
+        public static Cursor since(LocalDateTime since) {
+            Position position = new Position(since, 0);
+            return new Cursor(position, position, position);
+        }
+
+        public String encode() {
+            String raw = String.join("|", CURSOR_VERSION,
+                    tickets.at().toString(), Long.toString(tickets.id()),
+                    comments.at().toString(), Long.toString(comments.id()),
+                    audits.at().toString(), Long.toString(audits.id()));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 7 || !CURSOR_VERSION.equals(parts[0])) {
+                    throw new IllegalArgumentException("unexpected layout");
+                }
+                return new Cursor(
+                        new Position(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2])),
+                        new Position(LocalDateTime.parse(parts[3]), Long.parseLong(parts[4])),
+                        new Position(LocalDateTime.parse(parts[5]), Long.parseLong(parts[6])));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid feed cursor");
+            }
+        }
+
+        Cursor withTickets(Position position) {
+            return new Cursor(position, comments, audits);
+        }
+
+        Cursor withComments(Position position) {
+            return new Cursor(tickets, position, audits);
+        }
+
+        Cursor withAudits(Position position) {
+            return new Cursor(tickets, comments, position);
+        }
+    }
+
+    /**
+     * {@code since} is either a cursor from an earlier response or an ISO
+     * date-time (inclusive); absent means from the beginning.
+     */
+    public Cursor parseSince(String since) {
+        if (since == null || since.isBlank()) {
+            return Cursor.START;
+        }
+        try {
+            return Cursor.since(LocalDateTime.parse(since.trim()));
+        } catch (DateTimeParseException e) {
+            return Cursor.decode(since.trim());
+        }
+    }
+
+    public Set<Include> parseIncludes(Collection<String> include) {
+        Set<Include> sections = EnumSet.noneOf(Include.class);
+        if (include == null) {
+            return sections;
+        }
+        for (String name : include) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            try {
+                sections.add(Include.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown feed section '" + name + "'; expected comments or audit");
+            }
+        }
+        return sections;
+    }
+
+    /** Clamps a requested page size to 1..max-limit, defaulting when absent. */
+    public int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+
+    /**
+     * Writes up to {@code limit} records per section after {@code since},
+     * then an {@code end} record with the cursor to resume from. All sections
+     * are read in one read-only transaction, bounded by the export query
+     * timeout. Flushed, not closed.
+     */
+    public void writeFeed(Cursor since, Set<Include> include, int limit, OutputStream out) throws IOException {
+        LocalDateTime until = LocalDateTime.now().minusSeconds(settleSeconds);
+        ObjectWriter writer = objectMapper.writerFor(ChangeFeedRecord.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        OutputStream buffered = new BufferedOutputStream(out, 16 * 1024);
+        FeedWriter feed = new FeedWriter(writer, buffered, since);
+        QueryCancellation cancellation = QueryCancellation.current();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout(queryTimeoutSeconds);
+
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (QueryCancellation.Registration guard = QueryCancellation.guard(cancellation, entityManager)) {
+                    feed.hasMore |= writeTickets(feed, since.tickets(), until, limit);
+                    if (include.contains(Include.COMMENTS)) {
+                        feed.hasMore |= writeComments(feed, since.comments(), until, limit);
+                    }
+                    if (include.contains(Include.AUDIT)) {
+                        feed.hasMore |= writeAudits(feed, since.audits(), until, limit);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.writeValue(buffered, ChangeFeedRecord.builder()
+                .type(ChangeFeedRecord.END)
+                .cursor(feed.cursor.encode())
+                .hasMore(feed.hasMore)
+                .build());
+        buffered.write('\n');
+        buffered.flush();
+        log.info("Change feed written: {} records, hasMore={}", feed.records, feed.hasMore);
+    }
+
+    private boolean writeTickets(FeedWriter feed, Position after, LocalDateTime until, int limit)
+            throws IOException {
+        int rows = 0;
+        try (Stream<Ticket> tickets = ticketRepository.streamAll(changedAfter(after, until), TICKET_ORDER,
+                Math.min(FETCH_SIZE, limit), limit)) {
+            Iterator<Ticket> it = tickets.iterator();
+            while (it.hasNext()) {
+                Ticket ticket = it.next();
+                feed.cursor = feed.cursor.withTickets(new Position(ticket.getUpdatedAt(), ticket.getId()));
+                feed.write(ChangeFeedRecord.builder()
+                        .type(ChangeFeedRecord.TICKET)
+                        .id(ticket.getId())
+                        .ticketId(ticket.getId())
+                        .changedAt(ticket.getUpdatedAt())
+                        .data(TicketReportDTO.fromEntity(ticket)));
+                rows++;
+            }
+        }
+        return rows >= limit;
+    }
+
+    private boolean writeComments(FeedWriter feed, Position after, LocalDateTime until, int limit)
+            throws IOException {
+        List<FeedCommentDTO> comments = commentRepository.findFeedPage(after.at(), after.id(), until,
+                PageRequest.of(0, limit));
+        for (FeedCommentDTO comment : comments) {
+            feed.cursor = feed.cursor.withComments(new Position(comment.createdAt(), comment.id()));
+            feed.write(ChangeFeedRecord.builder()
+                    .type(ChangeFeedRecord.COMMENT)
+                    .id(comment.id())
+                    .ticketId(comment.ticketId())
+                    .changedAt(comment.createdAt())
+                    .data(comment));
+        }
+        return comments.size() >= limit;
+    }
+
+    private boolean writeAudits(FeedWriter feed, Position after, LocalDateTime until, int limit)
+            throws IOException {
+        List<EmailAudit> audits = emailAuditRepository.findFeedPage(after.at(), after.id(), until,
+                PageRequest.of(0, limit));
+        for (EmailAudit audit : audits) {
+            feed.cursor = feed.cursor.withAudits(new Position(audit.getCreatedAt(), audit.getId()));
+            feed.write(ChangeFeedRecord.builder()
+                    .type(ChangeFeedRecord.EMAIL_AUDIT)
+                    .id(audit.getId())
+                    .ticketId(audit.getTicketId())
+                    .changedAt(audit.getCreatedAt())
+                    .data(EmailAuditDTO.fromEntity(audit)));
+        }
+        return audits.size() >= limit;
+    }
+
+    private static Specification<Ticket> changedAfter(Position after, LocalDateTime until) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("updatedAt"), until),
+                cb.or(cb.greaterThan(root.get("updatedAt"), after.at()),
+                        cb.and(cb.equal(root.get("updatedAt"), after.at()),
+                                cb.greaterThan(root.get("id"), after.id()))));
+    }
+
+    /** Output plus the cursor as of the last record written. */
+    private static final class FeedWriter {
+        private final ObjectWriter writer;
+        private final OutputStream out;
+        private Cursor cursor;
+        private boolean hasMore;
+        private long records;
+
+        private FeedWriter(ObjectWriter writer, OutputStream out, Cursor cursor) {
+            this.writer = writer;
+            this.out = out;
+            this.cursor = cursor;
+        }
+
+        private void write(ChangeFeedRecord.ChangeFeedRecordBuilder record) throws IOException {
+            writer.writeValue(out, record.cursor(cursor.encode()).build());
+            out.write('\n');
+            records++;
+        }
+    }
+}
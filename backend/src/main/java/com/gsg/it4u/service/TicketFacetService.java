@@ -0,0 +1,97 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.dto.FacetCountDTO;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.TicketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Facet counts (status, category, priority, assignee, approval status) for a
+ * ticket filter, for the filter dropdown badges.
+ * <p>
+ * Equivalent to {@code GROUP BY GROUPING SETS ((status), (category), ...)} over
+ * the filter, but JPA Criteria (and Hibernate HQL) can't express grouping
+ * sets and a native query would need a second copy of the Specification.
+ * So the enum facets come from one Criteria aggregate grouped by all of them
+ * together, with the marginals summed here; the combination count is bounded
+ * by their small cardinalities. Assignees are unbounded, so they get their own
+ * aggregate that returns only the top {@code it4u.reports.facets.max-assignees}
+ * from the database, and the remainder is one "Others" entry.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketFacetService {
+
+    public static final String STATUS = "status";
+    public static final String CATEGORY = "category";
+    public static final String PRIORITY = "priority";
+    public static final String MANAGER_APPROVAL_STATUS = "managerApprovalStatus";
+    public static final String ASSIGNEE = "assignee";
+
+    private final TicketRepository ticketRepository;
+
+    @Value("${it4u.reports.facets.max-assignees:20}")
+    private int maxAssignees = 20;
+
+    @Transactional(readOnly = true)
+    public Map<String, List<FacetCountDTO>> facets(Specification<Ticket> spec) {
+        return fold(ticketRepository.facetCombinations(spec),
+                ticketRepository.topAssignees(spec, Math.max(1, maxAssignees)));
+    }
+
+    static Map<String, List<FacetCountDTO>> fold(List<Object[]> rows, List<Object[]> topAssignees) {
+        Map<String, Map<String, FacetCountDTO>> facets = new LinkedHashMap<>();
+        for (String facet : List.of(STATUS, CATEGORY, PRIORITY, MANAGER_APPROVAL_STATUS)) {
+            facets.put(facet, new HashMap<>());
+        }
+        long total = 0;
+        for (Object[] row : rows) {
+            long count = ((Number) row[4]).longValue();
+            total += count;
+            add(facets.get(STATUS), name(row[0]), null, count);
+            add(facets.get(CATEGORY), name(row[1]), null, count);
+            add(facets.get(PRIORITY), name(row[2]), null, count);
+            add(facets.get(MANAGER_APPROVAL_STATUS), name(row[3]), null, count);
+        }
+
+        Map<String, List<FacetCountDTO>> result = new LinkedHashMap<>();
+        Comparator<FacetCountDTO> order = Comparator.comparingLong(FacetCountDTO::getCount).reversed()
+                .thenComparing(FacetCountDTO::getValue);
+        facets.forEach((facet, values) -> {
+            List<FacetCountDTO> sorted = new ArrayList<>(values.values());
+            sorted.sort(order);
+            result.put(facet, sorted);
+        });
+
+        List<FacetCountDTO> assignees = new ArrayList<>();
+        long listed = 0;
+        for (Object[] row : topAssignees) {
+            long count = ((Number) row[2]).longValue();
+            listed += count;
+            assignees.add(new FacetCountDTO(name(row[0]), row[0] != null ? (String) row[1] : "Unassigned", count));
+        }
+        if (total > listed) {
+            assignees.add(new FacetCountDTO(null, "Others", total - listed));
+        }
+        result.put(ASSIGNEE, assignees);
+        return result;
+    }
+
+    private static void add(Map<String, FacetCountDTO> facet, String value, String label, long count) {
+        FacetCountDTO entry = facet.computeIfAbsent(value, v -> new FacetCountDTO(v, label, 0));
+        entry.setCount(entry.getCount() + count);
+    }
+
+    private static String name(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return value instanceof Enum<?> e ? e.name() : String.valueOf(value);
+    }
+}
@@ -33,6 +33,7 @@ public class TicketService {
     private final TicketAccessService ticketAccessService;
     private final ApplicationEventPublisher eventPublisher;
     private final com.gsg.it4u.repository.EmailAuditRepository emailAuditRepository;
+    private final com.gsg.it4u.service.mail.EmailMessageIdGenerator messageIdGenerator;
 
     @Transactional
     public Ticket createTicket(Ticket ticket) {
@@ -88,6 +89,9 @@ public class TicketService {
         String uniqueId = String.format("%04d", savedTicketWithStatus.getId());
         savedTicketWithStatus.setTicketNumber("GSG-" + datePart + uniqueId);
 
+        // Allocate the mail thread root here so async mail workers never write tickets
+        savedTicketWithStatus.setEmailThreadMessageId(messageIdGenerator.generate(savedTicketWithStatus.getId()));
+
         savedTicketWithStatus = ticketRepository.save(savedTicketWithStatus);
 
         // Publish Event
@@ -340,6 +344,19 @@ public class TicketService {
         log.info("Ticket {} hard-deleted by admin {}", ticketId, admin.getUsername());
     }
 
+    /**
+     * Assigns thread root ids to tickets created before roots were allocated at
+     * creation time. Uses a conditional single-column UPDATE per ticket.
+     */
+    @Transactional
+    public int backfillEmailThreadIds() {
+        int assigned = 0;
+        for (Long id : ticketRepository.findIdsWithoutEmailThreadMessageId()) {
+            assigned += ticketRepository.assignEmailThreadMessageIdIfAbsent(id, messageIdGenerator.generate(id));
+        }
+        return assigned;
+    }
+
     @Transactional(readOnly = true)
     public com.gsg.it4u.dto.TicketDTO getTicketDetails(Long id) {
         Ticket t = ticketRepository.findTicketWithDetails(id)
@@ -0,0 +1,209 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.dto.TicketStatsSummaryDTO;
+import com.gsg.it4u.entity.JobWatermark;
+import com.gsg.it4u.entity.TicketStatsDaily;
+import com.gsg.it4u.entity.TicketStatsDaily.Dimension;
+import com.gsg.it4u.repository.JobWatermarkRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.TicketStatsDailyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Keeps ticket_stats_daily in step with the tickets table. Every ticket touched
+ * since the updated_at watermark marks its created day and closed day dirty;
+ * dirty days are recomputed from tickets in contiguous ranges. Recomputing is
+ * idempotent, so the watermark is read back with a small overlap to catch
+ * transactions that committed late. A nightly full rebuild covers what
+ * updated_at cannot see (hard deletes, a reopened ticket's old closed day).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketStatsRollupService {
+
+    static final String JOB_NAME = "ticket-stats-daily";
+    private static final int REBUILD_CHUNK_DAYS = 90;
+
+    private final TicketRepository ticketRepository;
+    private final TicketStatsDailyRepository statsRepository;
+    private final JobWatermarkRepository watermarkRepository;
+
+    @Value("${it4u.reports.stats.lookback-seconds:120}")
+    private long lookbackSeconds = 120;
+
+    @Scheduled(fixedDelayString = "${it4u.reports.stats.interval-ms:60000}", initialDelay = 30000)
+    public void scheduledRefresh() {
+        try {
+            int days = refresh();
+            if (days > 0) {
+                log.debug("Ticket stats rollup recomputed {} day(s)", days);
+            }
+        } catch (Exception e) {
+            log.error("Ticket stats rollup failed", e);
+        }
+    }
+
+    @Scheduled(cron = "${it4u.reports.stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Ticket stats rebuild failed", e);
+        }
+    }
+
+    /**
+     * Recomputes the days touched since the watermark. Falls back to a full
+     * rebuild on the first run.
+     *
+     * @return number of days recomputed
+     */
+    @Transactional
+    public int refresh() {
+        JobWatermark watermark = lockWatermark();
+        if (watermark.getLastTimestamp() == null) {
+            return rebuild(watermark);
+        }
+
+        LocalDateTime high = ticketRepository.findMaxUpdatedAt();
+        if (high == null) {
+            return 0;
+        }
+        LocalDateTime since = watermark.getLastTimestamp().minusSeconds(lookbackSeconds);
+        SortedSet<LocalDate> days = new TreeSet<>();
+        for (Object day : ticketRepository.findStatDaysTouchedSince(since)) {
+            days.add(toLocalDate(day));
+        }
+
+        for (LocalDate[] range : contiguousRanges(days)) {
+            recompute(range[0], range[1]);
+        }
+        if (high.isAfter(watermark.getLastTimestamp())) {
+            watermark.setLastTimestamp(high);
+        }
+        watermarkRepository.save(watermark);
+        return days.size();
+    }
+
+    /**
+     * Drops and recomputes every day from the first ticket to today.
+     *
+     * @return number of days recomputed
+     */
+    @Transactional
+    public int rebuild() {
+        return rebuild(lockWatermark());
+    }
+
+    private int rebuild(JobWatermark watermark) {
+        // Read before aggregating: anything updated later is picked up by the next refresh
+        LocalDateTime high = ticketRepository.findMaxUpdatedAt();
+        Object first = ticketRepository.findFirstCreatedDay();
+        statsRepository.deleteAllInBatch();
+
+        int days = 0;
+        if (first != null) {
+            LocalDate end = LocalDate.now().plusDays(1);
+            for (LocalDate from = toLocalDate(first); from.isBefore(end); from = from.plusDays(REBUILD_CHUNK_DAYS)) {
+                LocalDate to = from.plusDays(REBUILD_CHUNK_DAYS).isBefore(end) ? from.plusDays(REBUILD_CHUNK_DAYS) : end;
+                recompute(from, to);
+                days += (int) (to.toEpochDay() - from.toEpochDay());
+            }
+        }
+        watermark.setLastTimestamp(high != null ? high : LocalDateTime.now());
+        watermarkRepository.save(watermark);
+        log.info("Ticket stats rebuilt: {} day(s)", days);
+        return days;
+    }
+
+    /** Replaces the rows for days in [from, to) with fresh counts. */
+    private void recompute(LocalDate from, LocalDate to) {
+        statsRepository.deleteByStatDateRange(from, to);
+        List<TicketStatsDaily> rows = new ArrayList<>();
+        for (Object[] r : ticketRepository.aggregateDailyStats(from.atStartOfDay(), to.atStartOfDay())) {
+            rows.add(TicketStatsDaily.builder()
+                    .statDate(toLocalDate(r[0]))
+                    .dimension(Dimension.valueOf((String) r[1]))
+                    .dimValue((String) r[2])
+                    .ticketCount(((Number) r[3]).longValue())
+                    .build());
+        }
+        statsRepository.saveAll(rows);
+    }
+
+    @Transactional(readOnly = true)
+    public TicketStatsSummaryDTO summarize(LocalDate from, LocalDate to) {
+        LocalDate toExclusive = to.plusDays(1);
+        Map<Dimension, Map<String, Long>> byDimension = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            byDimension.put(dimension, new TreeMap<>());
+        }
+        for (Object[] r : statsRepository.sumByDimension(from, toExclusive)) {
+            byDimension.get((Dimension) r[0]).put((String) r[1], ((Number) r[2]).longValue());
+        }
+
+        Map<LocalDate, TicketStatsSummaryDTO.DailyFlow> daily = new TreeMap<>();
+        for (TicketStatsDaily row : statsRepository
+                .findByStatDateGreaterThanEqualAndStatDateLessThanAndDimensionInOrderByStatDateAsc(from, toExclusive,
+                        EnumSet.of(Dimension.OPENED, Dimension.CLOSED))) {
+            TicketStatsSummaryDTO.DailyFlow flow = daily.computeIfAbsent(row.getStatDate(),
+                    d -> new TicketStatsSummaryDTO.DailyFlow(d, 0, 0));
+            if (row.getDimension() == Dimension.OPENED) {
+                flow.setOpened(row.getTicketCount());
+            } else {
+                flow.setClosed(row.getTicketCount());
+            }
+        }
+
+        return TicketStatsSummaryDTO.builder()
+                .from(from)
+                .to(to)
+                .opened(byDimension.get(Dimension.OPENED).getOrDefault("", 0L))
+                .closed(byDimension.get(Dimension.CLOSED).getOrDefault("", 0L))
+                .byStatus(byDimension.get(Dimension.STATUS))
+                .byCategory(byDimension.get(Dimension.CATEGORY))
+                .byPriority(byDimension.get(Dimension.PRIORITY))
+                .byManagerApproval(byDimension.get(Dimension.MANAGER_APPROVAL))
+                .daily(new ArrayList<>(daily.values()))
+                .refreshedAt(watermarkRepository.findById(JOB_NAME).map(JobWatermark::getUpdatedAt).orElse(null))
+                .build();
+    }
+
+    private JobWatermark lockWatermark() {
+        return watermarkRepository.findForUpdate(JOB_NAME).orElseGet(() -> new JobWatermark(JOB_NAME));
+    }
+
+    /** Groups sorted days into [start, endExclusive) runs of consecutive days. */
+    static List<LocalDate[]> contiguousRanges(SortedSet<LocalDate> days) {
+        List<LocalDate[]> ranges = new ArrayList<>();
+        LocalDate start = null;
+        LocalDate prev = null;
+        for (LocalDate day : days) {
+            if (start == null) {
+                start = day;
+            } else if (!day.equals(prev.plusDays(1))) {
+                ranges.add(new LocalDate[] { start, prev.plusDays(1) });
+                start = day;
+            }
+            prev = day;
+        }
+        if (start != null) {
+            ranges.add(new LocalDate[] { start, prev.plusDays(1) });
+        }
+        return ranges;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
@@ -83,6 +83,7 @@ public class UserService {
         return (header + example).getBytes(StandardCharsets.UTF_8);
     }
 
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -0,0 +1,200 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.constant.EmailEventType;
+import com.gsg.it4u.dto.EmailDeliverySummaryDTO;
+import com.gsg.it4u.entity.EmailAudit;
+import com.gsg.it4u.entity.EmailAuditHourly;
+import com.gsg.it4u.entity.JobWatermark;
+import com.gsg.it4u.repository.EmailAuditHourlyRepository;
+import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.repository.JobWatermarkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Maintains the hourly email delivery rollup (email_audit_hourly) incrementally
+ * from the last processed email_audit id, so delivery health can be read
+ * without scanning the raw audit table.
+ * <p>
+ * Ids are allocated before their transaction commits, so a lower id can become
+ * visible after a higher one. The rollup therefore stops at the first row
+ * created less than {@code it4u.mail.rollup.settle-seconds} ago and leaves it
+ * and everything after it for a later run.
+ */
+@Service
+@Slf4j
+public class EmailAuditRollupService {
+
+    static final String JOB_NAME = "email-audit-hourly";
+    static final int MAX_REASON_LENGTH = 255;
+
+    private final EmailAuditRepository emailAuditRepository;
+    private final EmailAuditHourlyRepository hourlyRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final TransactionTemplate transaction;
+
+    @Value("${it4u.mail.rollup.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${it4u.mail.rollup.settle-seconds:60}")
+    private long settleSeconds = 60;
+
+    public EmailAuditRollupService(EmailAuditRepository emailAuditRepository,
+            EmailAuditHourlyRepository hourlyRepository, JobWatermarkRepository watermarkRepository,
+            PlatformTransactionManager transactionManager) {
+        this.emailAuditRepository = emailAuditRepository;
+        this.hourlyRepository = hourlyRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${it4u.mail.rollup.interval-ms:300000}", initialDelay = 60000)
+    public void scheduledRollup() {
+        try {
+            int processed = rollup();
+            if (processed > 0) {
+                log.info("Email audit rollup processed {} new audit rows", processed);
+            }
+        } catch (Exception e) {
+            log.error("Email audit rollup failed", e);
+        }
+    }
+
+    /**
+     * Folds all settled audit rows after the watermark into the hourly table.
+     * Each batch commits on its own together with its watermark advance, which
+     * is read under a row lock, so neither a crash nor a concurrent run (another
+     * node, a manual refresh) counts a row twice.
+     *
+     * @return number of audit rows processed
+     */
+    public int rollup() {
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(settleSeconds);
+        int total = 0;
+        int processed;
+        do {
+            processed = transaction.execute(status -> rollupBatch(settled));
+            total += processed;
+        } while (processed == batchSize);
+        return total;
+    }
+
+    /** @return number of audit rows folded; less than the batch size once caught up */
+    private int rollupBatch(LocalDateTime settled) {
+        JobWatermark watermark = watermarkRepository.findForUpdate(JOB_NAME)
+                .orElseGet(() -> new JobWatermark(JOB_NAME));
+        List<EmailAudit> page = emailAuditRepository.findByIdGreaterThanOrderByIdAsc(watermark.getLastId(),
+                PageRequest.of(0, batchSize));
+        List<EmailAudit> batch = new ArrayList<>(page.size());
+        for (EmailAudit audit : page) {
+            if (audit.getCreatedAt() != null && !audit.getCreatedAt().isBefore(settled)) {
+                break;
+            }
+            batch.add(audit);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<RollupKey, Long> increments = new HashMap<>();
+        for (EmailAudit audit : batch) {
+            LocalDateTime bucket = bucketOf(audit);
+            String status = audit.getStatus() != null ? audit.getStatus().toUpperCase() : "UNKNOWN";
+            String reason = "FAILED".equals(status) ? normalizeReason(audit.getErrorMessage()) : "";
+            for (String domain : recipientDomains(audit.getToEmail())) {
+                increments.merge(new RollupKey(bucket, audit.getEventType(), status, domain, reason), 1L,
+                        Long::sum);
+            }
+        }
+
+        List<EmailAuditHourly> rows = new ArrayList<>(increments.size());
+        increments.forEach((key, count) -> rows.add(EmailAuditHourly.builder()
+                .bucketStart(key.bucketStart())
+                .eventType(key.eventType())
+                .status(key.status())
+                .recipientDomain(key.domain())
+                .failureReason(key.reason())
+                .messageCount(count)
+                .build()));
+        hourlyRepository.addCounts(rows);
+
+        watermark.setLastId(batch.get(batch.size() - 1).getId());
+        watermarkRepository.save(watermark);
+        return batch.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<EmailDeliverySummaryDTO> summarize(LocalDateTime from, LocalDateTime to) {
+        Map<String, EmailDeliverySummaryDTO> grouped = new LinkedHashMap<>();
+        for (Object[] row : hourlyRepository.summarizeBetween(from, to)) {
+            EmailEventType eventType = (EmailEventType) row[0];
+            String status = (String) row[1];
+            String domain = (String) row[2];
+            String reason = (String) row[3];
+            long count = ((Number) row[4]).longValue();
+
+            EmailDeliverySummaryDTO dto = grouped.computeIfAbsent(eventType + "|" + domain,
+                    k -> EmailDeliverySummaryDTO.builder()
+                            .eventType(eventType)
+                            .recipientDomain(domain)
+                            .failureReasons(new LinkedHashMap<>())
+                            .build());
+            if ("SENT".equals(status)) {
+                dto.setSentCount(dto.getSentCount() + count);
+            } else {
+                dto.setFailedCount(dto.getFailedCount() + count);
+                if (reason != null && !reason.isEmpty()) {
+                    dto.getFailureReasons().merge(reason, count, Long::sum);
+                }
+            }
+        }
+        return new ArrayList<>(grouped.values());
+    }
+
+    private LocalDateTime bucketOf(EmailAudit audit) {
+        LocalDateTime ts = audit.getSentAt() != null ? audit.getSentAt() : audit.getCreatedAt();
+        if (ts == null) {
+            ts = LocalDateTime.now();
+        }
+        return ts.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    static Set<String> recipientDomains(String toEmail) {
+        Set<String> domains = new TreeSet<>();
+        if (toEmail != null) {
+            for (String address : toEmail.split("[,;]")) {
+                int at = address.lastIndexOf('@');
+                if (at >= 0 && at < address.length() - 1) {
+                    domains.add(address.substring(at + 1).trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        if (domains.isEmpty()) {
+            domains.add("(none)");
+        }
+        return domains;
+    }
+
+    static String normalizeReason(String errorMessage) {
+        if (errorMessage == null || errorMessage.isBlank()) {
+            return "(unknown)";
+        }
+        // First line only; SMTP errors often carry a multi-line transcript
+        String reason = errorMessage.strip().lines().findFirst().orElse("").strip();
+        return reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+    }
+
+    private record RollupKey(LocalDateTime bucketStart, EmailEventType eventType, String status, String domain,
+            String reason) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.gsg.it4u.service.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Builds RFC 5322 Message-IDs for ticket mail threads. Lives outside
+ * TicketMailService so root ids can be allocated at ticket creation even when
+ * mail is disabled.
+ */
+@Component
+public class EmailMessageIdGenerator {
+
+    @Value("${it4u.mail.thread.domain:it4u.geosoftglobal.com}")
+    private String threadDomain = "it4u.geosoftglobal.com";
+
+    public String generate(Long ticketId) {
+        return "<" + ticketId + "." + System.currentTimeMillis() + "."
+                + UUID.randomUUID().toString().substring(0, 8) + "@" + threadDomain + ">";
+    }
+
+    /**
+     * Recovers the ticket id from a Message-ID produced by {@link #generate}.
+     * Returns null for foreign ids.
+     */
+    public Long parseTicketId(String messageId) {
+        if (messageId == null) {
+            return null;
+        }
+        String id = messageId.trim();
+        if (id.startsWith("<") && id.endsWith(">")) {
+            id = id.substring(1, id.length() - 1);
+        }
+        int at = id.lastIndexOf('@');
+        int dot = id.indexOf('.');
+        if (at < 0 || dot <= 0 || dot > at || !id.substring(at + 1).equalsIgnoreCase(threadDomain)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.service.TicketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off startup pass that gives legacy tickets a mail thread root id.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailThreadIdBackfill {
+
+    private final TicketService ticketService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            int assigned = ticketService.backfillEmailThreadIds();
+            if (assigned > 0) {
+                log.info("Assigned email thread root ids to {} legacy tickets", assigned);
+            }
+        } catch (Exception e) {
+            log.warn("Email thread id backfill failed (non-fatal): {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.entity.InboundMailReceipt;
+import com.gsg.it4u.entity.JobWatermark;
+import com.gsg.it4u.repository.JobWatermarkRepository;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.util.SharedFileInputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Polls a mailbox for replies to ticket notifications and hands them to
+ * {@link InboundMailService} in batches.
+ * <p>
+ * Modes: {@code imap} reads from an IMAP folder (read-only) and keeps the last
+ * processed UID, with the folder's UIDVALIDITY, as its watermark. It starts at
+ * the folder's UIDNEXT when first enabled and rescans the folder when
+ * UIDVALIDITY changes. {@code maildir} is a local stand-in that reads
+ * {@code new/} and moves handled files to {@code cur/}. In both modes the
+ * per-message receipt table makes reprocessing a no-op, and a message whose
+ * processing failed is left in place to be retried on the next poll until it
+ * runs out of attempts.
+ */
+@Component
+@ConditionalOnProperty(name = "it4u.mail.inbound.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InboundMailPoller {
+
+    static final String JOB_NAME = "inbound-mail";
+
+    private final InboundMailService inboundMailService;
+    private final JobWatermarkRepository watermarkRepository;
+
+    @Value("${it4u.mail.inbound.mode:maildir}")
+    private String mode;
+
+    @Value("${it4u.mail.inbound.batch-size:50}")
+    private int batchSize;
+
+    @Value("${it4u.mail.inbound.maildir:./storage/inbound-mail}")
+    private String maildir;
+
+    @Value("${it4u.mail.inbound.imap.host:}")
+    private String imapHost;
+
+    @Value("${it4u.mail.inbound.imap.port:993}")
+    private int imapPort;
+
+    @Value("${it4u.mail.inbound.imap.username:}")
+    private String imapUsername;
+
+    @Value("${it4u.mail.inbound.imap.password:}")
+    private String imapPassword;
+
+    @Value("${it4u.mail.inbound.imap.folder:INBOX}")
+    private String imapFolder;
+
+    @Value("${it4u.mail.inbound.imap.ssl:true}")
+    private boolean imapSsl;
+
+    private final Session session = Session.getInstance(new Properties());
+
+    @Scheduled(fixedDelayString = "${it4u.mail.inbound.interval-ms:60000}", initialDelay = 30000)
+    public void poll() {
+        try {
+            int handled = "imap".equalsIgnoreCase(mode) ? pollImap() : pollMaildir();
+            if (handled > 0) {
+                log.info("Inbound mail poll ({}) handled {} messages", mode, handled);
+            }
+        } catch (Exception e) {
+            log.error("Inbound mail poll ({}) failed", mode, e);
+        }
+    }
+
+    int pollMaildir() throws IOException {
+        Path root = Paths.get(maildir);
+        Path incoming = root.resolve("new");
+        Path done = root.resolve("cur");
+        Files.createDirectories(incoming);
+        Files.createDirectories(done);
+
+        // Maildir file names start with the delivery timestamp, so name order is
+        // arrival order
+        List<Path> batch = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(incoming, Files::isRegularFile)) {
+            files.forEach(batch::add);
+        }
+        Collections.sort(batch);
+        if (batch.size() > batchSize) {
+            batch = batch.subList(0, batchSize);
+        }
+
+        int handled = 0;
+        for (Path file : batch) {
+            // SharedFileInputStream lets MimeMessage parse lazily from disk instead of
+            // buffering the whole body
+            SharedFileInputStream in = new SharedFileInputStream(file.toFile());
+            boolean finished = true;
+            try {
+                finished = handle(new MimeMessage(session, in));
+            } catch (Exception e) {
+                log.warn("Inbound mail: could not parse {}: {}", file.getFileName(), e.getMessage());
+            } finally {
+                in.close();
+            }
+            if (!finished) {
+                // Stays in new/ for the next poll
+                continue;
+            }
+            Files.move(file, done.resolve(file.getFileName() + ":2,S"), StandardCopyOption.REPLACE_EXISTING);
+            handled++;
+        }
+        if (handled > 0) {
+            saveWatermark(null, null);
+        }
+        return handled;
+    }
+
+    int pollImap() throws Exception {
+        if (imapHost == null || imapHost.isBlank()) {
+            log.warn("Inbound mail mode is imap but it4u.mail.inbound.imap.host is not set");
+            return 0;
+        }
+        JobWatermark watermark = watermarkRepository.findById(JOB_NAME).orElseGet(() -> new JobWatermark(JOB_NAME));
+
+        try (Store store = session.getStore(imapSsl ? "imaps" : "imap")) {
+            store.connect(imapHost, imapPort, imapUsername, imapPassword);
+            Folder folder = store.getFolder(imapFolder);
+            folder.open(Folder.READ_ONLY);
+            try {
+                UIDFolder uidFolder = (UIDFolder) folder;
+                long validity = uidFolder.getUIDValidity();
+                long lastUid = watermark.getLastId();
+                if (watermark.getValidity() == null && lastUid == 0) {
+                    // First enable: only mail arriving from now on, not the mailbox's history
+                    long start = nextUid(folder, uidFolder) - 1;
+                    log.info("Inbound mail: starting {} after UID {}", imapFolder, start);
+                    saveWatermark(start, validity);
+                    return 0;
+                }
+                boolean reset = watermark.getValidity() != null && watermark.getValidity() != validity;
+                if (reset) {
+                    // UIDs were renumbered; receipts skip whatever was already handled
+                    log.warn("Inbound mail: UIDVALIDITY of {} changed from {} to {}, rescanning the folder",
+                            imapFolder, watermark.getValidity(), validity);
+                    lastUid = 0;
+                }
+
+                // Only the UIDs come back here; headers are fetched for this batch alone
+                List<Message> batch = new ArrayList<>();
+                for (Message candidate : uidFolder.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID)) {
+                    // A UID range past the end still returns the newest message
+                    if (uidFolder.getUID(candidate) > lastUid) {
+                        batch.add(candidate);
+                        if (batch.size() >= batchSize) {
+                            break;
+                        }
+                    }
+                }
+                Message[] messages = batch.toArray(new Message[0]);
+
+                // Headers only up front; bodies are fetched lazily per message
+                FetchProfile profile = new FetchProfile();
+                profile.add(UIDFolder.FetchProfileItem.UID);
+                profile.add(FetchProfile.Item.ENVELOPE);
+                profile.add("In-Reply-To");
+                profile.add("References");
+                folder.fetch(messages, profile);
+
+                int handled = 0;
+                for (Message message : messages) {
+                    if (!handle((MimeMessage) message)) {
+                        // Retried next poll; the watermark must not pass it
+                        break;
+                    }
+                    lastUid = uidFolder.getUID(message);
+                    handled++;
+                }
+                if (handled > 0 || reset || watermark.getValidity() == null) {
+                    saveWatermark(lastUid, validity);
+                }
+                return handled;
+            } finally {
+                folder.close(false);
+            }
+        }
+    }
+
+    /** UIDNEXT, or one past the newest message's UID if the server did not report it. */
+    private static long nextUid(Folder folder, UIDFolder uidFolder) throws Exception {
+        long next = uidFolder.getUIDNext();
+        if (next > 0) {
+            return next;
+        }
+        int count = folder.getMessageCount();
+        return count > 0 ? uidFolder.getUID(folder.getMessage(count)) + 1 : 1;
+    }
+
+    /** @return false if processing failed and the message should be offered again */
+    private boolean handle(MimeMessage message) {
+        try {
+            InboundMailReceipt.Status status = inboundMailService.process(message);
+            if (status == null) {
+                log.debug("Inbound mail already processed, skipped");
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Inbound mail processing failed", e);
+            return !inboundMailService.recordFailure(message, e);
+        }
+    }
+
+    private void saveWatermark(Long lastUid, Long validity) {
+        JobWatermark watermark = watermarkRepository.findById(JOB_NAME).orElseGet(() -> new JobWatermark(JOB_NAME));
+        if (lastUid != null) {
+            watermark.setLastId(lastUid);
+            watermark.setValidity(validity);
+        }
+        watermark.setLastTimestamp(LocalDateTime.now());
+        watermarkRepository.save(watermark);
+    }
+}
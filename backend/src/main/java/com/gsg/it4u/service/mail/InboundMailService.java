@@ -0,0 +1,233 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.entity.Comment;
+import com.gsg.it4u.entity.InboundMailReceipt;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.repository.CommentRepository;
+import com.gsg.it4u.repository.InboundMailReceiptRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.UserRepository;
+import com.gsg.it4u.service.TicketAccessService;
+import com.gsg.it4u.service.TicketService;
+import jakarta.mail.Address;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Turns an inbound reply mail into a ticket comment. Each message is handled in
+ * its own transaction together with its receipt row, so a message is applied at
+ * most once even if the poller sees it again.
+ * <p>
+ * Every applied reply mails the participants, so automated mail is dropped and
+ * each sender may only add a few comments per ticket per window; otherwise two
+ * out-of-office replies would keep answering each other's notifications.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InboundMailService {
+
+    static final int MAX_COMMENT_LENGTH = 1000;
+
+    private final InboundReplyParser replyParser;
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    private final TicketAccessService ticketAccessService;
+    private final TicketService ticketService;
+    private final InboundMailReceiptRepository receiptRepository;
+    private final CommentRepository commentRepository;
+
+    @Value("${it4u.mail.inbound.rate-limit.max-replies:5}")
+    private int maxRepliesPerWindow = 5;
+
+    @Value("${it4u.mail.inbound.rate-limit.window-minutes:60}")
+    private long rateLimitWindowMinutes = 60;
+
+    @Value("${it4u.mail.inbound.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /**
+     * @return the outcome, or null if this message was already processed or has
+     *         failed too often to retry
+     * @throws Exception on unexpected failures; the transaction rolls back and the
+     *                   caller records the failure via {@link #recordFailure}
+     */
+    @Transactional
+    public InboundMailReceipt.Status process(MimeMessage message) throws Exception {
+        String messageId = messageIdOf(message);
+        InboundMailReceipt previous = receiptRepository.findByMessageId(messageId).orElse(null);
+        if (previous != null) {
+            if (previous.getStatus() != InboundMailReceipt.Status.FAILED
+                    || previous.getFailedAttempts() >= maxAttempts) {
+                return null;
+            }
+            // Retry: the outcome replaces the failure, which comes back if this attempt rolls back
+            receiptRepository.delete(previous);
+            receiptRepository.flush();
+        }
+        String sender = senderAddress(message);
+        String automated = replyParser.automatedReason(message);
+        if (automated != null) {
+            return record(messageId, null, null, sender, InboundMailReceipt.Status.IGNORED,
+                    "Automated message (" + automated + ")");
+        }
+
+        Optional<Ticket> ticket = resolveTicket(replyParser.referencedMessageIds(message));
+        if (ticket.isEmpty()) {
+            return record(messageId, null, null, sender, InboundMailReceipt.Status.UNMATCHED,
+                    "No ticket thread in In-Reply-To/References");
+        }
+        Long ticketId = ticket.get().getId();
+
+        User author = sender != null ? userRepository.findByEmail(sender)
+                .or(() -> userRepository.findByEmail(sender.toLowerCase())).orElse(null) : null;
+        if (author == null) {
+            return record(messageId, ticketId, null, sender, InboundMailReceipt.Status.REJECTED, "Unknown sender");
+        }
+        if (!ticketAccessService.canViewTicket(author, ticket.get())) {
+            return record(messageId, ticketId, null, sender, InboundMailReceipt.Status.REJECTED,
+                    "Sender has no access to ticket");
+        }
+        // From is trivially forged: only people already on the ticket may comment by mail
+        if (!isParticipant(author, ticket.get())) {
+            return record(messageId, ticketId, null, sender, InboundMailReceipt.Status.REJECTED,
+                    "Sender is not a participant of the ticket");
+        }
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(rateLimitWindowMinutes);
+        if (receiptRepository.countByTicketIdAndSenderIgnoreCaseAndStatusAndProcessedAtAfter(ticketId, sender,
+                InboundMailReceipt.Status.APPLIED, windowStart) >= maxRepliesPerWindow) {
+            return record(messageId, ticketId, null, sender, InboundMailReceipt.Status.IGNORED,
+                    "More than " + maxRepliesPerWindow + " replies in " + rateLimitWindowMinutes + " minutes");
+        }
+
+        String reply = replyParser.extractReply(message);
+        if (reply.isEmpty()) {
+            return record(messageId, ticketId, null, sender, InboundMailReceipt.Status.REJECTED,
+                    "Empty reply after stripping quoted text");
+        }
+        if (reply.length() > MAX_COMMENT_LENGTH) {
+            reply = reply.substring(0, MAX_COMMENT_LENGTH - 1) + "…";
+        }
+
+        Comment comment = ticketService.addComment(ticketId, author, reply);
+        log.info("Inbound mail {} from {} appended as comment #{} on Ticket #{}", messageId, sender,
+                comment.getId(), ticketId);
+        return record(messageId, ticketId, comment.getId(), sender, InboundMailReceipt.Status.APPLIED, null);
+    }
+
+    /**
+     * Counts a failed attempt on the message's FAILED receipt.
+     *
+     * @return true if the message should be offered again on a later poll
+     */
+    @Transactional
+    public boolean recordFailure(MimeMessage message, Exception error) {
+        try {
+            String messageId = messageIdOf(message);
+            InboundMailReceipt receipt = receiptRepository.findByMessageId(messageId).orElse(null);
+            if (receipt == null) {
+                receipt = InboundMailReceipt.builder()
+                        .messageId(messageId)
+                        .sender(senderAddress(message))
+                        .status(InboundMailReceipt.Status.FAILED)
+                        .build();
+            } else if (receipt.getStatus() != InboundMailReceipt.Status.FAILED) {
+                return false;
+            }
+            String detail = error.getMessage();
+            receipt.setDetail(detail != null && detail.length() > 1000 ? detail.substring(0, 1000) : detail);
+            receipt.setFailedAttempts(receipt.getFailedAttempts() + 1);
+            receipt.setProcessedAt(LocalDateTime.now());
+            receiptRepository.save(receipt);
+            if (receipt.getFailedAttempts() >= maxAttempts) {
+                log.warn("Inbound mail {} failed {} times, giving up", messageId, receipt.getFailedAttempts());
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            // Nothing recorded, so nothing counts against the message: offer it again
+            log.warn("Inbound mail: could not record failure: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    static String messageIdOf(MimeMessage message) throws Exception {
+        String messageId = message.getMessageID();
+        if (messageId == null || messageId.isBlank()) {
+            // No id to de-duplicate on; derive a stable one from the raw headers and body
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), sha256)) {
+                message.writeTo(out);
+            }
+            messageId = "<no-id." + HexFormat.of().formatHex(sha256.digest()) + "@inbound>";
+        }
+        return messageId.length() > 512 ? messageId.substring(0, 512) : messageId;
+    }
+
+    /** Requester, assignee, approving manager, or someone who already commented. */
+    private boolean isParticipant(User user, Ticket ticket) {
+        return isUser(ticket.getRequester(), user)
+                || isUser(ticket.getAssignedTo(), user)
+                || isUser(ticket.getManager(), user)
+                || ticket.getManagerEmail() != null && ticket.getManagerEmail().equalsIgnoreCase(user.getEmail())
+                || commentRepository.existsByTicketIdAndAuthorId(ticket.getId(), user.getId());
+    }
+
+    private static boolean isUser(User candidate, User user) {
+        return candidate != null && candidate.getId() != null && candidate.getId().equals(user.getId());
+    }
+
+    /**
+     * Matches only root ids stored on tickets. Ticket-scoped ids of later
+     * notifications are guessable from the ticket number, so they are never
+     * trusted on their own; those notifications reference the root, and mail
+     * clients carry it forward in References.
+     */
+    private Optional<Ticket> resolveTicket(Set<String> references) {
+        if (references.isEmpty()) {
+            return Optional.empty();
+        }
+        return ticketRepository.findFirstByEmailThreadMessageIdIn(references);
+    }
+
+    private InboundMailReceipt.Status record(String messageId, Long ticketId, Long commentId, String sender,
+            InboundMailReceipt.Status status, String detail) {
+        if (detail != null && detail.length() > 1000) {
+            detail = detail.substring(0, 1000);
+        }
+        receiptRepository.save(InboundMailReceipt.builder()
+                .messageId(messageId)
+                .ticketId(ticketId)
+                .commentId(commentId)
+                .sender(sender)
+                .status(status)
+                .detail(detail)
+                .build());
+        if (status != InboundMailReceipt.Status.APPLIED) {
+            log.info("Inbound mail {} from {} not applied: {} ({})", messageId, sender, status, detail);
+        }
+        return status;
+    }
+
+    private static String senderAddress(MimeMessage message) throws Exception {
+        Address[] from = message.getFrom();
+        if (from == null || from.length == 0) {
+            return null;
+        }
+        return from[0] instanceof InternetAddress ia ? ia.getAddress() : from[0].toString();
+    }
+}
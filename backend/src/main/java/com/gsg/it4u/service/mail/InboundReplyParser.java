@@ -0,0 +1,167 @@
+package com.gsg.it4u.service.mail;
+
+import jakarta.mail.BodyPart;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts thread references and the new (unquoted) reply text from an inbound
+ * MIME message.
+ */
+@Component
+public class InboundReplyParser {
+
+    private static final Pattern MESSAGE_ID = Pattern.compile("<[^<>\\s]+>");
+
+    // Markers that start the quoted original in common clients (Outlook, Gmail,
+    // Apple Mail)
+    private static final Pattern[] QUOTE_MARKERS = {
+            Pattern.compile("^-{2,}\\s*Original Message\\s*-{2,}.*$", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^_{10,}\\s*$"),
+            Pattern.compile("^On .{1,200} wrote:\\s*$", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^From:\\s.+$", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^-- \\s*$") // signature delimiter
+    };
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    // RFC 3834 and the de-facto headers Exchange and common autoresponders set
+    private static final Set<String> AUTOMATED_PRECEDENCE = Set.of("bulk", "auto_reply", "list", "junk");
+    private static final String[] AUTO_REPLY_HEADERS = { "X-Autoreply", "X-Autorespond",
+            "X-Auto-Response-Suppress" };
+
+    /**
+     * Message-IDs this message replies to, In-Reply-To first, then References
+     * from newest to oldest.
+     */
+    public Set<String> referencedMessageIds(MimeMessage message) throws MessagingException {
+        Set<String> ids = new LinkedHashSet<>();
+        collect(message.getHeader("In-Reply-To", " "), ids);
+
+        Set<String> references = new LinkedHashSet<>();
+        collect(message.getHeader("References", " "), references);
+        String[] refs = references.toArray(new String[0]);
+        for (int i = refs.length - 1; i >= 0; i--) {
+            ids.add(refs[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Why this message looks machine-generated (out-of-office, bounce, list
+     * mail), or null if a person wrote it. Turning these into comments would
+     * mail the participants again and loop between two autoresponders.
+     */
+    public String automatedReason(MimeMessage message) throws MessagingException {
+        String autoSubmitted = message.getHeader("Auto-Submitted", null);
+        if (autoSubmitted != null && !"no".equals(headerToken(autoSubmitted))) {
+            return "Auto-Submitted: " + autoSubmitted.strip();
+        }
+        String precedence = message.getHeader("Precedence", null);
+        if (precedence != null && AUTOMATED_PRECEDENCE.contains(headerToken(precedence))) {
+            return "Precedence: " + precedence.strip();
+        }
+        for (String header : AUTO_REPLY_HEADERS) {
+            if (message.getHeader(header) != null) {
+                return header + " present";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Best text body of the message with quoted history removed. Prefers
+     * text/plain; falls back to tag-stripped text/html.
+     */
+    public String extractReply(Part message) throws MessagingException, IOException {
+        String plain = findText(message, "text/plain");
+        String text = plain != null ? plain : htmlToText(findText(message, "text/html"));
+        return text != null ? stripQuoted(text) : "";
+    }
+
+    public String stripQuoted(String text) {
+        StringBuilder out = new StringBuilder(Math.min(text.length(), 4096));
+        for (String line : text.split("\\r?\\n", -1)) {
+            String trimmed = line.strip();
+            if (isQuoteMarker(trimmed)) {
+                break;
+            }
+            if (trimmed.startsWith(">")) {
+                continue;
+            }
+            out.append(line.stripTrailing()).append('\n');
+        }
+        return out.toString().strip();
+    }
+
+    private boolean isQuoteMarker(String line) {
+        for (Pattern marker : QUOTE_MARKERS) {
+            if (marker.matcher(line).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String findText(Part part, String mimeType) throws MessagingException, IOException {
+        if (part.isMimeType(mimeType) && !Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition())) {
+            Object content = part.getContent();
+            return content instanceof String ? (String) content : null;
+        }
+        if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                BodyPart body = multipart.getBodyPart(i);
+                String text = findText(body, mimeType);
+                if (text != null) {
+                    return text;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String htmlToText(String html) {
+        if (html == null) {
+            return null;
+        }
+        String text = html.replaceAll("(?i)<br\\s*/?>", "\n").replaceAll("(?i)</(p|div)>", "\n");
+        // Outlook/Gmail wrap the quoted original in these containers
+        int quote = indexOfIgnoreCase(text, "<blockquote");
+        if (quote >= 0) {
+            text = text.substring(0, quote);
+        }
+        text = HTML_TAG.matcher(text).replaceAll("");
+        return text.replace("&nbsp;", " ").replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+    }
+
+    private static int indexOfIgnoreCase(String haystack, String needle) {
+        return haystack.toLowerCase().indexOf(needle);
+    }
+
+    /** First token of a header value, lower-cased, without parameters (e.g. "auto-replied; x=y"). */
+    private static String headerToken(String value) {
+        int semicolon = value.indexOf(';');
+        return (semicolon >= 0 ? value.substring(0, semicolon) : value).strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static void collect(String header, Set<String> into) {
+        if (header == null) {
+            return;
+        }
+        Matcher m = MESSAGE_ID.matcher(header);
+        while (m.find()) {
+            into.add(m.group());
+        }
+    }
+}
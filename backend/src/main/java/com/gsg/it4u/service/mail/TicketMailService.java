@@ -17,8 +17,6 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
-import java.util.UUID;
-
 @Service
 @ConditionalOnProperty(name = "it4u.mail.enabled", havingValue = "true")
 @RequiredArgsConstructor
@@ -30,6 +28,7 @@ public class TicketMailService {
     private final TicketMailComposer mailComposer;
     private final TicketRepository ticketRepository;
     private final EmailAuditRepository emailAuditRepository;
+    private final EmailMessageIdGenerator messageIdGenerator;
 
     @Value("${it4u.mail.enabled:false}")
     private boolean emailEnabled;
@@ -37,9 +36,6 @@ public class TicketMailService {
     @Value("${notifications.sender-address}")
     private String senderAddress;
 
-    @Value("${it4u.mail.thread.domain:it4u.geosoftglobal.com}")
-    private String threadDomain;
-
     /**
      * New DTO-based method to send emails for status changes without lazy-loading
      * issues
@@ -53,9 +49,9 @@ public class TicketMailService {
         }
 
         try {
-            // Re-fetch ticket ONLY to update email thread ID if needed
-            // All other data comes from DTO to avoid lazy-loading issues
-            Ticket ticket = ticketRepository.findById(ticketDTO.getId()).orElse(null);
+            // Re-fetch ticket read-only for recipient resolution and composition;
+            // mail workers never write to tickets
+            Ticket ticket = ticketRepository.findReadOnlyById(ticketDTO.getId()).orElse(null);
             if (ticket == null) {
                 log.warn("Ticket #{} not found for email notification", ticketDTO.getId());
                 return;
@@ -92,7 +88,7 @@ public class TicketMailService {
             helper.setText(content.getBody(), true);
 
             // Threading Headers
-            handleThreadingHeaders(message, ticket);
+            handleThreadingHeaders(message, ticket, false);
 
             // 4. Send
             mailSender.send(message);
@@ -119,7 +115,7 @@ public class TicketMailService {
         } catch (Exception e) {
             log.error("Failed to send email for Ticket #{}", ticketDTO.getId(), e);
             try {
-                Ticket ticket = ticketRepository.findById(ticketDTO.getId()).orElse(null);
+                Ticket ticket = ticketRepository.findReadOnlyById(ticketDTO.getId()).orElse(null);
                 if (ticket != null) {
                     saveAuditLog(ticket, TicketRecipientResolver.MailAction.STATUS_CHANGED, null, "Error", "FAILED",
                             e.getMessage());
@@ -143,8 +139,8 @@ public class TicketMailService {
         }
 
         try {
-            // Re-fetch ticket ONLY to update email thread ID if needed
-            Ticket ticket = ticketRepository.findById(ticketDTO.getId()).orElse(null);
+            // Re-fetch ticket read-only; mail workers never write to tickets
+            Ticket ticket = ticketRepository.findReadOnlyById(ticketDTO.getId()).orElse(null);
             if (ticket == null) {
                 log.warn("Ticket #{} not found for email notification", ticketDTO.getId());
                 return;
@@ -181,7 +177,7 @@ public class TicketMailService {
             helper.setText(content.getBody(), true);
 
             // Threading Headers
-            handleThreadingHeaders(message, ticket);
+            handleThreadingHeaders(message, ticket, false);
 
             // 4. Send
             mailSender.send(message);
@@ -208,7 +204,7 @@ public class TicketMailService {
         } catch (Exception e) {
             log.error("Failed to send email for Ticket #{}", ticketDTO.getId(), e);
             try {
-                Ticket ticket = ticketRepository.findById(ticketDTO.getId()).orElse(null);
+                Ticket ticket = ticketRepository.findReadOnlyById(ticketDTO.getId()).orElse(null);
                 if (ticket != null) {
                     saveAuditLog(ticket, TicketRecipientResolver.MailAction.COMMENT_ADDED, null, "Error", "FAILED",
                             e.getMessage());
@@ -231,7 +227,7 @@ public class TicketMailService {
             // Re-fetch ticket to ensure it's attached and lazy collections can be
             // initialized
             // This fixes the LazyInitializationException in Async thread
-            ticket = ticketRepository.findById(ticket.getId()).orElse(ticket);
+            ticket = ticketRepository.findReadOnlyById(ticket.getId()).orElse(ticket);
 
             // Eagerly initialize lazy collections to prevent LazyInitializationException
             org.hibernate.Hibernate.initialize(ticket.getAttachments());
@@ -261,8 +257,9 @@ public class TicketMailService {
             helper.setSubject(content.getSubject());
             helper.setText(content.getBody(), true);
 
-            // Threading Headers
-            handleThreadingHeaders(message, ticket);
+            // Threading Headers (the creation mail carries the thread root id)
+            handleThreadingHeaders(message, ticket, action == TicketRecipientResolver.MailAction.TICKET_CREATED
+                    || action == TicketRecipientResolver.MailAction.MANAGER_APPROVAL_REQUESTED);
 
             // 4. Send
             mailSender.send(message);
@@ -291,27 +288,25 @@ public class TicketMailService {
         }
     }
 
-    private void handleThreadingHeaders(MimeMessage message, Ticket ticket) throws Exception {
-        // Ensure Root Message ID exists
-        if (ticket.getEmailThreadMessageId() == null) {
-            String newId = generateMessageId(ticket);
-            ticket.setEmailThreadMessageId(newId);
-            ticketRepository.save(ticket); // Persist ID for future threads
-            message.setHeader("Message-ID", newId);
+    /**
+     * The root Message-ID is allocated at ticket creation; this only reads it.
+     * The creation mail is sent as the root, every later mail replies to it.
+     */
+    private void handleThreadingHeaders(MimeMessage message, Ticket ticket, boolean isRoot) throws Exception {
+        String rootId = ticket.getEmailThreadMessageId();
+        if (rootId == null) {
+            // Legacy ticket not yet backfilled: send unthreaded rather than write tickets
+            log.warn("Ticket #{} has no email thread root id; sending without threading headers", ticket.getId());
+            message.setHeader("Message-ID", messageIdGenerator.generate(ticket.getId()));
+        } else if (isRoot) {
+            message.setHeader("Message-ID", rootId);
         } else {
-            // This is a reply
-            String newId = generateMessageId(ticket);
-            message.setHeader("Message-ID", newId);
-            message.setHeader("In-Reply-To", ticket.getEmailThreadMessageId());
-            message.setHeader("References", ticket.getEmailThreadMessageId());
+            message.setHeader("Message-ID", messageIdGenerator.generate(ticket.getId()));
+            message.setHeader("In-Reply-To", rootId);
+            message.setHeader("References", rootId);
         }
     }
 
-    private String generateMessageId(Ticket ticket) {
-        return "<" + ticket.getId() + "." + System.currentTimeMillis() + "."
-                + UUID.randomUUID().toString().substring(0, 8) + "@" + threadDomain + ">";
-    }
-
     private void saveAuditLog(Ticket ticket, TicketRecipientResolver.MailAction action,
             TicketRecipientResolver.EmailRecipients recipients,
             String subject, String status, String error) {
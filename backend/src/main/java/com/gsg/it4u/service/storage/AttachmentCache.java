@@ -0,0 +1,196 @@
+package com.gsg.it4u.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the content of small, frequently downloaded attachments in memory,
+ * least recently used first out, bounded by total bytes. Entries live in
+ * direct buffers, outside the heap the GC has to trace, and are read-only;
+ * every hit hands out its own view of the same memory. Store keys name
+ * immutable content, so entries only go stale when the file is deleted, and
+ * whoever deletes it calls {@link #invalidate(String)}.
+ * <p>
+ * The direct memory used is at most {@code it4u.attachments.cache.max-bytes}
+ * and counts against -XX:MaxDirectMemorySize; an evicted buffer is released
+ * when the GC collects it. Concurrent misses on the same key share one read
+ * of the file. Requests for files too large to cache are counted apart from
+ * misses, so the miss rate reflects only what the cache could have served.
+ */
+@Component
+@Slf4j
+public class AttachmentCache {
+
+    private final Map<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    /** Reads in progress, so concurrent misses on one key wait for it instead of reading it again. */
+    private final ConcurrentMap<String, CompletableFuture<ByteBuffer>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter tooLarge;
+
+    @Value("${it4u.attachments.cache.max-bytes:67108864}")
+    private long maxBytes = 64 * 1024 * 1024;
+
+    /** Larger files are never cached; they go out via sendfile, presigned URL or streaming instead. */
+    @Value("${it4u.attachments.cache.max-entry-bytes:262144}")
+    private long maxEntryBytes = 256 * 1024;
+
+    public AttachmentCache(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            hits = null;
+            misses = null;
+            tooLarge = null;
+            return;
+        }
+        hits = Counter.builder("it4u.attachments.cache.requests").tag("result", "hit").register(registry);
+        misses = Counter.builder("it4u.attachments.cache.requests").tag("result", "miss").register(registry);
+        tooLarge = Counter.builder("it4u.attachments.cache.requests").tag("result", "too_large").register(registry);
+        Gauge.builder("it4u.attachments.cache.bytes", cachedBytes, AtomicLong::get).baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * The content of {@code key}, loading it from {@code store} on a miss if
+     * it is small enough to cache; null when it is too large (or the cache is
+     * off), in which case the caller serves it as usual.
+     *
+     * @param sizeHint the file's size if the caller knows it, else null
+     * @throws java.nio.file.NoSuchFileException if a file small enough to cache is missing
+     */
+    public ByteBuffer get(String key, AttachmentStore store, Long sizeHint) throws IOException {
+        if (maxBytes <= 0) {
+            return null;
+        }
+        ByteBuffer cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            increment(hits);
+            return cached.duplicate();
+        }
+
+        long size = sizeHint != null ? sizeHint : store.size(key);
+        if (size > maxEntryBytes || size > maxBytes) {
+            increment(tooLarge);
+            return null;
+        }
+        increment(misses);
+        if (size < 0) {
+            return null;
+        }
+        CompletableFuture<ByteBuffer> load = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> inFlight = loading.computeIfAbsent(key, k -> load);
+        if (inFlight != load) {
+            ByteBuffer shared = await(inFlight);
+            return shared != null ? shared.duplicate() : null;
+        }
+        try {
+            ByteBuffer loaded = load(store, key, (int) size);
+            if (loaded == null) {
+                log.warn("Attachment {} does not have its recorded size {}, not cached", key, size);
+            } else {
+                synchronized (entries) {
+                    // Not if invalidated while reading: the file may be gone by now
+                    if (loading.remove(key, load)) {
+                        put(key, loaded);
+                    }
+                }
+            }
+            load.complete(loaded);
+            return loaded != null ? loaded.duplicate() : null;
+        } catch (IOException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    public void invalidate(String key) {
+        synchronized (entries) {
+            loading.remove(key);
+            ByteBuffer removed = entries.remove(key);
+            if (removed != null) {
+                cachedBytes.addAndGet(-removed.capacity());
+            }
+        }
+    }
+
+    public long cachedBytes() {
+        return cachedBytes.get();
+    }
+
+    /** Read-only buffer of exactly {@code size} bytes, or null if the file is not that size. */
+    private static ByteBuffer load(AttachmentStore store, String key, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        try (InputStream in = store.get(key, 0, -1); ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            if (in.read() >= 0) {
+                return null;
+            }
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private static ByteBuffer await(CompletableFuture<ByteBuffer> load) throws IOException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a cached attachment to load");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void put(String key, ByteBuffer buffer) {
+        synchronized (entries) {
+            ByteBuffer previous = entries.put(key, buffer);
+            long total = cachedBytes.addAndGet(buffer.capacity() - (previous != null ? previous.capacity() : 0));
+            Iterator<ByteBuffer> eldest = entries.values().iterator();
+            while (total > maxBytes && eldest.hasNext()) {
+                total = cachedBytes.addAndGet(-eldest.next().capacity());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.gsg.it4u.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Where attachment bytes live. Keys are relative, '/'-separated paths such as
+ * {@code blobs/ab/cd/<sha256>}; objects are written once and never modified,
+ * which is what lets content-addressed blobs be shared and cached freely.
+ * Selected with {@code it4u.attachments.store} (see AttachmentStoreConfig).
+ */
+public interface AttachmentStore {
+
+    boolean exists(String key) throws IOException;
+
+    /** Size in bytes, or -1 if there is no such object. */
+    long size(String key) throws IOException;
+
+    /**
+     * Stores {@code file} under {@code key}, replacing nothing that differs:
+     * callers only write a key whose content is fixed by its name. The store
+     * may move {@code file} instead of copying it.
+     */
+    void put(String key, Path file) throws IOException;
+
+    /**
+     * Reads {@code length} bytes from {@code offset}, or to the end when
+     * {@code length} is negative.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no such object
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /** The local file behind {@code key}, when there is one (lets downloads use sendfile). */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * A time-limited URL clients can download {@code key} from directly,
+     * bypassing this JVM, or empty if the store cannot issue one. The
+     * response carries the given type, attachment name and, when not null,
+     * Content-Encoding.
+     */
+    default Optional<URI> presignedGet(String key, Duration ttl, String contentType, String downloadName,
+            String contentEncoding) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,255 @@
+package com.gsg.it4u.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps attachments in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW), so
+ * any number of backend nodes share one store. Talks the REST API directly
+ * over java.net.http with SigV4 signing: single PUT below the multipart
+ * threshold, multipart upload above it (aborted on failure), ranged GETs
+ * streamed straight through, and pre-signed GET URLs for downloads that
+ * should not pass through the JVM at all.
+ */
+@Slf4j
+public class S3AttachmentStore implements AttachmentStore {
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient http;
+    private final URI endpoint;
+    private final String bucket;
+    private final boolean pathStyle;
+    private final S3RequestSigner signer;
+    private final long multipartThresholdBytes;
+    private final int partSizeBytes;
+    private final Clock clock;
+
+    public S3AttachmentStore(URI endpoint, String bucket, String region, String accessKey, String secretKey,
+            boolean pathStyle, long multipartThresholdBytes, int partSizeBytes) {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build(), endpoint, bucket, region,
+                accessKey, secretKey, pathStyle, multipartThresholdBytes, partSizeBytes, Clock.systemUTC());
+    }
+
+    S3AttachmentStore(HttpClient http, URI endpoint, String bucket, String region, String accessKey,
+            String secretKey, boolean pathStyle, long multipartThresholdBytes, int partSizeBytes, Clock clock) {
+        this.http = http;
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.pathStyle = pathStyle;
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        this.multipartThresholdBytes = multipartThresholdBytes;
+        this.partSizeBytes = partSizeBytes;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return size(key) >= 0;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, Map.of(), Map.of(), null,
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return -1;
+        }
+        check(response, "HEAD", key, null);
+        return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+
+    @Override
+    public void put(String key, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < multipartThresholdBytes) {
+                HttpResponse<String> response = send("PUT", key, Map.of(), Map.of(),
+                        HttpRequest.BodyPublishers.ofFile(file), HttpResponse.BodyHandlers.ofString());
+                check(response, "PUT", key, response.body());
+            } else {
+                multipartPut(key, channel, size);
+            }
+        }
+    }
+
+    private void multipartPut(String key, FileChannel channel, long size) throws IOException {
+        HttpResponse<String> created = send("POST", key, Map.of("uploads", ""), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        check(created, "POST uploads", key, created.body());
+        Matcher uploadIdMatch = UPLOAD_ID.matcher(created.body());
+        if (!uploadIdMatch.find()) {
+            throw new IOException("S3 CreateMultipartUpload for " + key + " returned no UploadId");
+        }
+        String uploadId = uploadIdMatch.group(1);
+
+        try {
+            List<String> etags = new ArrayList<>();
+            ByteBuffer part = ByteBuffer.allocate(partSizeBytes);
+            for (long offset = 0; offset < size; offset += partSizeBytes) {
+                part.clear();
+                part.limit((int) Math.min(partSizeBytes, size - offset));
+                while (part.hasRemaining() && channel.read(part, offset + part.position()) >= 0) {
+                    // fill the part
+                }
+                String partNumber = String.valueOf(etags.size() + 1);
+                HttpResponse<String> uploaded = send("PUT", key,
+                        Map.of("partNumber", partNumber, "uploadId", uploadId), Map.of(),
+                        HttpRequest.BodyPublishers.ofByteArray(part.array(), 0, part.position()),
+                        HttpResponse.BodyHandlers.ofString());
+                check(uploaded, "PUT part " + partNumber, key, uploaded.body());
+                etags.add(uploaded.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("S3 UploadPart for " + key + " returned no ETag")));
+            }
+
+            StringBuilder complete = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                complete.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i)).append("</ETag></Part>");
+            }
+            complete.append("</CompleteMultipartUpload>");
+            HttpResponse<String> completed = send("POST", key, Map.of("uploadId", uploadId),
+                    Map.of("content-type", "application/xml"),
+                    HttpRequest.BodyPublishers.ofString(complete.toString()), HttpResponse.BodyHandlers.ofString());
+            // CompleteMultipartUpload can fail after a 200 status line; the error is in the body
+            if (completed.body() != null && completed.body().contains("<Error>")) {
+                throw new IOException("S3 CompleteMultipartUpload for " + key + " failed: " + completed.body());
+            }
+            check(completed, "POST complete", key, completed.body());
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            send("DELETE", key, Map.of("uploadId", uploadId), Map.of(), null, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (offset > 0 || length >= 0) {
+            headers.put("range", "bytes=" + offset + "-" + (length >= 0 ? String.valueOf(offset + length - 1) : ""));
+        }
+        HttpResponse<InputStream> response = send("GET", key, Map.of(), headers, null,
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 200 || response.statusCode() == 206) {
+            return response.body();
+        }
+        String body;
+        try (InputStream error = response.body()) {
+            body = new String(error.readNBytes(1024), StandardCharsets.UTF_8);
+        }
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        throw failure("GET", key, response.statusCode(), body);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send("DELETE", key, Map.of(), Map.of(), null,
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            check(response, "DELETE", key, response.body());
+        }
+    }
+
+    @Override
+    public Optional<URI> presignedGet(String key, Duration ttl, String contentType, String downloadName,
+            String contentEncoding) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (contentType != null) {
+            query.put("response-content-type", contentType);
+        }
+        if (downloadName != null) {
+            query.put("response-content-disposition", "attachment; filename=\"" + downloadName + "\"");
+        }
+        if (contentEncoding != null) {
+            query.put("response-content-encoding", contentEncoding);
+        }
+        String path = path(key);
+        String signed = signer.presignQuery("GET", host(), path, query, clock.instant(),
+                ttl.toSeconds());
+        return Optional.of(URI.create(baseUri() + S3RequestSigner.encode(path, false) + "?" + signed));
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> query,
+            Map<String, String> extraHeaders, HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        String path = path(key);
+        String uri = baseUri() + S3RequestSigner.encode(path, false)
+                + (query.isEmpty() ? "" : "?" + S3RequestSigner.canonicalQuery(query));
+        String payloadHash = body == null ? S3RequestSigner.EMPTY_SHA256 : S3RequestSigner.UNSIGNED_PAYLOAD;
+
+        Map<String, String> headers = new LinkedHashMap<>(extraHeaders);
+        headers.put("x-amz-date", S3RequestSigner.amzDate(clock.instant()));
+        headers.put("x-amz-content-sha256", payloadHash);
+        Map<String, String> signed = new LinkedHashMap<>(headers);
+        signed.put("host", host());
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(REQUEST_TIMEOUT)
+                .method(method, body != null ? body : HttpRequest.BodyPublishers.noBody())
+                .header("Authorization", signer.authorization(method, path, query, signed, payloadHash));
+        headers.forEach(request::header);
+        try {
+            return http.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during S3 " + method + " " + key, e);
+        }
+    }
+
+    /** Virtual-hosted style would move the bucket into the host name; MinIO and most on-prem servers want path style. */
+    private String path(String key) {
+        return pathStyle ? "/" + bucket + "/" + key : "/" + key;
+    }
+
+    private String host() {
+        return pathStyle ? endpoint.getRawAuthority() : bucket + "." + endpoint.getRawAuthority();
+    }
+
+    private String baseUri() {
+        return endpoint.getScheme() + "://" + host();
+    }
+
+    private static void check(HttpResponse<?> response, String operation, String key, String body)
+            throws IOException {
+        if (response.statusCode() >= 300) {
+            throw failure(operation, key, response.statusCode(), body);
+        }
+    }
+
+    private static IOException failure(String operation, String key, int status, String body) {
+        return new IOException("S3 " + operation + " " + key + " failed with " + status
+                + (body == null || body.isEmpty() ? "" : ": " + body));
+    }
+}
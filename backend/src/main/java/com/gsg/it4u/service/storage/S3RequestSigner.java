@@ -0,0 +1,142 @@
+package com.gsg.it4u.service.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * AWS Signature Version 4 for S3 and S3-compatible servers (MinIO, Ceph RGW),
+ * as header authorization or as a pre-signed query string.
+ */
+class S3RequestSigner {
+
+    static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    S3RequestSigner(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    static String amzDate(Instant now) {
+        return AMZ_DATE.format(now);
+    }
+
+    /**
+     * The Authorization header for a request carrying {@code headers} (which
+     * must include host, x-amz-date and x-amz-content-sha256; all of them are
+     * signed).
+     */
+    String authorization(String method, String path, Map<String, String> query, Map<String, String> headers,
+            String payloadHash) {
+        SortedMap<String, String> signed = new TreeMap<>();
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(), value.trim()));
+        String amzDate = signed.get("x-amz-date");
+        String scope = scope(amzDate);
+        String signedHeaders = String.join(";", signed.keySet());
+        String signature = sign(amzDate, scope,
+                canonicalRequest(method, path, query, signed, signedHeaders, payloadHash));
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope + ",SignedHeaders=" + signedHeaders
+                + ",Signature=" + signature;
+    }
+
+    /**
+     * The query string (without '?') of a pre-signed GET: {@code query} (for
+     * example response-content-disposition) plus the X-Amz-* parameters.
+     */
+    String presignQuery(String method, String host, String path, Map<String, String> query, Instant now,
+            long expiresSeconds) {
+        String amzDate = amzDate(now);
+        String scope = scope(amzDate);
+        SortedMap<String, String> params = new TreeMap<>(query);
+        params.put("X-Amz-Algorithm", ALGORITHM);
+        params.put("X-Amz-Credential", accessKey + "/" + scope);
+        params.put("X-Amz-Date", amzDate);
+        params.put("X-Amz-Expires", String.valueOf(expiresSeconds));
+        params.put("X-Amz-SignedHeaders", "host");
+        SortedMap<String, String> headers = new TreeMap<>(Map.of("host", host));
+        String signature = sign(amzDate, scope,
+                canonicalRequest(method, path, params, headers, "host", UNSIGNED_PAYLOAD));
+        return canonicalQuery(params) + "&X-Amz-Signature=" + signature;
+    }
+
+    static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query).entrySet().stream()
+                .map(e -> encode(e.getKey(), true) + "=" + encode(e.getValue(), true))
+                .collect(Collectors.joining("&"));
+    }
+
+    /** RFC 3986 percent-encoding as SigV4 wants it; '/' is kept in paths. */
+    static String encode(String value, boolean encodeSlash) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                out.append(c);
+            } else {
+                out.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return out.toString();
+    }
+
+    static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String scope(String amzDate) {
+        return amzDate.substring(0, 8) + "/" + region + "/s3/aws4_request";
+    }
+
+    private static String canonicalRequest(String method, String path, Map<String, String> query,
+            SortedMap<String, String> headers, String signedHeaders, String payloadHash) {
+        StringBuilder canonicalHeaders = new StringBuilder();
+        headers.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value).append('\n'));
+        return method + "\n" + encode(path, false) + "\n" + canonicalQuery(query) + "\n" + canonicalHeaders + "\n"
+                + signedHeaders + "\n" + payloadHash;
+    }
+
+    private String sign(String amzDate, String scope, String canonicalRequest) {
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n"
+                + sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), amzDate.substring(0, 8));
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Inbound reply-by-email: one row per processed inbound message (idempotency)
+CREATE TABLE IF NOT EXISTS inbound_mail_receipts (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    message_id VARCHAR(512) NOT NULL,
+    ticket_id BIGINT,
+    comment_id BIGINT,
+    sender VARCHAR(255),
+    status VARCHAR(32) NOT NULL,
+    detail VARCHAR(1000),
+    processed_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_inbound_mail_receipts_message_id UNIQUE (message_id)
+);
+
+-- Replies are matched on the thread root id
+CREATE INDEX IF NOT EXISTS idx_tickets_email_thread_message_id ON tickets (email_thread_message_id);
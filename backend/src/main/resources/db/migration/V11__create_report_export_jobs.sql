@@ -0,0 +1,18 @@
+-- Asynchronous report exports: one row per job, file kept under it4u.reports.export-dir
+CREATE TABLE IF NOT EXISTS report_export_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    format VARCHAR(16) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    filter_json TEXT,
+    requested_by VARCHAR(255),
+    total_rows BIGINT,
+    rows_written BIGINT NOT NULL DEFAULT 0,
+    file_name VARCHAR(255),
+    size_bytes BIGINT,
+    error_message VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_report_export_jobs_status_created ON report_export_jobs (status, created_at);
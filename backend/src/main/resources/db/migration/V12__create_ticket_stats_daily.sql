@@ -0,0 +1,16 @@
+-- Daily ticket statistics for dashboards, maintained from tickets.updated_at.
+-- STATUS / CATEGORY / PRIORITY / MANAGER_APPROVAL rows count tickets created on
+-- stat_date by their current value; OPENED counts by created day, CLOSED by closed day.
+CREATE TABLE IF NOT EXISTS ticket_stats_daily (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    stat_date DATE NOT NULL,
+    dimension VARCHAR(32) NOT NULL,
+    dim_value VARCHAR(64) NOT NULL DEFAULT '',
+    ticket_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_ticket_stats_daily_key UNIQUE (stat_date, dimension, dim_value)
+);
+
+-- Incremental refresh scans tickets by updated_at, and recomputes by created/closed day
+CREATE INDEX IF NOT EXISTS idx_tickets_updated_at ON tickets (updated_at);
+CREATE INDEX IF NOT EXISTS idx_tickets_created_at ON tickets (created_at);
+CREATE INDEX IF NOT EXISTS idx_tickets_closed_at ON tickets (closed_at);
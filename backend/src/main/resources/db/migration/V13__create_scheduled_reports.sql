@@ -0,0 +1,22 @@
+-- Saved report specs generated on a cron schedule and mailed or kept as export jobs
+CREATE TABLE IF NOT EXISTS scheduled_reports (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    format VARCHAR(16) NOT NULL,
+    filter_json TEXT,
+    cron VARCHAR(120) NOT NULL,
+    delivery VARCHAR(16) NOT NULL,
+    recipients VARCHAR(2000),
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    created_by VARCHAR(255),
+    next_run_at TIMESTAMP,
+    last_run_at TIMESTAMP,
+    last_job_id VARCHAR(36),
+    last_status VARCHAR(32),
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_scheduled_reports_due ON scheduled_reports (enabled, next_run_at);
+CREATE INDEX IF NOT EXISTS idx_scheduled_reports_last_job ON scheduled_reports (last_job_id);
@@ -0,0 +1,10 @@
+-- Change feed (/api/admin/reports/feed.jsonl) reads each table in (timestamp, id) keyset order.
+-- Rows written before updated_at was maintained would otherwise never appear in the feed.
+UPDATE tickets SET updated_at = created_at WHERE updated_at IS NULL AND created_at IS NOT NULL;
+UPDATE comments c SET created_at = t.created_at FROM tickets t WHERE c.ticket_id = t.id AND c.created_at IS NULL;
+
+-- Also serves the stats rollup's updated_at scans, so the single-column index goes
+CREATE INDEX IF NOT EXISTS idx_tickets_updated_at_id ON tickets (updated_at, id);
+DROP INDEX IF EXISTS idx_tickets_updated_at;
+CREATE INDEX IF NOT EXISTS idx_comments_created_at_id ON comments (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_email_audit_created_at_id ON email_audit (created_at, id);
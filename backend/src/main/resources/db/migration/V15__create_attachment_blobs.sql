@@ -0,0 +1,17 @@
+-- Content-addressed attachment storage: one file per distinct SHA-256 under
+-- blobs/<2 hex>/<2 hex>/<sha256>, shared by every attachment with that content.
+-- ref_count counts attachments that were linked to the blob; it only ever errs high
+-- (a failed insert after storing), so a blob at zero is safe to reclaim.
+CREATE TABLE IF NOT EXISTS attachment_blobs (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    verified_at TIMESTAMP,
+    corrupt BOOLEAN NOT NULL DEFAULT false
+);
+
+-- Integrity verifier picks the least recently verified blobs first
+CREATE INDEX IF NOT EXISTS idx_attachment_blobs_verified_at ON attachment_blobs (verified_at NULLS FIRST);
+
+CREATE INDEX IF NOT EXISTS idx_attachments_sha256 ON attachments (sha256);
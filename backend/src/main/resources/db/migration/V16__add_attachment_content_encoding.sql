@@ -0,0 +1,4 @@
+-- Text attachments are stored gzip-compressed (blob key suffix .gz). The blob row says how
+-- its file is encoded; attachments copy it so downloads need no extra lookup.
+ALTER TABLE attachment_blobs ADD COLUMN IF NOT EXISTS content_encoding VARCHAR(16);
+ALTER TABLE attachments ADD COLUMN IF NOT EXISTS content_encoding VARCHAR(16);
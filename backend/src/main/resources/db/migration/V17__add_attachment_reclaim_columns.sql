@@ -0,0 +1,11 @@
+-- Soft-deleted attachments are reclaimed after a grace period counted from deleted_at.
+-- Rows deleted before this column existed start their grace period now.
+ALTER TABLE attachments ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+UPDATE attachments SET deleted_at = now() WHERE deleted = true AND deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_attachments_deleted_at ON attachments (deleted_at) WHERE deleted = true;
+
+-- Bumped by every upload that links a blob, so the reclaimer never frees a blob that
+-- an upload in flight has just found and is about to reference.
+ALTER TABLE attachment_blobs ADD COLUMN IF NOT EXISTS last_referenced_at TIMESTAMP;
+UPDATE attachment_blobs SET last_referenced_at = created_at WHERE last_referenced_at IS NULL;
@@ -0,0 +1,2 @@
+-- Optimistic locking for scheduled report edits racing the scheduler and the finished-job listener
+ALTER TABLE scheduled_reports ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
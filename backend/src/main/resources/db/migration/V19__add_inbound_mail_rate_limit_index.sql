@@ -0,0 +1,2 @@
+-- Per-ticket sender rate limit counts recent receipts of a ticket
+CREATE INDEX IF NOT EXISTS idx_inbound_mail_receipts_ticket_processed ON inbound_mail_receipts (ticket_id, processed_at);
@@ -0,0 +1,3 @@
+-- Nodes refresh this while a job is queued or running on them; only jobs whose node stopped refreshing are failed
+ALTER TABLE report_export_jobs ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP;
+UPDATE report_export_jobs SET heartbeat_at = COALESCE(started_at, created_at) WHERE heartbeat_at IS NULL;
@@ -0,0 +1,4 @@
+-- Sequence the watermark's last_id belongs to (IMAP UIDVALIDITY); progress restarts when it changes
+ALTER TABLE job_watermarks ADD COLUMN IF NOT EXISTS validity BIGINT;
+-- FAILED receipts are retried until this reaches it4u.mail.inbound.max-attempts
+ALTER TABLE inbound_mail_receipts ADD COLUMN IF NOT EXISTS failed_attempts INT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Blobs are reclaimed by checking attachment rows (AttachmentBlobRepository.UNREFERENCED);
+-- the counter was only ever incremented and nothing read it
+ALTER TABLE attachment_blobs DROP COLUMN IF EXISTS ref_count;
@@ -0,0 +1,21 @@
+-- Generic watermark table for incremental background jobs
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job_name VARCHAR(100) PRIMARY KEY,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    last_timestamp TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- Hourly email delivery rollup maintained from email_audit
+CREATE TABLE IF NOT EXISTS email_audit_hourly (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bucket_start TIMESTAMP NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    recipient_domain VARCHAR(255) NOT NULL,
+    failure_reason VARCHAR(255) NOT NULL DEFAULT '',
+    message_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_email_audit_hourly_key UNIQUE (bucket_start, event_type, status, recipient_domain, failure_reason)
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_audit_hourly_bucket ON email_audit_hourly (bucket_start);
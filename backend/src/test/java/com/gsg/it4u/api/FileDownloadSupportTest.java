@@ -0,0 +1,194 @@
+package com.gsg.it4u.api;
+
+import com.gsg.it4u.service.storage.AttachmentCache;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FileDownloadSupportTest {
+
+    @TempDir
+    Path dir;
+
+    private final FileDownloadSupport support = new FileDownloadSupport();
+    private Path file;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.write(dir.resolve("abc-123"), new byte[1000]);
+        ReflectionTestUtils.setField(support, "sendfileMinBytes", 100L);
+        request = new MockHttpServletRequest("GET", "/api/tickets/1/attachments/2/download");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void matchingEtag_returnsNotModified() throws Exception {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc-123-1000\"");
+
+        ResponseEntity<Resource> result = download();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertNull(result.getBody());
+        assertEquals("\"abc-123-1000\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void withoutSendfile_returnsResourceForSpringRangeHandling() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-99");
+
+        ResponseEntity<Resource> result = download();
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertInstanceOf(FileSystemResource.class, result.getBody());
+        assertEquals("\"abc-123-1000\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("attachment; filename=\"report.pdf\"",
+                result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void sendfile_servesSingleRangeAsPartialContent() throws Exception {
+        request.setAttribute(FileDownloadSupport.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=900-");
+
+        ResponseEntity<Resource> result = download();
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, result.getStatusCode());
+        assertNull(result.getBody());
+        assertEquals("bytes 900-999/1000", result.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(100, result.getHeaders().getContentLength());
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(FileDownloadSupport.SENDFILE_FILENAME));
+        assertEquals(900L, request.getAttribute(FileDownloadSupport.SENDFILE_START));
+        assertEquals(1000L, request.getAttribute(FileDownloadSupport.SENDFILE_END));
+    }
+
+    @Test
+    void sendfile_rejectsRangeBeyondEnd() throws Exception {
+        request.setAttribute(FileDownloadSupport.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=5000-6000");
+
+        ResponseEntity<Resource> result = download();
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, result.getStatusCode());
+        assertEquals("bytes */1000", result.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertNull(request.getAttribute(FileDownloadSupport.SENDFILE_FILENAME));
+    }
+
+    @Test
+    void remoteStore_streamsTheRange_orRedirectsToPresignedUrlWhenEnabled() throws Exception {
+        AttachmentStore store = mock(AttachmentStore.class);
+        URI presigned = URI.create("https://s3.example.com/attachments/blobs/ab/cd/abcd?X-Amz-Signature=f00");
+        when(store.presignedGet(eq("blobs/ab/cd/abcd"), any(), eq("application/pdf"), eq("report.pdf"), isNull()))
+                .thenReturn(Optional.of(presigned));
+        when(store.size("blobs/ab/cd/abcd")).thenReturn(1000L);
+        when(store.get("blobs/ab/cd/abcd", 900, 100)).thenReturn(new ByteArrayInputStream(new byte[100]));
+        request.addHeader(HttpHeaders.RANGE, "bytes=-100");
+
+        ResponseEntity<Resource> ranged = support.download(store, "blobs/ab/cd/abcd", "abcd",
+                MediaType.APPLICATION_PDF, "report.pdf", request, response);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, ranged.getStatusCode());
+        assertEquals("bytes 900-999/1000", ranged.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(100, ranged.getHeaders().getContentLength());
+        assertInstanceOf(InputStreamResource.class, ranged.getBody());
+
+        ReflectionTestUtils.setField(support, "presignedDownloads", true);
+        ResponseEntity<Resource> redirect = support.download(store, "blobs/ab/cd/abcd", "abcd",
+                MediaType.APPLICATION_PDF, "report.pdf", request, response);
+
+        assertEquals(HttpStatus.FOUND, redirect.getStatusCode());
+        assertEquals(presigned, redirect.getHeaders().getLocation());
+    }
+
+    @Test
+    void gzippedFile_passesThroughWhenAccepted_elseInflates() throws Exception {
+        byte[] csv = "id,title\n1,Printer\n".repeat(200).getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(csv);
+        }
+        AttachmentStore store = mock(AttachmentStore.class);
+        when(store.size("blobs/ab/cd/abcd.gz")).thenReturn((long) gzipped.size());
+        when(store.get("blobs/ab/cd/abcd.gz", 0, -1)).thenAnswer(i -> new ByteArrayInputStream(gzipped.toByteArray()));
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+
+        ResponseEntity<Resource> passthrough = support.downloadGzipped(store, "blobs/ab/cd/abcd.gz", "abcd",
+                MediaType.parseMediaType("text/csv"), "export.csv", (long) csv.length, request, response);
+
+        assertEquals(HttpStatus.OK, passthrough.getStatusCode());
+        assertEquals("gzip", passthrough.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(gzipped.size(), passthrough.getHeaders().getContentLength());
+        assertArrayEquals(gzipped.toByteArray(), passthrough.getBody().getInputStream().readAllBytes());
+        assertEquals("\"abcd-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+
+        MockHttpServletRequest plainRequest = new MockHttpServletRequest("GET", "/download");
+        ResponseEntity<Resource> inflated = support.downloadGzipped(store, "blobs/ab/cd/abcd.gz", "abcd",
+                MediaType.parseMediaType("text/csv"), "export.csv", (long) csv.length, plainRequest,
+                new MockHttpServletResponse());
+
+        assertNull(inflated.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(csv.length, inflated.getHeaders().getContentLength());
+        assertArrayEquals(csv, inflated.getBody().getInputStream().readAllBytes());
+        assertFalse(FileDownloadSupport.acceptsGzip("gzip;q=0, identity"));
+        assertTrue(FileDownloadSupport.acceptsGzip("*"));
+    }
+
+    @Test
+    void smallFile_isServedFromCacheAsRangeableResource() throws Exception {
+        AttachmentCache cache = mock(AttachmentCache.class);
+        AttachmentStore store = mock(AttachmentStore.class);
+        ByteBuffer content = ByteBuffer.allocateDirect(1000);
+        when(cache.get("blobs/ab/cd/abcd", store, 1000L)).thenReturn(content);
+        ReflectionTestUtils.setField(support, "attachmentCache", cache);
+
+        ResponseEntity<Resource> result = support.download(store, "blobs/ab/cd/abcd", "abcd", 1000L,
+                MediaType.APPLICATION_PDF, "report.pdf", request, response);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertInstanceOf(ByteBufferResource.class, result.getBody());
+        assertEquals(1000, result.getBody().contentLength());
+        assertEquals(990, result.getBody().getInputStream().skip(990));
+        assertEquals("\"abcd-1000\"", response.getHeader(HttpHeaders.ETAG));
+        verifyNoInteractions(store);
+    }
+
+    private ResponseEntity<Resource> download() throws Exception {
+        return support.download(file, "abc-123", MediaType.APPLICATION_PDF, "report.pdf", request, response);
+    }
+}
@@ -0,0 +1,106 @@
+package com.gsg.it4u.benchmark;
+
+import com.gsg.it4u.service.CsvEscaper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Old regex escaper from ReportService vs {@link CsvEscaper}, per field.
+ * Not a unit test: run {@link #main} from the IDE, or after
+ * {@code mvn test-compile} run {@code org.openjdk.jmh.Main CsvEscaperBenchmark -prof gc}
+ * on the test classpath to compare allocation rates as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvEscaperBenchmark {
+
+    @Param({ "plain", "comma", "multiline" })
+    public String shape;
+
+    private String field;
+    private final NullWriter writer = new NullWriter();
+
+    @Setup
+    public void setUp() {
+        field = switch (shape) {
+            case "plain" -> "Laptop does not boot after Windows update";
+            case "comma" -> "Printer on 3rd floor, \"HP-4200\", jams";
+            default -> "VPN drops every few minutes\r\nStarted Monday\nUser: j.doe";
+        };
+    }
+
+    @Benchmark
+    public void legacyRegex() throws IOException {
+        writer.write(legacyEscape(field));
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        CsvEscaper.writeField(writer, field);
+    }
+
+    /** Verbatim copy of the pre-streaming ReportService.escapeSpecialCharacters. */
+    private static String legacyEscape(String data) {
+        if (data == null) {
+            return "";
+        }
+        String escapedData = data.replaceAll("\\R", " ");
+        if (data.contains(",") || data.contains("\"") || data.contains("'")) {
+            data = data.replace("\"", "\"\"");
+            escapedData = "\"" + data + "\"";
+        }
+        return escapedData;
+    }
+
+    /** Sums chars so the JIT can't drop the writes. */
+    private static final class NullWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(String str) {
+            count += str.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CsvEscaperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.gsg.it4u.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private DataSource replica;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor lagMonitor;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        replica = database("replica");
+        replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("CREATE TABLE replica_lag (ms BIGINT)");
+        replicaJdbc.update("INSERT INTO replica_lag VALUES (0)");
+
+        lagMonitor = new ReplicaLagMonitor(replica, "SELECT ms FROM replica_lag", 2000, 15000, now::get);
+        lagMonitor.check();
+        routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @Test
+    void readOnlyTransaction_goesToReplica_writesToPrimary() {
+        assertEquals("replica", inTransaction(true, null));
+        assertEquals("primary", inTransaction(false, null));
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM whoami", String.class));
+        assertEquals(1, routing.getRoutedCount(ReplicaRoutingDataSource.Route.REPLICA));
+    }
+
+    @Test
+    void springDataRepositoryTransaction_staysOnPrimary() {
+        assertEquals("primary", inTransaction(true,
+                "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById"));
+        assertEquals("replica", inTransaction(true, "com.gsg.it4u.service.ReportService.getTickets"));
+    }
+
+    @Test
+    void laggingReplica_fallsBackToPrimary_untilCaughtUp() {
+        replicaJdbc.update("UPDATE replica_lag SET ms = 5000");
+        lagMonitor.check();
+        assertFalse(lagMonitor.isUsable());
+        assertEquals("primary", inTransaction(true, null));
+        assertEquals(1, routing.getFallbackCount());
+
+        replicaJdbc.update("UPDATE replica_lag SET ms = 100");
+        lagMonitor.check();
+        assertEquals("replica", inTransaction(true, null));
+    }
+
+    @Test
+    void unreachableOrStaleCheck_fallsBackToPrimary() {
+        replicaJdbc.execute("DROP TABLE replica_lag");
+        lagMonitor.check();
+        assertFalse(lagMonitor.isUsable());
+        assertEquals(-1, lagMonitor.getLagMs());
+
+        replicaJdbc.execute("CREATE TABLE replica_lag (ms BIGINT)");
+        replicaJdbc.update("INSERT INTO replica_lag VALUES (0)");
+        lagMonitor.check();
+        assertTrue(lagMonitor.isUsable());
+        now.addAndGet(15001);
+        assertFalse(lagMonitor.isUsable());
+        assertEquals("primary", inTransaction(true, null));
+    }
+
+    @Test
+    void bindMetrics_publishesPerRouteCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        routing.bindMetrics(registry);
+        inTransaction(true, null);
+        inTransaction(false, null);
+
+        assertEquals(1.0, registry.get("it4u.datasource.connections").tag("route", "replica").functionCounter()
+                .count());
+        assertTrue(registry.get("it4u.datasource.connections").tag("route", "primary").functionCounter()
+                .count() >= 1.0);
+        assertEquals(0.0, registry.get("it4u.datasource.replica.lag").gauge().value());
+    }
+
+    private String inTransaction(boolean readOnly, String name) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        template.setName(name);
+        return template.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,67 @@
+package com.gsg.it4u.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResizableLinkedBlockingQueueTest {
+
+    @Test
+    void offer_neverExceedsCapacityUnderConcurrentProducers() throws Exception {
+        ResizableLinkedBlockingQueue<Integer> queue = new ResizableLinkedBlockingQueue<>(100);
+        int producers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> accepted = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                accepted.add(pool.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (queue.offer(i)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> f : accepted) {
+                total += f.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(100, total);
+            assertEquals(100, queue.size());
+            assertEquals(0, queue.remainingCapacity());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void setCapacity_shrinkStopsOffersUntilDrained() {
+        ResizableLinkedBlockingQueue<Integer> queue = new ResizableLinkedBlockingQueue<>(3);
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        queue.setCapacity(1);
+        assertFalse(queue.offer(4));
+        queue.poll();
+        queue.poll();
+        assertFalse(queue.offer(4));
+        queue.poll();
+        assertTrue(queue.offer(4));
+        assertThrows(IllegalArgumentException.class, () -> queue.setCapacity(-1));
+    }
+}
@@ -1,12 +1,17 @@
 package com.gsg.it4u.controller;
 
+import com.gsg.it4u.api.FileDownloadSupport;
 import com.gsg.it4u.entity.Ticket;
 import com.gsg.it4u.entity.User;
 import com.gsg.it4u.repository.AttachmentRepository;
 import com.gsg.it4u.repository.TicketRepository;
 import com.gsg.it4u.repository.UserRepository;
+import com.gsg.it4u.service.AttachmentArchiveService;
 import com.gsg.it4u.service.StorageService;
+import com.gsg.it4u.service.ThumbnailService;
 import com.gsg.it4u.service.TicketAccessService;
+import com.gsg.it4u.service.storage.AttachmentCache;
+import com.gsg.it4u.service.storage.AttachmentStore;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -46,6 +51,21 @@ public class AttachmentControllerTest {
     @MockBean
     private TicketAccessService ticketAccessService;
 
+    @MockBean
+    private FileDownloadSupport fileDownloadSupport;
+
+    @MockBean
+    private AttachmentStore attachmentStore;
+
+    @MockBean
+    private ThumbnailService thumbnailService;
+
+    @MockBean
+    private AttachmentArchiveService attachmentArchiveService;
+
+    @MockBean
+    private AttachmentCache attachmentCache;
+
     // Mock Security Dependencies
     @MockBean(name = "customUserDetailsService")
     private org.springframework.security.core.userdetails.UserDetailsService customUserDetailsService;
@@ -71,7 +91,8 @@ public class AttachmentControllerTest {
         when(userRepository.findByUsername("employee")).thenReturn(Optional.of(user));
         when(ticketRepository.findById(100L)).thenReturn(Optional.of(ticket));
         when(ticketAccessService.canViewTicket(any(), any())).thenReturn(true);
-        when(storageService.store(any(), any())).thenReturn("uuid-filename");
+        when(storageService.store(any(), any(), anyLong(), any()))
+                .thenReturn(new StorageService.StoredFile("uuid-filename", 7, "ab12", null));
         when(attachmentRepository.save(any())).thenAnswer(i -> i.getArguments()[0]);
 
         MockMultipartFile file = new MockMultipartFile("file", "test.txt", "text/plain", "content".getBytes());
@@ -0,0 +1,99 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AttachmentArchiveServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    @Test
+    void write_storesCompressedTypes_deflatesText_andSkipsMissingFiles() throws Exception {
+        byte[] png = new byte[3000];
+        png[0] = (byte) 0x89;
+        byte[] pdf = "%PDF-1.4 big".repeat(100).getBytes(StandardCharsets.US_ASCII);
+        byte[] log = "line\n".repeat(2000).getBytes(StandardCharsets.US_ASCII);
+        write("blobs/aa/aa/png", png);
+        write("blobs/bb/bb/pdf", pdf);
+        write("7/legacy-log", log);
+        byte[] csv = "id,title\n1,Printer\n".repeat(500).getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(csv);
+        }
+        write("blobs/dd/dd/csv.gz", gzipped.toByteArray());
+
+        FileSystemAttachmentStore store = new FileSystemAttachmentStore(basePath);
+        AttachmentArchiveService service = new AttachmentArchiveService(store,
+                new StorageService(mock(AttachmentBlobRepository.class), store));
+        // pdf takes the larger-than-buffer path (CRC pass, then copy)
+        ReflectionTestUtils.setField(service, "bufferBytes", 1000L);
+        LocalDateTime uploaded = LocalDateTime.of(2026, 3, 2, 9, 30);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(List.of(
+                new AttachmentArchiveService.Entry("blobs/aa/aa/png", "screen.png", "image/png", null, uploaded),
+                new AttachmentArchiveService.Entry("blobs/cc/cc/gone", "gone.png", "image/png", null, uploaded),
+                new AttachmentArchiveService.Entry("blobs/bb/bb/pdf", "policy.pdf", "application/pdf", null, uploaded),
+                new AttachmentArchiveService.Entry("7/legacy-log", "app.log.txt", "text/plain", null, null),
+                new AttachmentArchiveService.Entry("blobs/dd/dd/csv.gz", "export.csv", "text/csv", "gzip", uploaded),
+                new AttachmentArchiveService.Entry("blobs/aa/aa/png", "screen.png", "image/png", null, uploaded)), out);
+
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null;) {
+                entries.put(entry.getName(), entry);
+                contents.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+
+        assertEquals(List.of("screen.png", "policy.pdf", "app.log.txt", "export.csv", "screen (2).png"),
+                List.copyOf(entries.keySet()));
+        assertEquals(ZipEntry.STORED, entries.get("screen.png").getMethod());
+        assertEquals(ZipEntry.STORED, entries.get("policy.pdf").getMethod());
+        assertEquals(ZipEntry.DEFLATED, entries.get("app.log.txt").getMethod());
+        assertArrayEquals(png, contents.get("screen (2).png"));
+        assertArrayEquals(pdf, contents.get("policy.pdf"));
+        assertArrayEquals(log, contents.get("app.log.txt"));
+        assertArrayEquals(csv, contents.get("export.csv"));
+        assertEquals(uploaded, entries.get("screen.png").getTimeLocal());
+    }
+
+    @Test
+    void uniqueName_flattensPathsAndNumbersRepeats() {
+        Set<String> taken = new HashSet<>();
+
+        assertEquals("..__etc_passwd", AttachmentArchiveService.uniqueName("../\\etc/passwd", taken));
+        assertEquals("Report.csv", AttachmentArchiveService.uniqueName("Report.csv", taken));
+        assertEquals("report (2).csv", AttachmentArchiveService.uniqueName("report.csv", taken));
+        assertEquals("attachment", AttachmentArchiveService.uniqueName(null, taken));
+    }
+
+    private void write(String key, byte[] content) throws Exception {
+        Path file = basePath.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+}
@@ -0,0 +1,63 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.AttachmentBlob;
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AttachmentIntegrityVerifierTest {
+
+    @TempDir
+    Path basePath;
+
+    @Test
+    void verifySample_flagsMissingAndTamperedBlobs() throws Exception {
+        AttachmentBlobRepository blobRepository = mock(AttachmentBlobRepository.class);
+        StorageService storageService = new StorageService(blobRepository, new FileSystemAttachmentStore(basePath));
+        ReflectionTestUtils.setField(storageService, "basePath", basePath.toString());
+
+        String intact = store(storageService, "first file\n");
+        String tampered = store(storageService, "second file\n");
+        try (var out = new GZIPOutputStream(
+                Files.newOutputStream(basePath.resolve(StorageService.blobKey(tampered, StorageService.GZIP))))) {
+            out.write("changed on disk\n".getBytes(StandardCharsets.UTF_8));
+        }
+        String missing = "ab".repeat(32);
+        when(blobRepository.findLeastRecentlyVerified(any())).thenReturn(List.of(blob(intact), blob(tampered),
+                blob(missing)));
+
+        int corrupt = new AttachmentIntegrityVerifier(blobRepository, storageService).verifySample();
+
+        assertEquals(2, corrupt);
+        verify(blobRepository).markVerified(eq(intact), any(), eq(false));
+        verify(blobRepository).markVerified(eq(tampered), any(), eq(true));
+        verify(blobRepository).markVerified(eq(missing), any(), eq(true));
+    }
+
+    private static String store(StorageService storageService, String content) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return storageService.store(new ByteArrayInputStream(bytes), 1L, 1000, "text/plain").sha256();
+    }
+
+    private static AttachmentBlob blob(String sha256) {
+        AttachmentBlob blob = new AttachmentBlob();
+        blob.setSha256(sha256);
+        blob.setSizeBytes(0L);
+        blob.setContentEncoding(StorageService.GZIP);
+        return blob;
+    }
+}
@@ -0,0 +1,165 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.Attachment;
+import com.gsg.it4u.entity.AttachmentBlob;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.repository.AttachmentRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.service.storage.AttachmentCache;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AttachmentReclaimerTest {
+
+    @TempDir
+    Path basePath;
+
+    private AttachmentRepository attachmentRepository;
+    private AttachmentBlobRepository blobRepository;
+    private TicketRepository ticketRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private AttachmentReclaimer reclaimer;
+
+    private final String sha256 = "ab".repeat(32);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        attachmentRepository = mock(AttachmentRepository.class);
+        blobRepository = mock(AttachmentBlobRepository.class);
+        ticketRepository = mock(TicketRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> registryProvider = mock(ObjectProvider.class);
+        when(registryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        FileSystemAttachmentStore store = new FileSystemAttachmentStore(basePath);
+        ThumbnailService thumbnailService = new ThumbnailService(store, mock(StorageService.class));
+        reclaimer = new AttachmentReclaimer(attachmentRepository, blobRepository, ticketRepository, store,
+                thumbnailService, mock(AttachmentCache.class), mock(PlatformTransactionManager.class),
+                registryProvider);
+        ReflectionTestUtils.setField(reclaimer, "basePath", basePath.toString());
+        ReflectionTestUtils.setField(reclaimer, "batchPauseMillis", 0L);
+
+        // Ticket 3: live, with a soft-deleted legacy file; ticket 9: hard-deleted, directory left behind
+        write("3/legacy-uuid", 100);
+        write("3/kept-uuid", 10);
+        write("9/old-uuid", 40);
+        write("thumbs/9/old-uuid-320.jpg", 5);
+        write(StorageService.blobKey(sha256), 1000);
+        write("thumbs/" + StorageService.blobKey(sha256) + "-320.jpg", 20);
+        write("incoming/in-flight", 7);
+
+        Ticket ticket = new Ticket();
+        ticket.setId(3L);
+        Attachment deleted = new Attachment();
+        deleted.setId(11L);
+        deleted.setTicket(ticket);
+        deleted.setStoredFileName("legacy-uuid");
+        deleted.setDeleted(true);
+        when(attachmentRepository.findByDeletedTrueAndDeletedAtBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0L),
+                any())).thenReturn(List.of(deleted));
+        when(attachmentRepository.deleteSoftDeleted(11L)).thenReturn(1);
+
+        AttachmentBlob blob = new AttachmentBlob();
+        blob.setSha256(sha256);
+        when(blobRepository.findUnreferenced(any(), eq(""), anyInt())).thenReturn(List.of(blob));
+        when(blobRepository.lockIfUnreferenced(eq(sha256), any())).thenReturn(Optional.of(blob));
+        when(blobRepository.deleteIfUnreferenced(eq(sha256), any())).thenReturn(1);
+        when(ticketRepository.isRetained(eq(3L), any())).thenReturn(true);
+    }
+
+    @Test
+    void dryRun_reportsEverythingAndDeletesNothing() throws Exception {
+        AttachmentReclaimer.Report report = reclaimer.reclaim(true);
+
+        assertTrue(report.dryRun());
+        assertEquals(1, report.softDeletedAttachments());
+        assertEquals(1, report.orphanBlobs());
+        assertEquals(1, report.orphanTicketDirectories());
+        assertEquals(100 + 1000 + 20 + 40 + 5, report.bytes());
+        assertTrue(report.sample().contains("3/legacy-uuid"));
+        assertTrue(Files.exists(basePath.resolve("3/legacy-uuid")));
+        assertTrue(Files.exists(basePath.resolve("9/old-uuid")));
+        assertTrue(Files.exists(basePath.resolve(StorageService.blobKey(sha256))));
+        verify(attachmentRepository, never()).deleteSoftDeleted(any());
+        verify(blobRepository, never()).lockIfUnreferenced(any(), any());
+        verify(blobRepository, never()).deleteIfUnreferenced(any(), any());
+        assertEquals(0, meterRegistry.counter("it4u.attachments.reclaimed.bytes").count());
+    }
+
+    @Test
+    void reclaim_deletesRowsFilesAndOrphanDirectories_andCountsBytes() throws Exception {
+        AttachmentReclaimer.Report report = reclaimer.reclaim(false);
+
+        assertEquals(1165, report.bytes());
+        assertFalse(Files.exists(basePath.resolve("3/legacy-uuid")));
+        assertTrue(Files.exists(basePath.resolve("3/kept-uuid")));
+        assertFalse(Files.exists(basePath.resolve("9")));
+        assertFalse(Files.exists(basePath.resolve("thumbs/9")));
+        assertFalse(Files.exists(basePath.resolve(StorageService.blobKey(sha256))));
+        assertFalse(Files.exists(basePath.resolve("thumbs/" + StorageService.blobKey(sha256) + "-320.jpg")));
+        assertTrue(Files.exists(basePath.resolve("incoming/in-flight")));
+        verify(attachmentRepository).deleteSoftDeleted(11L);
+        assertEquals(1165, meterRegistry.counter("it4u.attachments.reclaimed.bytes").count());
+    }
+
+    @Test
+    void reclaim_keepsBlobThatWasReferencedAgainMeanwhile() throws Exception {
+        when(blobRepository.lockIfUnreferenced(eq(sha256), any())).thenReturn(Optional.empty());
+
+        AttachmentReclaimer.Report report = reclaimer.reclaim(false);
+
+        assertEquals(0, report.orphanBlobs());
+        assertTrue(Files.exists(basePath.resolve(StorageService.blobKey(sha256))));
+        verify(blobRepository, never()).deleteIfUnreferenced(any(), any());
+    }
+
+    @Test
+    void reclaim_deletesBlobFileWhileHoldingItsRowLock() throws Exception {
+        Path file = basePath.resolve(StorageService.blobKey(sha256));
+        when(blobRepository.deleteIfUnreferenced(eq(sha256), any())).thenAnswer(invocation -> {
+            assertFalse(Files.exists(file), "file must be gone before the row, under the lock");
+            return 1;
+        });
+
+        reclaimer.reclaim(false);
+
+        var order = inOrder(blobRepository);
+        order.verify(blobRepository).lockIfUnreferenced(eq(sha256), any());
+        order.verify(blobRepository).deleteIfUnreferenced(eq(sha256), any());
+    }
+
+    @Test
+    void reclaim_keepsDirectoryOfTicketSoftDeletedWithinGracePeriod() throws Exception {
+        when(ticketRepository.isRetained(eq(9L), any())).thenReturn(true);
+
+        AttachmentReclaimer.Report report = reclaimer.reclaim(false);
+
+        assertEquals(0, report.orphanTicketDirectories());
+        assertTrue(Files.exists(basePath.resolve("9/old-uuid")));
+        verify(ticketRepository).isRetained(9L, report.cutoff());
+        verify(ticketRepository, never()).existsById(any());
+    }
+
+    private void write(String key, int size) throws Exception {
+        Path file = basePath.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}
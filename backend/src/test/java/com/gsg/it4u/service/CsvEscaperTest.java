@@ -0,0 +1,39 @@
+package com.gsg.it4u.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvEscaperTest {
+
+    private static String escape(String value) throws IOException {
+        StringWriter out = new StringWriter();
+        CsvEscaper.writeField(out, value);
+        return out.toString();
+    }
+
+    @Test
+    void plainAndNullFields() throws IOException {
+        assertEquals("Laptop broken", escape("Laptop broken"));
+        assertEquals("", escape(null));
+        assertEquals("", escape(""));
+    }
+
+    @Test
+    void quotesFieldsWithDelimitersAndDoublesQuotes() throws IOException {
+        assertEquals("\"a,b\"", escape("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", escape("say \"hi\""));
+        assertEquals("\"it's\"", escape("it's"));
+    }
+
+    @Test
+    void lineBreaksBecomeSingleSpaces() throws IOException {
+        assertEquals("line1 line2 line3", escape("line1\r\nline2\nline3"));
+        assertEquals("a  b", escape("a\r\rb"));
+        // Previously the quoted branch kept raw newlines and broke the row
+        assertEquals("\"x, y z\"", escape("x, y\nz"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.dto.LifecycleAnalyticsDTO;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class LifecycleAnalyticsServiceTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private LifecycleAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static Object[] row(String dimension, String value, long tickets) {
+        return new Object[] { dimension, value, tickets,
+                2L, 60.0, 90.0, 99.0,
+                3L, 600.0, 900.0, 990.0,
+                0L, null, null, null };
+    }
+
+    @Test
+    void mapsGroupingSetsRowsAndLabelsAssignees() {
+        User agent = new User();
+        agent.setId(5L);
+        agent.setFullName("Sam Agent");
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(agent));
+        when(ticketRepository.lifecyclePercentiles(LocalDateTime.of(2026, 1, 1, 0, 0),
+                LocalDateTime.of(2026, 2, 1, 0, 0))).thenReturn(List.of(
+                        row("ALL", "", 10), row("CATEGORY", "HARDWARE", 4), row("CATEGORY", "EMAIL", 6),
+                        row("PRIORITY", "HIGH", 10), row("ASSIGNEE", null, 3), row("ASSIGNEE", "5", 7),
+                        row("MONTH", "2026-01", 10)));
+
+        LifecycleAnalyticsDTO result = service.getLifecycleAnalytics(LocalDate.of(2026, 1, 1),
+                LocalDate.of(2026, 1, 31));
+
+        assertEquals(10, result.getOverall().getTickets());
+        assertEquals(60.0, result.getOverall().getApproval().getP50Seconds());
+        assertEquals(990.0, result.getOverall().getFirstResponse().getP99Seconds());
+        assertNull(result.getOverall().getResolve().getP50Seconds());
+        assertEquals(List.of("EMAIL", "HARDWARE"),
+                result.getByCategory().stream().map(LifecycleAnalyticsDTO.Group::getKey).toList());
+        assertEquals("Sam Agent", result.getByAssignee().get(0).getLabel());
+        assertEquals("Unassigned", result.getByAssignee().get(1).getLabel());
+        assertEquals("2026-01", result.getByMonth().get(0).getKey());
+    }
+
+    @Test
+    void cachesPerRangeUntilCleared() {
+        when(ticketRepository.lifecyclePercentiles(any(), any())).thenReturn(List.<Object[]>of(row("ALL", "", 1)));
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 31);
+
+        LifecycleAnalyticsDTO first = service.getLifecycleAnalytics(from, to);
+        assertSame(first, service.getLifecycleAnalytics(from, to));
+        service.getLifecycleAnalytics(from, to.plusDays(1));
+        verify(ticketRepository, times(2)).lifecyclePercentiles(any(), any());
+
+        service.clearCache();
+        assertNotSame(first, service.getLifecycleAnalytics(from, to));
+        verify(ticketRepository, times(3)).lifecyclePercentiles(any(), any());
+    }
+}
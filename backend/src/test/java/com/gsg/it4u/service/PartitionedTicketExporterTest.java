@@ -0,0 +1,238 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.TicketRepository;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PartitionedTicketExporterTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor executor;
+    private PartitionedTicketExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.initialize();
+        exporter = new PartitionedTicketExporter(ticketRepository, transactionManager, executor);
+        ReflectionTestUtils.setField(exporter, "minRows", 10L);
+        ReflectionTestUtils.setField(exporter, "partitionRows", 4L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void contiguous_widensEachRangeDownToTheOneBelow() {
+        List<PartitionedTicketExporter.IdRange> ranges = PartitionedTicketExporter.contiguous(List.of(
+                new Object[] { 900L, 1000L, 4L }, new Object[] { 12L, 40L, 4L }, new Object[] { 1L, 8L, 2L }));
+
+        assertEquals(List.of(new PartitionedTicketExporter.IdRange(41, 1000),
+                new PartitionedTicketExporter.IdRange(9, 40), new PartitionedTicketExporter.IdRange(1, 8)), ranges);
+        assertEquals(List.of(new PartitionedTicketExporter.IdRange(5, 5)),
+                PartitionedTicketExporter.contiguous(List.<Object[]>of(new Object[] { 5L, 5L, 1L })));
+    }
+
+    @Test
+    void partition_staysSerialBelowMinRows() {
+        when(ticketRepository.idRange(any())).thenReturn(new Object[] { 1L, 100L, 9L });
+        assertTrue(exporter.partition(null).isEmpty());
+
+        when(ticketRepository.idRange(any())).thenReturn(new Object[] { null, null, 0L });
+        assertTrue(exporter.partition(null).isEmpty());
+        verify(ticketRepository, never()).idPartitions(any(), anyLong());
+    }
+
+    @Test
+    void partition_placesBoundariesByRowCountNotIdSpan() {
+        // Ten matching tickets: eight crowded into ids 1..8, two far out at 999 and 1000
+        when(ticketRepository.idRange(any())).thenReturn(new Object[] { 1L, 1000L, 10L });
+        when(ticketRepository.idPartitions(any(), eq(4L))).thenReturn(List.of(
+                new Object[] { 7L, 1000L, 4L }, new Object[] { 3L, 6L, 4L }, new Object[] { 1L, 2L, 2L }));
+
+        assertEquals(List.of(new PartitionedTicketExporter.IdRange(7, 1000),
+                new PartitionedTicketExporter.IdRange(3, 6), new PartitionedTicketExporter.IdRange(1, 2)),
+                exporter.partition(null));
+    }
+
+    @Test
+    void partition_runsInTheExportsBoundedReadOnlyTransaction() {
+        ReflectionTestUtils.setField(exporter, "exportTimeoutSeconds", 60);
+        when(ticketRepository.idRange(any())).thenReturn(new Object[] { 1L, 100L, 9L });
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+        new QueryCancellation().bind();
+        try {
+            exporter.partition(null);
+        } finally {
+            QueryCancellation.unbind();
+        }
+
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(60, definition.getValue().getTimeout());
+        assertTrue(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    void render_deliversBlocksInPartitionOrder() throws IOException {
+        ReflectionTestUtils.setField(exporter, "window", 3);
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenAnswer(inv -> {
+            long[] range = bounds(inv.getArgument(0));
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            // Finish out of order
+            Thread.sleep(ThreadLocalRandom.current().nextInt(1, 20));
+            running.decrementAndGet();
+            return LongStream.rangeClosed(range[0], range[1]).mapToObj(PartitionedTicketExporterTest::ticket);
+        });
+        List<PartitionedTicketExporter.IdRange> partitions = ranges(100, 10);
+
+        List<Long> ids = new ArrayList<>();
+        exporter.render((root, query, cb) -> null, partitions, null, 100,
+                tickets -> tickets.map(Ticket::getId).toList(), ids::addAll);
+
+        List<Long> expected = new ArrayList<>();
+        for (long from = 91; from >= 1; from -= 10) {
+            LongStream.rangeClosed(from, from + 9).forEach(expected::add);
+        }
+        assertEquals(expected, ids);
+        assertTrue(maxConcurrent.get() <= 3);
+    }
+
+    @Test
+    void render_propagatesSinkFailure() {
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenAnswer(inv -> Stream.of(ticket(1)));
+        List<PartitionedTicketExporter.IdRange> partitions = ranges(100, 10);
+        AtomicInteger delivered = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> exporter.render((root, query, cb) -> null, partitions, null, 100,
+                tickets -> tickets.count(), block -> {
+                    if (delivered.incrementAndGet() == 2) {
+                        throw new IOException("Broken pipe");
+                    }
+                }));
+        assertEquals(2, delivered.get());
+    }
+
+    @Test
+    void render_stopsOnceTheRequestIsCancelled() {
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenAnswer(inv -> Stream.of(ticket(1)));
+        List<PartitionedTicketExporter.IdRange> partitions = ranges(100, 10);
+        QueryCancellation request = new QueryCancellation();
+        AtomicInteger delivered = new AtomicInteger();
+
+        request.bind();
+        try {
+            assertThrows(IOException.class, () -> exporter.render((root, query, cb) -> null, partitions, null, 100,
+                    tickets -> tickets.count(), block -> {
+                        if (delivered.incrementAndGet() == 2) {
+                            request.cancel(); // client went away
+                        }
+                    }));
+        } finally {
+            QueryCancellation.unbind();
+        }
+        assertEquals(2, delivered.get());
+    }
+
+    @Test
+    void stream_boundsTransactionByExportOrJobTimeout() throws IOException {
+        ReflectionTestUtils.setField(exporter, "exportTimeoutSeconds", 60);
+        ReflectionTestUtils.setField(exporter, "jobTimeoutSeconds", 600);
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenAnswer(inv -> Stream.empty());
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+        exporter.stream(null, null, 100, tickets -> tickets.forEach(t -> {
+        }));
+        new QueryCancellation().bind();
+        try {
+            exporter.stream(null, null, 100, tickets -> tickets.forEach(t -> {
+            }));
+        } finally {
+            QueryCancellation.unbind();
+        }
+
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertEquals(600, definitions.getAllValues().get(0).getTimeout());
+        assertEquals(60, definitions.getAllValues().get(1).getTimeout());
+        assertTrue(definitions.getValue().isReadOnly());
+    }
+
+    /** Ranges of {@code size} ids each over 1..{@code max}, highest first. */
+    private static List<PartitionedTicketExporter.IdRange> ranges(long max, long size) {
+        List<PartitionedTicketExporter.IdRange> ranges = new ArrayList<>();
+        for (long to = max; to > 0; to -= size) {
+            ranges.add(new PartitionedTicketExporter.IdRange(Math.max(1, to - size + 1), to));
+        }
+        return ranges;
+    }
+
+    /** Evaluates the partition spec against mocked criteria to recover its id bounds. */
+    @SuppressWarnings("unchecked")
+    private static synchronized long[] bounds(Specification<Ticket> spec) {
+        Root<Ticket> root = mock(Root.class);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<Object> id = mock(Path.class);
+        when(root.get("id")).thenReturn(id);
+        long[] range = new long[2];
+        when(cb.between(any(), any(Long.class), any(Long.class))).thenAnswer(inv -> {
+            range[0] = inv.getArgument(1);
+            range[1] = inv.getArgument(2);
+            return null;
+        });
+        spec.toPredicate(root, query, cb);
+        return range;
+    }
+
+    private static Ticket ticket(long id) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        return ticket;
+    }
+}
@@ -0,0 +1,60 @@
+package com.gsg.it4u.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCancellationTest {
+
+    @Test
+    void cancel_runsRegisteredActionsOnce_andSkipsClosedOnes() {
+        QueryCancellation cancellation = new QueryCancellation();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        cancellation.register(running::incrementAndGet);
+        cancellation.register(finished::incrementAndGet).close();
+
+        cancellation.cancel();
+        cancellation.cancel();
+
+        assertTrue(cancellation.isCancelled());
+        assertEquals(1, running.get());
+        assertEquals(0, finished.get());
+    }
+
+    @Test
+    void register_afterCancel_runsImmediately_andFailuresAreContained() {
+        QueryCancellation cancellation = new QueryCancellation();
+        cancellation.register(() -> {
+            throw new IllegalStateException("statement already closed");
+        });
+        cancellation.cancel();
+
+        AtomicInteger late = new AtomicInteger();
+        cancellation.register(late::incrementAndGet);
+        assertEquals(1, late.get());
+    }
+
+    @Test
+    void bind_isPerThread() throws InterruptedException {
+        QueryCancellation cancellation = new QueryCancellation();
+        cancellation.bind();
+        try {
+            assertSame(cancellation, QueryCancellation.current());
+            QueryCancellation[] seen = new QueryCancellation[1];
+            Thread other = new Thread(() -> seen[0] = QueryCancellation.current());
+            other.start();
+            other.join();
+            assertNull(seen[0]);
+        } finally {
+            QueryCancellation.unbind();
+        }
+        assertNull(QueryCancellation.current());
+        assertSame(QueryCancellation.Registration.NONE, QueryCancellation.guard(null, null));
+    }
+}
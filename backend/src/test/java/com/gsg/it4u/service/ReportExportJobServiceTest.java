@@ -0,0 +1,225 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gsg.it4u.dto.ReportExportJobDTO;
+import com.gsg.it4u.dto.ReportFilter;
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.event.ReportExportFinishedEvent;
+import com.gsg.it4u.repository.ReportExportJobRepository;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReportExportJobServiceTest {
+
+    @TempDir
+    Path exportDir;
+
+    @TempDir
+    Path storeDir;
+
+    private ReportExportJobRepository jobRepository;
+    private ReportService reportService;
+    private final Map<String, ReportExportJob> store = new HashMap<>();
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(ReportExportJobRepository.class);
+        reportService = mock(ReportService.class);
+        when(jobRepository.save(any())).thenAnswer(inv -> {
+            ReportExportJob job = inv.getArgument(0);
+            store.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(store.get(inv.<String>getArgument(0))));
+    }
+
+    private ReportExportJobService service(TaskExecutor executor) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ReportExportJobService service = new ReportExportJobService(jobRepository, reportService, executor,
+                objectMapper, events::add, new FileSystemAttachmentStore(storeDir));
+        ReflectionTestUtils.setField(service, "exportDir", exportDir.toString());
+        ReflectionTestUtils.setField(service, "retentionHours", 24L);
+        return service;
+    }
+
+    @Test
+    void submit_runsExportAndServesFile() throws Exception {
+        when(reportService.countTickets(any())).thenReturn(2L);
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(1);
+            out.write("a\nb\n".getBytes(StandardCharsets.UTF_8));
+            inv.<LongConsumer>getArgument(2).accept(2);
+            return null;
+        }).when(reportService).writeTicketsToCsv(any(), any(), any());
+        ReportExportJobService service = service(new SyncTaskExecutor());
+
+        ReportExportJobDTO submitted = service.submit(new ReportFilter(), ReportExportJob.Format.CSV, "admin");
+
+        ReportExportJobDTO job = service.getJob(submitted.getId());
+        assertEquals(ReportExportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getRowsWritten());
+        assertEquals(100, job.getProgressPercent());
+        assertEquals(4L, job.getSizeBytes());
+        assertEquals("/api/admin/reports/jobs/" + job.getId() + "/file", job.getDownloadUrl());
+        assertEquals(ReportExportJob.Status.COMPLETED, ((ReportExportFinishedEvent) events.get(0)).getStatus());
+
+        Resource file = service.getFile(job.getId());
+        assertEquals("a\nb\n", new String(file.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(exportDir.resolve(job.getId() + ".part")));
+        assertTrue(Files.exists(storeDir.resolve("report-exports/" + job.getId() + ".csv")));
+    }
+
+    @Test
+    void getFile_streamsFromStoreWithoutLocalFiles() throws Exception {
+        AttachmentStore remote = mock(AttachmentStore.class);
+        when(remote.size("report-exports/job-2.csv")).thenReturn(4L);
+        when(remote.get("report-exports/job-2.csv", 0, -1)).thenAnswer(
+                inv -> new ByteArrayInputStream("a\nb\n".getBytes(StandardCharsets.UTF_8)));
+        store.put("job-2", ReportExportJob.builder().id("job-2").format(ReportExportJob.Format.CSV)
+                .status(ReportExportJob.Status.COMPLETED).build());
+        ReportExportJobService service = new ReportExportJobService(jobRepository, reportService,
+                new SyncTaskExecutor(), new ObjectMapper(), events::add, remote);
+
+        Resource file = service.getFile("job-2");
+
+        assertEquals(4, file.contentLength());
+        // Readable more than once, e.g. by a mail attachment and then a retry
+        assertEquals("a\nb\n", new String(file.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals("a\nb\n", new String(file.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        when(remote.size("report-exports/job-2.csv")).thenReturn(-1L);
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.getFile("job-2"));
+        assertEquals(HttpStatus.GONE, ex.getStatusCode());
+    }
+
+    @Test
+    void failedExportIsRecordedAndNotDownloadable() throws Exception {
+        when(reportService.countTickets(any())).thenReturn(10L);
+        doThrow(new IllegalStateException("cursor closed")).when(reportService)
+                .writeTicketsToExcel(any(), any(), any());
+        ReportExportJobService service = service(new SyncTaskExecutor());
+
+        String id = service.submit(null, ReportExportJob.Format.XLSX, "admin").getId();
+
+        assertEquals(ReportExportJob.Status.FAILED, service.getJob(id).getStatus());
+        assertEquals("cursor closed", service.getJob(id).getErrorMessage());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.getFile(id));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        try (var files = Files.list(exportDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void submit_rejectsWith503WhenQueueIsFull() {
+        ReportExportJobService service = service(task -> {
+            throw new TaskRejectedException("full");
+        });
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.submit(new ReportFilter(), ReportExportJob.Format.JSONL, "admin"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+        assertEquals(ReportExportJob.Status.FAILED, store.values().iterator().next().getStatus());
+    }
+
+    @Test
+    void expireOldExports_deletesFileAndMarksExpired() throws Exception {
+        ReportExportJob job = ReportExportJob.builder().id("job-1").format(ReportExportJob.Format.CSV)
+                .status(ReportExportJob.Status.COMPLETED).completedAt(LocalDateTime.now().minusDays(2)).build();
+        store.put(job.getId(), job);
+        Files.createDirectories(storeDir.resolve("report-exports"));
+        Path file = Files.writeString(storeDir.resolve("report-exports/job-1.csv"), "x");
+        when(jobRepository.findByStatusAndCompletedAtBefore(eq(ReportExportJob.Status.COMPLETED), any()))
+                .thenReturn(List.of(job));
+        ReportExportJobService service = service(new SyncTaskExecutor());
+
+        service.expireOldExports();
+
+        assertFalse(Files.exists(file));
+        assertEquals(ReportExportJob.Status.EXPIRED, job.getStatus());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.getFile("job-1"));
+        assertEquals(HttpStatus.GONE, ex.getStatusCode());
+    }
+
+    @Test
+    void failInterruptedJobs_failsOnlyJobsWhoseHeartbeatStopped() throws Exception {
+        ReportExportJob orphaned = ReportExportJob.builder().id("orphaned").format(ReportExportJob.Format.CSV)
+                .status(ReportExportJob.Status.RUNNING).build();
+        ReportExportJob resumed = ReportExportJob.builder().id("resumed").format(ReportExportJob.Format.CSV)
+                .status(ReportExportJob.Status.RUNNING).build();
+        Path orphanedPart = Files.writeString(exportDir.resolve("orphaned.part"), "x");
+        Path resumedPart = Files.writeString(exportDir.resolve("resumed.part"), "x");
+        when(jobRepository.findByStatusInAndHeartbeatAtBefore(any(), any())).thenReturn(List.of(orphaned, resumed));
+        when(jobRepository.failIfStale(eq("orphaned"), any(), any(), any(), any(), any())).thenReturn(1);
+        // Its node refreshed the heartbeat between the query and the update
+        when(jobRepository.failIfStale(eq("resumed"), any(), any(), any(), any(), any())).thenReturn(0);
+        ReportExportJobService service = service(new SyncTaskExecutor());
+        ReflectionTestUtils.setField(service, "staleAfterMs", 300_000L);
+
+        LocalDateTime before = LocalDateTime.now();
+        service.failInterruptedJobs();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepository).findByStatusInAndHeartbeatAtBefore(
+                eq(EnumSet.of(ReportExportJob.Status.QUEUED, ReportExportJob.Status.RUNNING)), cutoff.capture());
+        assertFalse(cutoff.getValue().isBefore(before.minusMinutes(5)));
+        assertTrue(cutoff.getValue().isBefore(before.minusMinutes(4)));
+        verify(jobRepository).failIfStale(eq("orphaned"), any(), eq(cutoff.getValue()),
+                eq(ReportExportJob.Status.FAILED), any(), any());
+        assertFalse(Files.exists(orphanedPart));
+        assertTrue(Files.exists(resumedPart));
+        verify(jobRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void heartbeat_refreshesJobsHeldByThisNode_andTheyAreNeverFailedHere() {
+        List<Runnable> queued = new ArrayList<>();
+        ReportExportJobService service = service(queued::add);
+        String id = service.submit(new ReportFilter(), ReportExportJob.Format.CSV, "admin").getId();
+        when(jobRepository.findByStatusInAndHeartbeatAtBefore(any(), any())).thenReturn(List.of(store.get(id)));
+
+        service.heartbeat();
+        service.failInterruptedJobs();
+
+        verify(jobRepository).touchHeartbeat(eq(List.of(id)), any());
+        verify(jobRepository, never()).failIfStale(any(), any(), any(), any(), any(), any());
+
+        when(reportService.countTickets(any())).thenReturn(0L);
+        queued.forEach(Runnable::run);
+        clearInvocations(jobRepository);
+        service.heartbeat();
+        verify(jobRepository, never()).touchHeartbeat(any(), any());
+    }
+}
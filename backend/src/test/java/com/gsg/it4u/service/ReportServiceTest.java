@@ -0,0 +1,212 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gsg.it4u.dto.ReportFilter;
+import com.gsg.it4u.dto.TicketReportDTO;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.repository.TicketRepository;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportServiceTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PartitionedTicketExporter exporter;
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // idRange is unstubbed (null), so exports take the serial path
+        exporter = new PartitionedTicketExporter(ticketRepository, transactionManager,
+                new SimpleAsyncTaskExecutor());
+        reportService = new ReportService(ticketRepository, objectMapper, null, exporter);
+    }
+
+    @Test
+    void writeTicketsToExcel_streamsPastOldRowCap_andClosesCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        User requester = new User();
+        requester.setId(7L);
+        requester.setFullName("Jane Doe");
+        Stream<Ticket> tickets = IntStream.rangeClosed(1, 12_000).mapToObj(i -> ticket(i, requester))
+                .onClose(() -> closed.set(true));
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenReturn(tickets);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeTicketsToExcel(new ReportFilter(), out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Ticket Report");
+            assertEquals(12_000, sheet.getLastRowNum());
+            assertEquals("Ticket No", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("T-12000", sheet.getRow(12_000).getCell(0).getStringCellValue());
+            assertEquals("Jane Doe", sheet.getRow(1).getCell(7).getStringCellValue());
+        }
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void writeTicketsToExcel_partitioned_writesEveryBlockRowIncludingEmptyCells() throws Exception {
+        ReflectionTestUtils.setField(exporter, "minRows", 1L);
+        ReflectionTestUtils.setField(exporter, "partitionRows", 2L);
+        User requester = new User();
+        requester.setId(7L);
+        requester.setFullName("Jane Doe");
+        when(ticketRepository.idRange(any())).thenReturn(new Object[] { 1L, 6L, 6L });
+        when(ticketRepository.idPartitions(any(), eq(2L))).thenReturn(List.of(
+                new Object[] { 5L, 6L, 2L }, new Object[] { 3L, 4L, 2L }, new Object[] { 1L, 2L, 2L }));
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenAnswer(inv -> {
+            Ticket anonymous = ticket(2, null);
+            anonymous.setTitle("Printer \u00e9t\u00e9 " + "x".repeat(300));
+            return Stream.of(ticket(1, requester), anonymous);
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeTicketsToExcel(new ReportFilter(), out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Ticket Report");
+            assertEquals(6, sheet.getLastRowNum());
+            for (int row = 1; row <= 6; row += 2) {
+                assertEquals("T-1", sheet.getRow(row).getCell(0).getStringCellValue());
+                assertEquals("Jane Doe", sheet.getRow(row).getCell(7).getStringCellValue());
+                assertEquals("T-2", sheet.getRow(row + 1).getCell(0).getStringCellValue());
+                assertEquals("Printer \u00e9t\u00e9 " + "x".repeat(300),
+                        sheet.getRow(row + 1).getCell(1).getStringCellValue());
+                assertEquals("", sheet.getRow(row + 1).getCell(7).getStringCellValue());
+                assertEquals("", sheet.getRow(row + 1).getCell(3).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void writeTicketsToCsv_writesUtf8RowsWithEscaping() throws Exception {
+        User requester = new User();
+        requester.setId(7L);
+        requester.setFullName("Zo\u00eb M\u00fcller");
+        Ticket ticket = ticket(1, requester);
+        ticket.setTitle("Printer, 2nd floor\njams");
+        when(ticketRepository.streamAll(any(), any(), anyInt())).thenReturn(Stream.of(ticket));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeTicketsToCsv(new ReportFilter(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("Ticket No,Title,Category"));
+        assertTrue(lines[1].startsWith("T-1,\"Printer, 2nd floor jams\",,,OPEN,PENDING,UNASSIGNED,Zo\u00eb M\u00fcller,7,,,Unassigned,,2026-03-31 12:00:00,,"),
+                lines[1]);
+    }
+
+    @Test
+    void writeTicketsToJsonl_writesOneObjectPerLineAndReportsProgress() throws Exception {
+        User requester = new User();
+        requester.setId(7L);
+        when(ticketRepository.streamAll(any(), any(), anyInt()))
+                .thenReturn(IntStream.rangeClosed(1, 3).mapToObj(i -> ticket(i, requester)));
+        List<Long> progress = new ArrayList<>();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeTicketsToJsonl(new ReportFilter(), out, progress::add);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("T-2", objectMapper.readTree(lines[1]).get("ticketNumber").asText());
+        assertEquals("2026-03-31T12:00:00", objectMapper.readTree(lines[1]).get("createdAt").asText());
+        assertEquals(List.of(3L), progress);
+    }
+
+    @Test
+    void getTickets_servesRepeatFromCache_untilTicketChanges() {
+        User requester = new User();
+        requester.setId(7L);
+        when(ticketRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenAnswer(inv -> new PageImpl<>(List.of(ticket(1, requester))));
+        ReportFilter filter = new ReportFilter();
+        filter.setStatus(Ticket.Status.OPEN);
+        filter.setStartDate(LocalDateTime.of(2026, 1, 1, 0, 0));
+        ReportFilter equivalent = new ReportFilter();
+        equivalent.setStatus(Ticket.Status.OPEN);
+
+        Page<TicketReportDTO> first = reportService.getTickets(filter, PageRequest.of(0, 20));
+        assertSame(first, reportService.getTickets(equivalent, PageRequest.of(0, 20)));
+        verify(ticketRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+
+        reportService.getTickets(equivalent, PageRequest.of(1, 20));
+        verify(ticketRepository, times(2)).findAll(any(Specification.class), any(Pageable.class));
+
+        reportService.invalidateCachedReports();
+        assertNotSame(first, reportService.getTickets(filter, PageRequest.of(0, 20)));
+        verify(ticketRepository, times(3)).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void cachedReports_loadOnPrimary_soReloadAfterEvictionIsNotReplicaLagged() throws Exception {
+        for (String name : List.of("getTickets", "getTicketFacets")) {
+            Method method = Stream.of(ReportService.class.getMethods())
+                    .filter(m -> m.getName().equals(name)).findFirst().orElseThrow();
+            Transactional transactional = method.getAnnotation(Transactional.class);
+            assertFalse(transactional.readOnly(), name + " must not be routed to the replica");
+        }
+    }
+
+    private static Ticket ticket(int i, User requester) {
+        Ticket ticket = new Ticket();
+        ticket.setId((long) i);
+        ticket.setTicketNumber("T-" + i);
+        ticket.setTitle("Ticket " + i);
+        ticket.setRequester(requester);
+        ticket.setCreatedAt(LocalDateTime.of(2026, 3, 31, 12, 0));
+        return ticket;
+    }
+}
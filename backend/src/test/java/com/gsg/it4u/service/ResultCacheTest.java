@@ -0,0 +1,113 @@
+package com.gsg.it4u.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResultCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_reloadsAfterTtl() {
+        ResultCache<String, Integer> cache = new ResultCache<>(Duration.ofSeconds(10), 10, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(2, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void get_evictsOldestBeyondMaxEntries() {
+        ResultCache<Integer, Integer> cache = new ResultCache<>(Duration.ofSeconds(10), 2, now::get);
+        for (int i = 0; i < 3; i++) {
+            int key = i;
+            cache.get(key, () -> key);
+            now.incrementAndGet();
+        }
+        assertEquals(2, cache.size());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(0, loads::incrementAndGet);
+        cache.get(2, loads::incrementAndGet);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_concurrentMissesShareOneLoad() throws Exception {
+        ResultCache<String, Integer> cache = new ResultCache<>(Duration.ofSeconds(10), 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<Integer> leader = pool.submit(() -> cache.get("a", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return 42;
+            }));
+            while (loads.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<?>[] followers = new Future<?>[3];
+            for (int i = 0; i < followers.length; i++) {
+                followers[i] = pool.submit(() -> cache.get("a", loads::incrementAndGet));
+            }
+            while (cache.getShared() < followers.length) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals(42, leader.get(5, TimeUnit.SECONDS));
+            for (Future<?> follower : followers) {
+                assertEquals(42, follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_failedLoadPropagatesAndIsNotCached() {
+        ResultCache<String, Integer> cache = new ResultCache<>(Duration.ofSeconds(10), 10, now::get);
+        assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(7, cache.get("a", () -> 7));
+    }
+
+    @Test
+    void invalidateAll_duringLoad_doesNotStoreStaleResult() {
+        ResultCache<String, Integer> cache = new ResultCache<>(Duration.ofSeconds(10), 10, now::get);
+
+        assertEquals(1, cache.get("a", () -> {
+            cache.invalidateAll();
+            return 1;
+        }));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.get("a", () -> 2));
+        assertEquals(1, cache.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gsg.it4u.dto.ReportExportJobDTO;
+import com.gsg.it4u.dto.ReportFilter;
+import com.gsg.it4u.dto.ScheduledReportDTO;
+import com.gsg.it4u.dto.ScheduledReportRequest;
+import com.gsg.it4u.entity.ReportExportJob;
+import com.gsg.it4u.entity.ScheduledReport;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.event.ReportExportFinishedEvent;
+import com.gsg.it4u.repository.ScheduledReportRepository;
+import jakarta.mail.Multipart;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ScheduledReportServiceTest {
+
+    private ScheduledReportRepository repository;
+    private ReportExportJobService exportJobService;
+    private JavaMailSender mailSender;
+    private ScheduledReportService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(ScheduledReportRepository.class);
+        exportJobService = mock(ReportExportJobService.class);
+        mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage(Session.getInstance(new Properties())));
+        ObjectProvider<JavaMailSender> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mailSender);
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service = new ScheduledReportService(repository, exportJobService,
+                new ObjectMapper().registerModule(new JavaTimeModule()), provider);
+        ReflectionTestUtils.setField(service, "mailEnabled", true);
+        ReflectionTestUtils.setField(service, "senderAddress", "it4u@example.com");
+        ReflectionTestUtils.setField(service, "publicUrl", "https://it4u.example.com");
+        ReflectionTestUtils.setField(service, "maxAttachmentBytes", 100L);
+    }
+
+    @Test
+    void create_validatesCronAndRecipients_andSchedulesNextRun() {
+        ScheduledReportRequest request = request("0 0 6 * * MON");
+        request.getFilter().setStatus(Ticket.Status.OPEN);
+
+        ScheduledReportDTO created = service.create(request, "admin");
+
+        assertNotNull(created.getNextRunAt());
+        assertEquals(6, created.getNextRunAt().getHour());
+        assertEquals(DayOfWeek.MONDAY, created.getNextRunAt().getDayOfWeek());
+        assertEquals(Ticket.Status.OPEN, created.getFilter().getStatus());
+        assertEquals(List.of("a@example.com", "b@example.com"), created.getRecipients());
+
+        ResponseStatusException badCron = assertThrows(ResponseStatusException.class,
+                () -> service.create(request("every monday"), "admin"));
+        assertEquals(HttpStatus.BAD_REQUEST, badCron.getStatusCode());
+
+        ScheduledReportRequest noRecipients = request("0 0 6 * * MON");
+        noRecipients.setRecipients(List.of());
+        assertThrows(ResponseStatusException.class, () -> service.create(noRecipients, "admin"));
+    }
+
+    @Test
+    void runDueReports_submitsOnlyClaimedRuns() {
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1).withNano(0);
+        ScheduledReport claimed = report(1L, due);
+        ScheduledReport takenElsewhere = report(2L, due);
+        when(repository.findByEnabledTrueAndNextRunAtLessThanEqualOrderByNextRunAtAsc(any()))
+                .thenReturn(List.of(claimed, takenElsewhere));
+        when(repository.claimRun(eq(1L), eq(due), any(), any())).thenReturn(1);
+        when(repository.claimRun(eq(2L), eq(due), any(), any())).thenReturn(0);
+        when(exportJobService.submit(any(), eq(ReportExportJob.Format.CSV), eq("schedule:1")))
+                .thenReturn(ReportExportJobDTO.builder().id("job-1").build());
+
+        service.runDueReports();
+
+        verify(exportJobService, times(1)).submit(any(), any(), anyString());
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).claimRun(eq(1L), eq(due), next.capture(), any());
+        assertTrue(next.getValue().isAfter(LocalDateTime.now()));
+        verify(repository).recordQueued(1L, "job-1");
+        verify(repository, never()).recordQueued(eq(2L), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void runDueReports_retriesSoonWhenExportQueueIsFull() {
+        ScheduledReport report = report(1L, LocalDateTime.now().minusMinutes(1).withNano(0));
+        when(repository.findByEnabledTrueAndNextRunAtLessThanEqualOrderByNextRunAtAsc(any()))
+                .thenReturn(List.of(report));
+        when(repository.claimRun(any(), any(), any(), any())).thenReturn(1);
+        when(exportJobService.submit(any(), any(), anyString()))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "queue full"));
+
+        service.runDueReports();
+
+        ArgumentCaptor<LocalDateTime> retry = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).recordNotQueued(eq(1L), retry.capture(), eq("queue full"));
+        assertTrue(retry.getValue().isBefore(LocalDateTime.now().plusMinutes(16)));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void runDueReports_jobFinishingBeforeSubmitReturns_isStillMailed() throws Exception {
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1).withNano(0);
+        ScheduledReport report = report(1L, due);
+        when(repository.findByEnabledTrueAndNextRunAtLessThanEqualOrderByNextRunAtAsc(any()))
+                .thenReturn(List.of(report));
+        when(repository.findById(1L)).thenReturn(Optional.of(report));
+        when(repository.claimRun(any(), any(), any(), any())).thenReturn(1);
+        ReportExportJob job = job("job-1", 10L);
+        when(exportJobService.findJob("job-1")).thenReturn(job);
+        when(exportJobService.getFile("job-1")).thenReturn(new ByteArrayResource("a,b\n".getBytes()));
+        // The export thread publishes the finish event before submit() hands back the job id
+        when(exportJobService.submit(any(), any(), eq("schedule:1"))).thenAnswer(inv -> {
+            service.onExportFinished(new ReportExportFinishedEvent(this, "job-1", ReportExportJob.Status.COMPLETED));
+            return ReportExportJobDTO.builder().id("job-1").build();
+        });
+
+        service.runDueReports();
+
+        verify(mailSender).send(any(MimeMessage.class));
+        var order = inOrder(repository);
+        order.verify(repository).recordOutcome(1L, "job-1", "schedule:1", job.getCreatedAt(),
+                ScheduledReportService.MAILED, null);
+        order.verify(repository).recordQueued(1L, "job-1");
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void update_conflictsWithRunRecordedMeanwhile() {
+        when(repository.findById(1L)).thenReturn(Optional.of(report(1L, null)));
+        when(repository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(ScheduledReport.class, 1L));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.update(1L, request("0 0 7 * * MON")));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+
+    @Test
+    void onExportFinished_ignoresJobsNotRequestedBySchedule() {
+        ReportExportJob job = job("job-9", 10L);
+        job.setRequestedBy("alice");
+        when(exportJobService.findJob("job-9")).thenReturn(job);
+
+        service.onExportFinished(new ReportExportFinishedEvent(this, "job-9", ReportExportJob.Status.COMPLETED));
+
+        verifyNoInteractions(repository);
+        verifyNoInteractions(mailSender);
+        assertNull(ScheduledReportService.scheduleId("schedule:abc"));
+        assertEquals(12L, ScheduledReportService.scheduleId("schedule:12"));
+    }
+
+    @Test
+    void onExportFinished_mailsSmallFileAsAttachment() throws Exception {
+        ScheduledReport report = report(1L, null);
+        when(repository.findById(1L)).thenReturn(Optional.of(report));
+        ReportExportJob job = job("job-1", 10L);
+        when(exportJobService.findJob("job-1")).thenReturn(job);
+        when(exportJobService.getFile("job-1")).thenReturn(new ByteArrayResource("a,b\n".getBytes()));
+
+        service.onExportFinished(new ReportExportFinishedEvent(this, "job-1", ReportExportJob.Status.COMPLETED));
+
+        ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mailSender).send(sent.capture());
+        assertEquals(2, sent.getValue().getAllRecipients().length);
+        assertTrue(sent.getValue().getContent() instanceof Multipart);
+        verify(repository).recordOutcome(1L, "job-1", "schedule:1", job.getCreatedAt(),
+                ScheduledReportService.MAILED, null);
+    }
+
+    @Test
+    void onExportFinished_mailsLinkForLargeFile_andStoreDeliveryDoesNotMail() throws Exception {
+        ScheduledReport report = report(1L, null);
+        when(repository.findById(1L)).thenReturn(Optional.of(report));
+        when(exportJobService.findJob("job-1")).thenReturn(job("job-1", 5_000L));
+
+        service.onExportFinished(new ReportExportFinishedEvent(this, "job-1", ReportExportJob.Status.COMPLETED));
+
+        ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mailSender).send(sent.capture());
+        assertTrue(((String) sent.getValue().getContent())
+                .contains("https://it4u.example.com/api/admin/reports/jobs/job-1/file"));
+        verify(exportJobService, never()).getFile(any());
+
+        report.setDelivery(ScheduledReport.Delivery.STORE);
+        service.onExportFinished(new ReportExportFinishedEvent(this, "job-1", ReportExportJob.Status.COMPLETED));
+        verify(mailSender, times(1)).send(any(MimeMessage.class));
+        verify(repository).recordOutcome(eq(1L), eq("job-1"), eq("schedule:1"), any(),
+                eq(ScheduledReportService.COMPLETED), isNull());
+    }
+
+    private static ScheduledReportRequest request(String cron) {
+        ScheduledReportRequest request = new ScheduledReportRequest();
+        request.setName("Weekly open tickets");
+        request.setFormat(ReportExportJob.Format.CSV);
+        request.setFilter(new ReportFilter());
+        request.setCron(cron);
+        request.setDelivery(ScheduledReport.Delivery.EMAIL);
+        request.setRecipients(List.of("a@example.com", "b@example.com"));
+        return request;
+    }
+
+    private static ScheduledReport report(Long id, LocalDateTime nextRunAt) {
+        return ScheduledReport.builder()
+                .id(id)
+                .name("Weekly open tickets")
+                .format(ReportExportJob.Format.CSV)
+                .filterJson("{}")
+                .cron("0 0 6 * * MON")
+                .delivery(ScheduledReport.Delivery.EMAIL)
+                .recipients("a@example.com,b@example.com")
+                .nextRunAt(nextRunAt)
+                .build();
+    }
+
+    private static ReportExportJob job(String id, long sizeBytes) {
+        return ReportExportJob.builder()
+                .id(id)
+                .format(ReportExportJob.Format.CSV)
+                .status(ReportExportJob.Status.COMPLETED)
+                .requestedBy("schedule:1")
+                .fileName("tickets_report.csv")
+                .rowsWritten(1)
+                .sizeBytes(sizeBytes)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
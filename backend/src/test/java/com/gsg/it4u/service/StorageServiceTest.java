@@ -0,0 +1,175 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StorageServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private AttachmentBlobRepository blobRepository;
+    private StorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        blobRepository = mock(AttachmentBlobRepository.class);
+        storageService = new StorageService(blobRepository, new FileSystemAttachmentStore(basePath));
+        ReflectionTestUtils.setField(storageService, "basePath", basePath.toString());
+    }
+
+    @Test
+    void store_writesOnceWithSizeAndSha256() throws Exception {
+        byte[] pdf = new byte[200_000];
+        Arrays.fill(pdf, (byte) 'x');
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, pdf, 0, 8);
+
+        StorageService.StoredFile stored = storageService.store(new ByteArrayInputStream(pdf), 7L, 1_000_000,
+                "application/pdf");
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(pdf));
+        Path file = basePath.resolve(StorageService.key(7L, stored.storedFileName()));
+        assertEquals(basePath.resolve("blobs").resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4))
+                .resolve(sha256), file);
+        assertArrayEquals(pdf, Files.readAllBytes(file));
+        assertEquals(pdf.length, stored.sizeBytes());
+        assertEquals(sha256, stored.sha256());
+        assertEquals(sha256, stored.storedFileName());
+        verify(blobRepository).addReference(sha256, pdf.length, null);
+        assertNull(stored.contentEncoding());
+    }
+
+    @Test
+    void store_keepsIdenticalContentOnce() throws Exception {
+        byte[] csv = "id,title\n1,Printer\n".getBytes(StandardCharsets.UTF_8);
+
+        StorageService.StoredFile first = storageService.store(new ByteArrayInputStream(csv), 7L, 1000, "text/csv");
+        StorageService.StoredFile second = storageService.store(new ByteArrayInputStream(csv), 8L, 1000, "text/csv");
+
+        assertEquals(first.storedFileName(), second.storedFileName());
+        assertEquals(StorageService.key(7L, first.storedFileName(), first.contentEncoding()),
+                StorageService.key(8L, second.storedFileName(), second.contentEncoding()));
+        try (var files = Files.walk(basePath.resolve("blobs"))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+        verify(blobRepository, times(2)).addReference(first.sha256(), csv.length, StorageService.GZIP);
+        try (var files = Files.list(basePath.resolve("incoming"))) {
+            assertEquals(0, files.count());
+        }
+        assertEquals("7/legacy-uuid", StorageService.key(7L, "legacy-uuid"));
+    }
+
+    @Test
+    void store_restoresBlobReclaimedWhileItsReferenceWasTaken() throws Exception {
+        byte[] csv = "id,title\n1,Printer\n".getBytes(StandardCharsets.UTF_8);
+        StorageService.StoredFile first = storageService.store(new ByteArrayInputStream(csv), 7L, 1000, "text/csv");
+        Path blob = basePath.resolve(StorageService.key(7L, first.storedFileName(), first.contentEncoding()));
+        // The reclaimer held the row lock and deleted the file; the upsert waited for it to commit
+        doAnswer(invocation -> {
+            Files.delete(blob);
+            return 1;
+        }).when(blobRepository).addReference(anyString(), anyLong(), any());
+
+        StorageService.StoredFile second = storageService.store(new ByteArrayInputStream(csv), 8L, 1000, "text/csv");
+
+        assertEquals(first.storedFileName(), second.storedFileName());
+        assertTrue(Files.exists(blob));
+        try (var in = storageService.open(StorageService.key(8L, second.storedFileName(), second.contentEncoding()),
+                second.contentEncoding())) {
+            assertArrayEquals(csv, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void store_gzipsTextAtRest_andOpenInflatesIt() throws Exception {
+        byte[] log = "2026-03-02 09:30:00 INFO printer queue stalled\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+
+        StorageService.StoredFile stored = storageService.store(new ByteArrayInputStream(log), 7L, 1_000_000,
+                "text/plain; charset=UTF-8");
+
+        String key = StorageService.key(7L, stored.storedFileName(), stored.contentEncoding());
+        assertEquals(StorageService.GZIP, stored.contentEncoding());
+        assertEquals(StorageService.blobKey(stored.sha256()) + ".gz", key);
+        assertTrue(Files.size(basePath.resolve(key)) < log.length / 10);
+        assertEquals(log.length, stored.sizeBytes());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(log)), stored.sha256());
+        try (var in = storageService.open(key, stored.contentEncoding())) {
+            assertArrayEquals(log, in.readAllBytes());
+        }
+        assertEquals(stored.sha256(), storageService.hash(key, stored.contentEncoding()));
+    }
+
+    @Test
+    void store_stopsReadingOnceLimitIsCrossed_andLeavesNoFile() throws Exception {
+        CountingStream in = new CountingStream("hello\n".repeat(1_000_000).getBytes(StandardCharsets.US_ASCII));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> storageService.store(in, 7L, 100_000, "text/plain"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+        assertTrue(in.read < 200_000, "read " + in.read + " bytes");
+        try (var files = Files.list(basePath.resolve("incoming"))) {
+            assertEquals(0, files.count());
+        }
+        verifyNoInteractions(blobRepository);
+    }
+
+    @Test
+    void store_rejectsContentThatDoesNotMatchItsType() {
+        byte[] exe = { 'M', 'Z', (byte) 0x90, 0, 3, 0 };
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> storageService.store(new ByteArrayInputStream(exe), 7L, 1000, "image/png"));
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+        assertThrows(ResponseStatusException.class,
+                () -> storageService.store(new ByteArrayInputStream(exe), 7L, 1000, "text/plain"));
+        assertFalse(Files.exists(basePath.resolve("incoming")));
+    }
+
+    @Test
+    void fileSignatures_matchKnownTypes() {
+        byte[] png = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0 };
+        byte[] jpeg = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0 };
+        byte[] csv = "id,title\n1,Printer\n".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(FileSignatures.matches("image/png", png, png.length));
+        assertTrue(FileSignatures.matches("IMAGE/JPEG", jpeg, jpeg.length));
+        assertTrue(FileSignatures.matches("text/csv; charset=UTF-8", csv, csv.length));
+        assertFalse(FileSignatures.matches("image/png", png, 4));
+        assertFalse(FileSignatures.matches("application/zip", csv, csv.length));
+        assertFalse(FileSignatures.matches(null, csv, csv.length));
+    }
+
+    private static class CountingStream extends ByteArrayInputStream {
+        int read;
+
+        CountingStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            read += Math.max(n, 0);
+            return n;
+        }
+    }
+}
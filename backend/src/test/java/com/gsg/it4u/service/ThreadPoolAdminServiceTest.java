@@ -0,0 +1,79 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.config.AsyncConfig;
+import com.gsg.it4u.dto.ThreadPoolResizeRequest;
+import com.gsg.it4u.dto.ThreadPoolStatsDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadPoolAdminServiceTest {
+
+    private ThreadPoolTaskExecutor mailExecutor;
+    private MeterRegistry meterRegistry;
+    private ThreadPoolAdminService service;
+
+    @BeforeEach
+    void setUp() {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "mailCoreSize", 2);
+        ReflectionTestUtils.setField(config, "mailMaxSize", 5);
+        ReflectionTestUtils.setField(config, "mailQueueCapacity", 50);
+        mailExecutor = config.mailExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("meterRegistry", meterRegistry);
+        service = new ThreadPoolAdminService(mailExecutor, beans.getBeanProvider(ThreadPoolTaskScheduler.class),
+                beans.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailExecutor.shutdown();
+    }
+
+    @Test
+    void getStats_ShouldExposeMailPoolAndGauges() {
+        ThreadPoolStatsDTO mail = service.getStats().get(0);
+
+        assertEquals(ThreadPoolAdminService.MAIL, mail.getPool());
+        assertEquals(2, mail.getCorePoolSize());
+        assertEquals(5, mail.getMaxPoolSize());
+        assertEquals(50, mail.getQueueCapacity());
+        assertEquals(0L, mail.getRejectedCount());
+        assertEquals(5.0, meterRegistry.get("it4u.pool.max").tag("pool", "mail").gauge().value());
+    }
+
+    @Test
+    void resize_ShouldApplyNewSizesAtRuntime() {
+        ThreadPoolResizeRequest request = new ThreadPoolResizeRequest();
+        request.setCorePoolSize(8);
+        request.setMaxPoolSize(16);
+        request.setQueueCapacity(200);
+
+        ThreadPoolStatsDTO after = service.resize(ThreadPoolAdminService.MAIL, request);
+
+        assertEquals(8, after.getCorePoolSize());
+        assertEquals(16, after.getMaxPoolSize());
+        assertEquals(200, after.getQueueCapacity());
+        assertEquals(200, mailExecutor.getThreadPoolExecutor().getQueue().remainingCapacity());
+    }
+
+    @Test
+    void resize_ShouldRejectCoreAboveMax() {
+        ThreadPoolResizeRequest request = new ThreadPoolResizeRequest();
+        request.setCorePoolSize(10);
+
+        assertThrows(ResponseStatusException.class, () -> service.resize(ThreadPoolAdminService.MAIL, request));
+    }
+}
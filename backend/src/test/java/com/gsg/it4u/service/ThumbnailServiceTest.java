@@ -0,0 +1,81 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.repository.AttachmentBlobRepository;
+import com.gsg.it4u.service.storage.AttachmentStore;
+import com.gsg.it4u.service.storage.FileSystemAttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ThumbnailServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private AttachmentStore store;
+    private StorageService storageService;
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        store = new FileSystemAttachmentStore(basePath);
+        storageService = new StorageService(mock(AttachmentBlobRepository.class), store);
+        ReflectionTestUtils.setField(storageService, "basePath", basePath.toString());
+        thumbnailService = new ThumbnailService(store, storageService);
+    }
+
+    @Test
+    void getOrCreate_storesBoundedJpegNextToTheOriginal_once() throws Exception {
+        BufferedImage screenshot = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = screenshot.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(0, 0, 1000, 1000);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(screenshot, "png", png);
+        String sha256 = storageService.store(new ByteArrayInputStream(png.toByteArray()), 5L, 10_000_000,
+                "image/png").storedFileName();
+
+        String key = thumbnailService.getOrCreate(5L, sha256, "image/png");
+
+        assertEquals("thumbs/" + StorageService.blobKey(sha256) + "-320.jpg", key);
+        BufferedImage thumbnail = ImageIO.read(basePath.resolve(key).toFile());
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(160, thumbnail.getHeight());
+        // left half was blue, the transparent right half is flattened to white
+        Color right = new Color(thumbnail.getRGB(300, 80));
+        assertTrue(right.getRed() > 240 && right.getGreen() > 240 && right.getBlue() > 240, right.toString());
+        assertTrue(new Color(thumbnail.getRGB(20, 80)).getBlue() > 200);
+
+        Files.setLastModifiedTime(basePath.resolve(key), java.nio.file.attribute.FileTime.fromMillis(0));
+        assertEquals(key, thumbnailService.getOrCreate(5L, sha256, "image/png"));
+        assertEquals(0, Files.getLastModifiedTime(basePath.resolve(key)).toMillis());
+    }
+
+    @Test
+    void getOrCreate_skipsTypesWithoutThumbnailsAndUndecodableImages() throws Exception {
+        byte[] text = "not an image".getBytes(StandardCharsets.UTF_8);
+        String sha256 = "cd".repeat(32);
+        Path blob = basePath.resolve(StorageService.blobKey(sha256));
+        Files.createDirectories(blob.getParent());
+        Files.write(blob, text);
+
+        assertNull(thumbnailService.getOrCreate(5L, sha256, "application/pdf"));
+        assertNull(thumbnailService.getOrCreate(5L, sha256, "image/jpeg"));
+        assertFalse(Files.exists(basePath.resolve("thumbs")));
+    }
+}
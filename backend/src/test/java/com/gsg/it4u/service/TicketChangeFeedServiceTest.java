@@ -0,0 +1,145 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gsg.it4u.dto.FeedCommentDTO;
+import com.gsg.it4u.entity.EmailAudit;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.CommentRepository;
+import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TicketChangeFeedServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private TicketRepository ticketRepository;
+    private CommentRepository commentRepository;
+    private EmailAuditRepository emailAuditRepository;
+    private TicketChangeFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        emailAuditRepository = mock(EmailAuditRepository.class);
+        service = new TicketChangeFeedService(ticketRepository, commentRepository, emailAuditRepository,
+                objectMapper, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void cursor_roundTripsAndRejectsGarbage() {
+        TicketChangeFeedService.Cursor cursor = new TicketChangeFeedService.Cursor(
+                new TicketChangeFeedService.Position(T0, 7),
+                new TicketChangeFeedService.Position(T0.plusSeconds(1), 8),
+                TicketChangeFeedService.Cursor.START.audits());
+
+        assertEquals(cursor, service.parseSince(cursor.encode()));
+        assertEquals(TicketChangeFeedService.Cursor.since(T0), service.parseSince("2026-03-02T09:00:00"));
+        assertEquals(TicketChangeFeedService.Cursor.START, service.parseSince(null));
+
+        ResponseStatusException bad = assertThrows(ResponseStatusException.class,
+                () -> service.parseSince("not-a-cursor"));
+        assertEquals(HttpStatus.BAD_REQUEST, bad.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> service.parseIncludes(List.of("attachments")));
+        assertEquals(EnumSet.of(TicketChangeFeedService.Include.AUDIT), service.parseIncludes(List.of(" Audit ")));
+        assertEquals(10000, service.resolveLimit(1_000_000));
+    }
+
+    @Test
+    void writeFeed_endsWithCursorOfLastTicket_andFlagsFullPage() throws Exception {
+        when(ticketRepository.streamAll(any(), any(), anyInt(), eq(2)))
+                .thenReturn(Stream.of(ticket(3L, T0), ticket(1L, T0.plusMinutes(1))));
+
+        List<JsonNode> lines = write(TicketChangeFeedService.Cursor.START, Set.of(), 2);
+
+        assertEquals(3, lines.size());
+        assertEquals("ticket", lines.get(0).get("type").asText());
+        assertEquals(3L, lines.get(0).get("id").asLong());
+        assertEquals("INC-3", lines.get(0).get("data").get("ticketNumber").asText());
+        JsonNode end = lines.get(2);
+        assertEquals("end", end.get("type").asText());
+        assertTrue(end.get("hasMore").asBoolean());
+        assertEquals(lines.get(1).get("cursor").asText(), end.get("cursor").asText());
+
+        TicketChangeFeedService.Cursor next = service.parseSince(end.get("cursor").asText());
+        assertEquals(new TicketChangeFeedService.Position(T0.plusMinutes(1), 1L), next.tickets());
+        verifyNoInteractions(commentRepository, emailAuditRepository);
+    }
+
+    @Test
+    void writeFeed_resumesEachSectionFromItsOwnPosition() throws Exception {
+        TicketChangeFeedService.Cursor since = new TicketChangeFeedService.Cursor(
+                new TicketChangeFeedService.Position(T0, 5),
+                new TicketChangeFeedService.Position(T0.minusDays(1), 40),
+                new TicketChangeFeedService.Position(T0.minusDays(2), 90));
+        when(ticketRepository.streamAll(any(), any(), anyInt(), anyInt())).thenReturn(Stream.empty());
+        when(commentRepository.findFeedPage(eq(T0.minusDays(1)), eq(40L), any(), any()))
+                .thenReturn(List.of(new FeedCommentDTO(41L, 5L, "INC-5", "Rebooted", "jdoe", "J Doe", T0)));
+        when(emailAuditRepository.findFeedPage(eq(T0.minusDays(2)), eq(90L), any(), any()))
+                .thenReturn(List.of(EmailAudit.builder().id(91L).ticketId(5L).status("SENT").createdAt(T0).build()));
+
+        List<JsonNode> lines = write(since, EnumSet.allOf(TicketChangeFeedService.Include.class), 10);
+
+        assertEquals(List.of("comment", "email_audit", "end"),
+                lines.stream().map(line -> line.get("type").asText()).toList());
+        assertEquals("Rebooted", lines.get(0).get("data").get("content").asText());
+        assertFalse(lines.get(2).get("hasMore").asBoolean());
+
+        TicketChangeFeedService.Cursor next = service.parseSince(lines.get(2).get("cursor").asText());
+        assertEquals(since.tickets(), next.tickets());
+        assertEquals(new TicketChangeFeedService.Position(T0, 41L), next.comments());
+        assertEquals(new TicketChangeFeedService.Position(T0, 91L), next.audits());
+
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(commentRepository).findFeedPage(any(), any(), until.capture(), any(Pageable.class));
+        assertTrue(until.getValue().isBefore(LocalDateTime.now().minusSeconds(29)));
+    }
+
+    private List<JsonNode> write(TicketChangeFeedService.Cursor since, Set<TicketChangeFeedService.Include> include,
+            int limit) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeFeed(since, include, limit, out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static Ticket ticket(Long id, LocalDateTime updatedAt) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setTicketNumber("INC-" + id);
+        ticket.setTitle("Ticket " + id);
+        ticket.setCreatedAt(updatedAt.minusDays(1));
+        ticket.setUpdatedAt(updatedAt);
+        return ticket;
+    }
+}
@@ -0,0 +1,81 @@
+package com.gsg.it4u.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gsg.it4u.dto.FacetCountDTO;
+import com.gsg.it4u.dto.FacetedPage;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.repository.TicketRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TicketFacetServiceTest {
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final TicketFacetService service = new TicketFacetService(ticketRepository);
+
+    @Test
+    void foldsCombinationRowsIntoPerFacetCounts() {
+        when(ticketRepository.facetCombinations(any())).thenReturn(List.of(
+                new Object[] { Ticket.Status.OPEN, Ticket.Category.HARDWARE, Ticket.Priority.HIGH,
+                        Ticket.ManagerApprovalStatus.PENDING, 3L },
+                new Object[] { Ticket.Status.OPEN, Ticket.Category.SOFTWARE, Ticket.Priority.HIGH,
+                        Ticket.ManagerApprovalStatus.APPROVED, 2L },
+                new Object[] { Ticket.Status.CLOSED, Ticket.Category.HARDWARE, Ticket.Priority.LOW, null, 4L }));
+        when(ticketRepository.topAssignees(any(), eq(20))).thenReturn(List.of(
+                new Object[] { 5L, "Sam Agent", 7L }, new Object[] { null, null, 2L }));
+
+        Map<String, List<FacetCountDTO>> facets = service.facets(null);
+
+        assertEquals(List.of(new FacetCountDTO("OPEN", null, 5), new FacetCountDTO("CLOSED", null, 4)),
+                facets.get(TicketFacetService.STATUS));
+        assertEquals(List.of(new FacetCountDTO("HARDWARE", null, 7), new FacetCountDTO("SOFTWARE", null, 2)),
+                facets.get(TicketFacetService.CATEGORY));
+        assertEquals(List.of(new FacetCountDTO("HIGH", null, 5), new FacetCountDTO("LOW", null, 4)),
+                facets.get(TicketFacetService.PRIORITY));
+        assertEquals(3, facets.get(TicketFacetService.MANAGER_APPROVAL_STATUS).size());
+        assertEquals(List.of(new FacetCountDTO("5", "Sam Agent", 7), new FacetCountDTO("", "Unassigned", 2)),
+                facets.get(TicketFacetService.ASSIGNEE));
+    }
+
+    @Test
+    void assigneesBeyondTheCapAreSummedAsOthers() {
+        ReflectionTestUtils.setField(service, "maxAssignees", 2);
+        when(ticketRepository.facetCombinations(any())).thenReturn(List.<Object[]>of(
+                new Object[] { Ticket.Status.OPEN, Ticket.Category.HARDWARE, Ticket.Priority.HIGH, null, 100L }));
+        when(ticketRepository.topAssignees(any(), eq(2))).thenReturn(List.of(
+                new Object[] { 5L, "Sam Agent", 40L }, new Object[] { 9L, "Kim Agent", 25L }));
+
+        List<FacetCountDTO> assignees = service.facets(null).get(TicketFacetService.ASSIGNEE);
+
+        assertEquals(List.of(new FacetCountDTO("5", "Sam Agent", 40), new FacetCountDTO("9", "Kim Agent", 25),
+                new FacetCountDTO(null, "Others", 35)), assignees);
+        verify(ticketRepository).topAssignees(any(), eq(2));
+    }
+
+    @Test
+    void facetedPageKeepsPageJsonShapeAndAddsFacets() throws Exception {
+        FacetedPage<String> page = new FacetedPage<>(new PageImpl<>(List.of("a"), PageRequest.of(0, 10), 1),
+                Map.of("status", List.of(new FacetCountDTO("OPEN", null, 1))));
+
+        JsonNode json = new ObjectMapper().valueToTree(page);
+
+        assertEquals("a", json.get("content").get(0).asText());
+        assertEquals(1, json.get("page").get("totalElements").asInt());
+        assertEquals(1, json.get("facets").get("status").get(0).get("count").asInt());
+        assertNull(json.get("pageable"));
+    }
+}
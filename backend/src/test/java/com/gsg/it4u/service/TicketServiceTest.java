@@ -0,0 +1,90 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.event.TicketCreatedEvent;
+import com.gsg.it4u.repository.CommentRepository;
+import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.UserRepository;
+import com.gsg.it4u.service.mail.EmailMessageIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TicketServiceTest {
+
+    private TicketRepository ticketRepository;
+    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private EmailMessageIdGenerator messageIdGenerator;
+    private TicketService ticketService;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        userRepository = mock(UserRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        messageIdGenerator = spy(new EmailMessageIdGenerator());
+        ReflectionTestUtils.setField(messageIdGenerator, "threadDomain", "it4u.test");
+        ticketService = new TicketService(ticketRepository, mock(CommentRepository.class), userRepository,
+                new TicketAccessService(), eventPublisher, mock(EmailAuditRepository.class), messageIdGenerator);
+    }
+
+    @Test
+    void createTicket_allocatesThreadRootOnceBeforeAnyMailIsSent() {
+        User requester = new User();
+        requester.setId(7L);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(requester));
+        when(ticketRepository.save(any())).thenAnswer(inv -> {
+            Ticket saved = inv.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(42L);
+            }
+            return saved;
+        });
+        Ticket ticket = new Ticket();
+        ticket.setTitle("Laptop will not boot");
+        ticket.setCategory(Ticket.Category.HARDWARE);
+        ticket.setRequester(requester);
+
+        Ticket created = ticketService.createTicket(ticket);
+
+        String root = created.getEmailThreadMessageId();
+        assertNotNull(root);
+        assertEquals(42L, messageIdGenerator.parseTicketId(root));
+        verify(messageIdGenerator, times(1)).generate(any());
+        // The creation event, and so the creation mail, already carries the persisted root
+        ArgumentCaptor<TicketCreatedEvent> event = ArgumentCaptor.forClass(TicketCreatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(root, event.getValue().getTicket().getEmailThreadMessageId());
+        ArgumentCaptor<Ticket> saved = ArgumentCaptor.forClass(Ticket.class);
+        verify(ticketRepository, times(2)).save(saved.capture());
+        assertEquals(root, saved.getAllValues().get(1).getEmailThreadMessageId());
+    }
+
+    @Test
+    void backfillEmailThreadIds_onlyFillsMissingRoots_andIsIdempotent() {
+        when(ticketRepository.findIdsWithoutEmailThreadMessageId()).thenReturn(List.of(3L, 5L), List.of());
+        when(ticketRepository.assignEmailThreadMessageIdIfAbsent(eq(3L), anyString())).thenReturn(1);
+        // Ticket 5 got its root from another node between the select and the update
+        when(ticketRepository.assignEmailThreadMessageIdIfAbsent(eq(5L), anyString())).thenReturn(0);
+
+        assertEquals(1, ticketService.backfillEmailThreadIds());
+        assertEquals(0, ticketService.backfillEmailThreadIds());
+
+        ArgumentCaptor<String> root = ArgumentCaptor.forClass(String.class);
+        verify(ticketRepository).assignEmailThreadMessageIdIfAbsent(eq(3L), root.capture());
+        assertEquals(3L, messageIdGenerator.parseTicketId(root.getValue()));
+        verify(ticketRepository, times(2)).assignEmailThreadMessageIdIfAbsent(anyLong(), anyString());
+    }
+}
@@ -0,0 +1,139 @@
+package com.gsg.it4u.service;
+
+import com.gsg.it4u.dto.TicketStatsSummaryDTO;
+import com.gsg.it4u.entity.JobWatermark;
+import com.gsg.it4u.entity.TicketStatsDaily;
+import com.gsg.it4u.entity.TicketStatsDaily.Dimension;
+import com.gsg.it4u.repository.JobWatermarkRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.TicketStatsDailyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TicketStatsRollupServiceTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private TicketStatsDailyRepository statsRepository;
+
+    @Mock
+    private JobWatermarkRepository watermarkRepository;
+
+    @InjectMocks
+    private TicketStatsRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void refresh_recomputesOnlyTouchedDayRanges_andAdvancesWatermark() {
+        JobWatermark watermark = new JobWatermark(TicketStatsRollupService.JOB_NAME);
+        watermark.setLastTimestamp(LocalDateTime.of(2026, 3, 10, 9, 0));
+        when(watermarkRepository.findForUpdate(TicketStatsRollupService.JOB_NAME)).thenReturn(Optional.of(watermark));
+        LocalDateTime high = LocalDateTime.of(2026, 3, 10, 9, 5);
+        when(ticketRepository.findMaxUpdatedAt()).thenReturn(high);
+        when(ticketRepository.findStatDaysTouchedSince(LocalDateTime.of(2026, 3, 10, 8, 58))).thenReturn(List.of(
+                java.sql.Date.valueOf("2026-03-01"), java.sql.Date.valueOf("2026-03-02"),
+                java.sql.Date.valueOf("2026-03-10")));
+        when(ticketRepository.aggregateDailyStats(any(), any())).thenReturn(List.of());
+        List<Object[]> march10 = List.<Object[]>of(
+                new Object[] { java.sql.Date.valueOf("2026-03-10"), "STATUS", "OPEN", 3L },
+                new Object[] { java.sql.Date.valueOf("2026-03-10"), "CLOSED", "", 1L });
+        when(ticketRepository.aggregateDailyStats(LocalDateTime.of(2026, 3, 10, 0, 0),
+                LocalDateTime.of(2026, 3, 11, 0, 0))).thenReturn(march10);
+
+        int days = service.refresh();
+
+        assertEquals(3, days);
+        verify(statsRepository).deleteByStatDateRange(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 3));
+        verify(statsRepository).deleteByStatDateRange(LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 11));
+        verify(ticketRepository).aggregateDailyStats(LocalDateTime.of(2026, 3, 1, 0, 0),
+                LocalDateTime.of(2026, 3, 3, 0, 0));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TicketStatsDaily>> saved = ArgumentCaptor.forClass(List.class);
+        verify(statsRepository, times(2)).saveAll(saved.capture());
+        List<TicketStatsDaily> rows = saved.getAllValues().get(1);
+        assertEquals(2, rows.size());
+        assertEquals(Dimension.STATUS, rows.get(0).getDimension());
+        assertEquals(3L, rows.get(0).getTicketCount());
+        assertEquals(high, watermark.getLastTimestamp());
+        verify(statsRepository, never()).deleteAllInBatch();
+    }
+
+    @Test
+    void refresh_withoutWatermark_rebuildsFromFirstTicket() {
+        when(watermarkRepository.findForUpdate(any())).thenReturn(Optional.empty());
+        when(ticketRepository.findMaxUpdatedAt()).thenReturn(LocalDateTime.now());
+        when(ticketRepository.findFirstCreatedDay()).thenReturn(java.sql.Date.valueOf(LocalDate.now().minusDays(99)));
+        when(ticketRepository.aggregateDailyStats(any(), any())).thenReturn(List.of());
+
+        int days = service.refresh();
+
+        assertEquals(100, days);
+        verify(statsRepository).deleteAllInBatch();
+        // 100 days in 90-day chunks
+        verify(ticketRepository, times(2)).aggregateDailyStats(any(), any());
+        verify(watermarkRepository).save(any(JobWatermark.class));
+    }
+
+    @Test
+    void summarize_foldsDimensionsAndDailyFlow() {
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 3, 2);
+        when(statsRepository.sumByDimension(from, LocalDate.of(2026, 3, 3))).thenReturn(List.of(
+                new Object[] { Dimension.STATUS, "OPEN", 4L },
+                new Object[] { Dimension.STATUS, "CLOSED", 2L },
+                new Object[] { Dimension.PRIORITY, "HIGH", 6L },
+                new Object[] { Dimension.OPENED, "", 6L },
+                new Object[] { Dimension.CLOSED, "", 2L }));
+        when(statsRepository.findByStatDateGreaterThanEqualAndStatDateLessThanAndDimensionInOrderByStatDateAsc(
+                eq(from), eq(LocalDate.of(2026, 3, 3)), any())).thenReturn(List.of(
+                        stat(from, Dimension.OPENED, 5), stat(to, Dimension.OPENED, 1), stat(to, Dimension.CLOSED, 2)));
+
+        TicketStatsSummaryDTO summary = service.summarize(from, to);
+
+        assertEquals(6, summary.getOpened());
+        assertEquals(2, summary.getClosed());
+        assertEquals(4L, summary.getByStatus().get("OPEN"));
+        assertEquals(6L, summary.getByPriority().get("HIGH"));
+        assertEquals(2, summary.getDaily().size());
+        assertEquals(0, summary.getDaily().get(0).getClosed());
+        assertEquals(2, summary.getDaily().get(1).getClosed());
+    }
+
+    @Test
+    void contiguousRanges_splitsOnGaps() {
+        TreeSet<LocalDate> days = new TreeSet<>(List.of(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 2, 1),
+                LocalDate.of(2026, 2, 3)));
+
+        List<LocalDate[]> ranges = TicketStatsRollupService.contiguousRanges(days);
+
+        assertEquals(2, ranges.size());
+        assertEquals(LocalDate.of(2026, 2, 2), ranges.get(0)[1]);
+        assertEquals(LocalDate.of(2026, 2, 3), ranges.get(1)[0]);
+        assertEquals(LocalDate.of(2026, 2, 4), ranges.get(1)[1]);
+    }
+
+    private static TicketStatsDaily stat(LocalDate day, Dimension dimension, long count) {
+        return TicketStatsDaily.builder().statDate(day).dimension(dimension).ticketCount(count).build();
+    }
+}
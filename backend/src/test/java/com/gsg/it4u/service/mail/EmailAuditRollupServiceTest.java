@@ -0,0 +1,128 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.constant.EmailEventType;
+import com.gsg.it4u.dto.EmailDeliverySummaryDTO;
+import com.gsg.it4u.entity.EmailAudit;
+import com.gsg.it4u.entity.EmailAuditHourly;
+import com.gsg.it4u.entity.JobWatermark;
+import com.gsg.it4u.repository.EmailAuditHourlyRepository;
+import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.repository.JobWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EmailAuditRollupServiceTest {
+
+    @Mock
+    private EmailAuditRepository emailAuditRepository;
+
+    @Mock
+    private EmailAuditHourlyRepository hourlyRepository;
+
+    @Mock
+    private JobWatermarkRepository watermarkRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailAuditRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rollupService = new EmailAuditRollupService(emailAuditRepository, hourlyRepository, watermarkRepository,
+                transactionManager);
+        when(watermarkRepository.findForUpdate(EmailAuditRollupService.JOB_NAME))
+                .thenReturn(Optional.of(new JobWatermark(EmailAuditRollupService.JOB_NAME)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollup_ShouldAggregateByDomainAndAdvanceWatermark() {
+        LocalDateTime sentAt = LocalDateTime.of(2025, 1, 10, 9, 15);
+        EmailAudit sent = EmailAudit.builder().id(11L).eventType(EmailEventType.TICKET_CREATED)
+                .toEmail("a@corp.com,b@Corp.com").status("SENT").sentAt(sentAt).build();
+        EmailAudit failed = EmailAudit.builder().id(12L).eventType(EmailEventType.TICKET_CREATED)
+                .toEmail("c@other.org").status("FAILED").errorMessage("535 Authentication failed\nmore")
+                .sentAt(sentAt.plusMinutes(20)).build();
+
+        when(emailAuditRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(sent, failed));
+
+        int processed = rollupService.rollup();
+
+        assertEquals(2, processed);
+        ArgumentCaptor<Collection<EmailAuditHourly>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(hourlyRepository, times(1)).addCounts(rows.capture());
+        verify(hourlyRepository, never()).save(any());
+        assertEquals(2, rows.getValue().size());
+        EmailAuditHourly sentRow = rows.getValue().stream()
+                .filter(r -> "SENT".equals(r.getStatus())).findFirst().orElseThrow();
+        assertEquals("corp.com", sentRow.getRecipientDomain());
+        assertEquals(1L, sentRow.getMessageCount());
+        EmailAuditHourly failedRow = rows.getValue().stream()
+                .filter(r -> "FAILED".equals(r.getStatus())).findFirst().orElseThrow();
+        assertEquals("other.org", failedRow.getRecipientDomain());
+        assertEquals("535 Authentication failed", failedRow.getFailureReason());
+        assertEquals(LocalDateTime.of(2025, 1, 10, 9, 0), failedRow.getBucketStart());
+
+        ArgumentCaptor<JobWatermark> watermark = ArgumentCaptor.forClass(JobWatermark.class);
+        verify(watermarkRepository).save(watermark.capture());
+        assertEquals(12L, watermark.getValue().getLastId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollup_ShouldStopAtFirstUnsettledRow() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailAudit settled = EmailAudit.builder().id(11L).eventType(EmailEventType.TICKET_CREATED)
+                .toEmail("a@corp.com").status("SENT").createdAt(now.minusMinutes(10)).build();
+        EmailAudit recent = EmailAudit.builder().id(12L).eventType(EmailEventType.TICKET_CREATED)
+                .toEmail("b@corp.com").status("SENT").createdAt(now).build();
+        EmailAudit olderButLaterId = EmailAudit.builder().id(13L).eventType(EmailEventType.TICKET_CREATED)
+                .toEmail("c@corp.com").status("SENT").createdAt(now.minusMinutes(10)).build();
+        when(emailAuditRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(settled, recent, olderButLaterId));
+
+        assertEquals(1, rollupService.rollup());
+
+        ArgumentCaptor<Collection<EmailAuditHourly>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(hourlyRepository).addCounts(rows.capture());
+        assertEquals(1L, rows.getValue().iterator().next().getMessageCount());
+        ArgumentCaptor<JobWatermark> watermark = ArgumentCaptor.forClass(JobWatermark.class);
+        verify(watermarkRepository).save(watermark.capture());
+        assertEquals(11L, watermark.getValue().getLastId());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void summarize_ShouldSplitSentAndFailedCounts() {
+        when(hourlyRepository.summarizeBetween(any(), any())).thenReturn(List.of(
+                new Object[] { EmailEventType.TICKET_CREATED, "SENT", "corp.com", "", 5L },
+                new Object[] { EmailEventType.TICKET_CREATED, "FAILED", "corp.com", "timeout", 2L }));
+
+        List<EmailDeliverySummaryDTO> summary = rollupService.summarize(LocalDateTime.now().minusDays(1),
+                LocalDateTime.now());
+
+        assertEquals(1, summary.size());
+        assertEquals(5L, summary.get(0).getSentCount());
+        assertEquals(2L, summary.get(0).getFailedCount());
+        assertEquals(Collections.singletonMap("timeout", 2L), summary.get(0).getFailureReasons());
+    }
+}
@@ -0,0 +1,239 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.entity.Comment;
+import com.gsg.it4u.entity.InboundMailReceipt;
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.repository.CommentRepository;
+import com.gsg.it4u.repository.InboundMailReceiptRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import com.gsg.it4u.repository.UserRepository;
+import com.gsg.it4u.service.TicketAccessService;
+import com.gsg.it4u.service.TicketService;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InboundMailServiceTest {
+
+    private static final String ROOT_ID = "<42.1700000000000.abcd1234@it4u.test>";
+
+    private TicketRepository ticketRepository;
+    private UserRepository userRepository;
+    private TicketService ticketService;
+    private InboundMailReceiptRepository receiptRepository;
+    private CommentRepository commentRepository;
+    private InboundMailService service;
+
+    private User requester;
+    private User stranger;
+    private Ticket ticket;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        userRepository = mock(UserRepository.class);
+        ticketService = mock(TicketService.class);
+        receiptRepository = mock(InboundMailReceiptRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        service = new InboundMailService(new InboundReplyParser(), ticketRepository, userRepository,
+                new TicketAccessService(), ticketService, receiptRepository, commentRepository);
+        ReflectionTestUtils.setField(service, "maxRepliesPerWindow", 3);
+
+        requester = user(7L, "alice@example.com", User.Role.EMPLOYEE);
+        stranger = user(8L, "mallory@example.com", User.Role.IT_SUPPORT);
+        ticket = new Ticket();
+        ticket.setId(42L);
+        ticket.setRequester(requester);
+        ticket.setEmailThreadMessageId(ROOT_ID);
+        when(ticketRepository.findFirstByEmailThreadMessageIdIn(argThat(ids -> ids.contains(ROOT_ID))))
+                .thenReturn(Optional.of(ticket));
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(requester));
+        when(userRepository.findByEmail("mallory@example.com")).thenReturn(Optional.of(stranger));
+        Comment comment = new Comment();
+        comment.setId(99L);
+        when(ticketService.addComment(eq(42L), any(), anyString())).thenReturn(comment);
+    }
+
+    @Test
+    void process_appendsReplyToTicketMatchedByRootId() throws Exception {
+        InboundMailReceipt.Status status = service.process(parse("alice@example.com", "In-Reply-To: " + ROOT_ID));
+
+        assertEquals(InboundMailReceipt.Status.APPLIED, status);
+        verify(ticketService).addComment(42L, requester, "Still broken after the restart.");
+        assertEquals(99L, savedReceipt().getCommentId());
+    }
+
+    @Test
+    void process_matchesReplyToNonRootNotificationThroughItsReferences() throws Exception {
+        InboundMailReceipt.Status status = service.process(parse("alice@example.com",
+                "In-Reply-To: <42.1700000009999.ffff0000@it4u.test>\nReferences: " + ROOT_ID
+                        + " <42.1700000009999.ffff0000@it4u.test>"));
+
+        assertEquals(InboundMailReceipt.Status.APPLIED, status);
+        verify(ticketService).addComment(42L, requester, "Still broken after the restart.");
+    }
+
+    @Test
+    void process_doesNotTrustTicketScopedIdWithoutStoredRoot() throws Exception {
+        InboundMailReceipt.Status status = service.process(
+                parse("alice@example.com", "References: <42.1700000009999.ffff0000@it4u.test>"));
+
+        assertEquals(InboundMailReceipt.Status.UNMATCHED, status);
+        verify(ticketRepository, never()).findById(anyLong());
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    void process_recordsUnmatchedWhenNoThreadIsReferenced() throws Exception {
+        assertEquals(InboundMailReceipt.Status.UNMATCHED,
+                service.process(parse("alice@example.com", "In-Reply-To: <foreign@client>")));
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    void process_skipsMessageAlreadyProcessed() throws Exception {
+        when(receiptRepository.findByMessageId("<reply-1@client>")).thenReturn(Optional.of(
+                InboundMailReceipt.builder().messageId("<reply-1@client>")
+                        .status(InboundMailReceipt.Status.APPLIED).build()));
+
+        assertNull(service.process(parse("alice@example.com", "In-Reply-To: " + ROOT_ID)));
+        verifyNoInteractions(ticketService);
+        verify(receiptRepository, never()).save(any());
+    }
+
+    @Test
+    void process_retriesMessageThatFailedBefore() throws Exception {
+        InboundMailReceipt failed = InboundMailReceipt.builder().messageId("<reply-1@client>")
+                .status(InboundMailReceipt.Status.FAILED).failedAttempts(1).build();
+        when(receiptRepository.findByMessageId("<reply-1@client>")).thenReturn(Optional.of(failed));
+
+        assertEquals(InboundMailReceipt.Status.APPLIED,
+                service.process(parse("alice@example.com", "In-Reply-To: " + ROOT_ID)));
+        verify(receiptRepository).delete(failed);
+        assertEquals(InboundMailReceipt.Status.APPLIED, savedReceipt().getStatus());
+    }
+
+    @Test
+    void process_skipsMessageOutOfAttempts() throws Exception {
+        when(receiptRepository.findByMessageId("<reply-1@client>")).thenReturn(Optional.of(
+                InboundMailReceipt.builder().messageId("<reply-1@client>")
+                        .status(InboundMailReceipt.Status.FAILED).failedAttempts(3).build()));
+
+        assertNull(service.process(parse("alice@example.com", "In-Reply-To: " + ROOT_ID)));
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    void recordFailure_countsAttemptsUntilTheLimit() throws Exception {
+        MimeMessage message = parse("alice@example.com", "In-Reply-To: " + ROOT_ID);
+
+        assertTrue(service.recordFailure(message, new IllegalStateException("database down")));
+        InboundMailReceipt receipt = savedReceipt();
+        assertEquals(InboundMailReceipt.Status.FAILED, receipt.getStatus());
+        assertEquals(1, receipt.getFailedAttempts());
+
+        when(receiptRepository.findByMessageId("<reply-1@client>")).thenReturn(Optional.of(receipt));
+        assertTrue(service.recordFailure(message, new IllegalStateException("database down")));
+        assertFalse(service.recordFailure(message, new IllegalStateException("database down")));
+        assertEquals(3, receipt.getFailedAttempts());
+    }
+
+    @Test
+    void process_rejectsUnknownSender() throws Exception {
+        assertEquals(InboundMailReceipt.Status.REJECTED,
+                service.process(parse("nobody@example.com", "In-Reply-To: " + ROOT_ID)));
+        assertEquals("Unknown sender", savedReceipt().getDetail());
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    void process_rejectsSenderWhoCanSeeButIsNotOnTheTicket() throws Exception {
+        assertEquals(InboundMailReceipt.Status.REJECTED,
+                service.process(parse("mallory@example.com", "In-Reply-To: " + ROOT_ID)));
+        assertEquals("Sender is not a participant of the ticket", savedReceipt().getDetail());
+        verifyNoInteractions(ticketService);
+
+        when(commentRepository.existsByTicketIdAndAuthorId(42L, 8L)).thenReturn(true);
+        assertEquals(InboundMailReceipt.Status.APPLIED,
+                service.process(parse("mallory@example.com", "In-Reply-To: " + ROOT_ID, "<reply-2@client>")));
+    }
+
+    @Test
+    void process_ignoresAutoRepliesWithoutCommenting() throws Exception {
+        InboundMailReceipt.Status status = service.process(
+                parse("alice@example.com", "In-Reply-To: " + ROOT_ID + "\nAuto-Submitted: auto-replied"));
+
+        assertEquals(InboundMailReceipt.Status.IGNORED, status);
+        assertTrue(savedReceipt().getDetail().startsWith("Automated message"));
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    void process_ignoresSenderOverTheRateLimit() throws Exception {
+        when(receiptRepository.countByTicketIdAndSenderIgnoreCaseAndStatusAndProcessedAtAfter(eq(42L),
+                eq("alice@example.com"), eq(InboundMailReceipt.Status.APPLIED), any())).thenReturn(3L);
+
+        assertEquals(InboundMailReceipt.Status.IGNORED,
+                service.process(parse("alice@example.com", "In-Reply-To: " + ROOT_ID)));
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    void messageIdOf_hashesWholeMessageWhenIdIsMissing() throws Exception {
+        String first = InboundMailService.messageIdOf(parse("alice@example.com", "Subject: Re: x", null));
+        String same = InboundMailService.messageIdOf(parse("alice@example.com", "Subject: Re: x", null));
+        String otherBody = InboundMailService.messageIdOf(
+                parse("alice@example.com", "Subject: Re: x", null, "A different reply."));
+
+        assertEquals(first, same);
+        assertNotEquals(first, otherBody);
+        assertTrue(first.matches("<no-id\\.[0-9a-f]{64}@inbound>"), first);
+    }
+
+    private InboundMailReceipt savedReceipt() {
+        ArgumentCaptor<InboundMailReceipt> receipt = ArgumentCaptor.forClass(InboundMailReceipt.class);
+        verify(receiptRepository, atLeastOnce()).save(receipt.capture());
+        return receipt.getValue();
+    }
+
+    private static MimeMessage parse(String from, String headers) throws Exception {
+        return parse(from, headers, "<reply-1@client>");
+    }
+
+    private static MimeMessage parse(String from, String headers, String messageId) throws Exception {
+        return parse(from, headers, messageId, "Still broken after the restart.");
+    }
+
+    private static MimeMessage parse(String from, String headers, String messageId, String body) throws Exception {
+        String raw = (messageId != null ? "Message-ID: " + messageId + "\n" : "")
+                + "From: " + from + "\n"
+                + headers + "\n"
+                + "Content-Type: text/plain; charset=UTF-8\n\n"
+                + body + "\n\n"
+                + "On Mon, 6 Jan 2025 at 10:00, IT4U <it4u@example.com> wrote:\n"
+                + "> Ticket updated\n";
+        return new MimeMessage(Session.getInstance(new Properties()),
+                new ByteArrayInputStream(raw.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static User user(Long id, String email, User.Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setRole(role);
+        return user;
+    }
+}
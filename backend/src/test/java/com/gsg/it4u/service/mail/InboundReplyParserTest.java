@@ -0,0 +1,75 @@
+package com.gsg.it4u.service.mail;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InboundReplyParserTest {
+
+    private final InboundReplyParser parser = new InboundReplyParser();
+
+    private MimeMessage parse(String raw) throws Exception {
+        return new MimeMessage(Session.getInstance(new Properties()),
+                new ByteArrayInputStream(raw.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void referencedMessageIds_ShouldPreferInReplyToThenNewestReference() throws Exception {
+        MimeMessage message = parse("""
+                Message-ID: <reply@client>
+                In-Reply-To: <42.2@it4u.test>
+                References: <42.1@it4u.test> <42.2@it4u.test>
+                Subject: Re: ticket
+
+                Thanks
+                """);
+
+        assertEquals(List.of("<42.2@it4u.test>", "<42.1@it4u.test>"),
+                List.copyOf(parser.referencedMessageIds(message)));
+    }
+
+    @Test
+    void extractReply_ShouldStripQuotedHistory() throws Exception {
+        MimeMessage message = parse("""
+                Message-ID: <reply@client>
+                Content-Type: text/plain; charset=UTF-8
+
+                Restarted the laptop, still failing.
+                Screenshot attached.
+
+                On Mon, 6 Jan 2025 at 10:00, IT4U <it4u-notify@example.com> wrote:
+                > Your ticket GSG-0120250042 was updated.
+                > Status: IN_PROGRESS
+                """);
+
+        assertEquals("Restarted the laptop, still failing.\nScreenshot attached.", parser.extractReply(message));
+    }
+
+    @Test
+    void stripQuoted_ShouldStopAtOutlookSeparator() {
+        String text = "Done, please close.\r\n\r\n-----Original Message-----\r\nFrom: IT4U\r\nSubject: x";
+
+        assertEquals("Done, please close.", parser.stripQuoted(text));
+    }
+
+    @Test
+    void automatedReason_ShouldFlagAutoRepliesButNotPeople() throws Exception {
+        assertEquals("Auto-Submitted: auto-replied; owner-email=\"a@b\"",
+                parser.automatedReason(parse("Auto-Submitted: auto-replied; owner-email=\"a@b\"\n\nAway\n")));
+        assertEquals("Precedence: bulk", parser.automatedReason(parse("Precedence: bulk\n\nAway\n")));
+        assertEquals("X-Autoreply present", parser.automatedReason(parse("X-Autoreply: yes\n\nAway\n")));
+        assertEquals("X-Auto-Response-Suppress present",
+                parser.automatedReason(parse("X-Auto-Response-Suppress: All\n\nAway\n")));
+
+        assertNull(parser.automatedReason(parse("Auto-Submitted: No\nPrecedence: first-class\n\nThanks\n")));
+        assertNull(parser.automatedReason(parse("Subject: Re: ticket\n\nThanks\n")));
+    }
+}
@@ -0,0 +1,95 @@
+package com.gsg.it4u.service.mail;
+
+import com.gsg.it4u.entity.Ticket;
+import com.gsg.it4u.entity.User;
+import com.gsg.it4u.repository.EmailAuditRepository;
+import com.gsg.it4u.repository.TicketRepository;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TicketMailServiceTest {
+
+    private static final String ROOT_ID = "<42.1700000000000.abcd1234@it4u.test>";
+
+    private JavaMailSender mailSender;
+    private EmailMessageIdGenerator messageIdGenerator;
+    private TicketMailService ticketMailService;
+    private Ticket ticket;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage(Session.getInstance(new Properties())));
+        TicketRecipientResolver recipientResolver = mock(TicketRecipientResolver.class);
+        when(recipientResolver.resolve(any(), any(), any())).thenReturn(TicketRecipientResolver.EmailRecipients
+                .builder().to(new String[] { "alice@example.com" }).cc(new String[0]).build());
+        TicketMailComposer mailComposer = mock(TicketMailComposer.class);
+        when(mailComposer.build(any(), any(), any(), any())).thenReturn(
+                TicketMailComposer.MailContent.builder().subject("[IT4U] GSG-0120250042").body("<p>x</p>").build());
+        messageIdGenerator = new EmailMessageIdGenerator();
+        ReflectionTestUtils.setField(messageIdGenerator, "threadDomain", "it4u.test");
+
+        ticket = new Ticket();
+        ticket.setId(42L);
+        ticket.setEmailThreadMessageId(ROOT_ID);
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        when(ticketRepository.findReadOnlyById(42L)).thenReturn(Optional.of(ticket));
+
+        ticketMailService = new TicketMailService(mailSender, recipientResolver, mailComposer, ticketRepository,
+                mock(EmailAuditRepository.class), messageIdGenerator);
+        ReflectionTestUtils.setField(ticketMailService, "emailEnabled", true);
+        ReflectionTestUtils.setField(ticketMailService, "senderAddress", "it4u@example.com");
+    }
+
+    @Test
+    void creationMailIsTheThreadRoot_andLaterMailsReplyToIt() throws Exception {
+        ticketMailService.sendEmail(ticket, TicketRecipientResolver.MailAction.TICKET_CREATED, new User(), null);
+        ticketMailService.sendEmail(ticket, TicketRecipientResolver.MailAction.COMMENT_ADDED, new User(), "Done");
+        ticketMailService.sendEmail(ticket, TicketRecipientResolver.MailAction.STATUS_CHANGED, new User(), null);
+
+        List<MimeMessage> sent = sentMessages(3);
+        MimeMessage root = sent.get(0);
+        assertEquals(ROOT_ID, root.getMessageID());
+        assertNull(root.getHeader("In-Reply-To"));
+        assertNull(root.getHeader("References"));
+
+        for (MimeMessage reply : sent.subList(1, 3)) {
+            assertNotEquals(ROOT_ID, reply.getMessageID());
+            assertEquals(42L, messageIdGenerator.parseTicketId(reply.getMessageID()));
+            assertEquals(ROOT_ID, reply.getHeader("In-Reply-To", null));
+            assertEquals(ROOT_ID, reply.getHeader("References", null));
+        }
+        assertEquals(ROOT_ID, ticket.getEmailThreadMessageId());
+    }
+
+    @Test
+    void legacyTicketWithoutRoot_isMailedUnthreaded() throws Exception {
+        ticket.setEmailThreadMessageId(null);
+
+        ticketMailService.sendEmail(ticket, TicketRecipientResolver.MailAction.COMMENT_ADDED, new User(), "Done");
+
+        MimeMessage message = sentMessages(1).get(0);
+        assertEquals(42L, messageIdGenerator.parseTicketId(message.getMessageID()));
+        assertNull(message.getHeader("In-Reply-To"));
+        assertNull(ticket.getEmailThreadMessageId());
+    }
+
+    private List<MimeMessage> sentMessages(int count) {
+        ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mailSender, times(count)).send(sent.capture());
+        return sent.getAllValues();
+    }
+}
@@ -0,0 +1,159 @@
+package com.gsg.it4u.service.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AttachmentCacheTest {
+
+    @TempDir
+    Path root;
+
+    private AttachmentStore store;
+    private SimpleMeterRegistry meterRegistry;
+    private AttachmentCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        store = spy(new FileSystemAttachmentStore(root));
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> registryProvider = mock(ObjectProvider.class);
+        when(registryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        cache = new AttachmentCache(registryProvider);
+        ReflectionTestUtils.setField(cache, "maxBytes", 250L);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 100L);
+    }
+
+    @Test
+    void get_readsSmallFilesOnce_andCountsHitsAndMisses() throws Exception {
+        byte[] guide = write("blobs/aa/aa/guide", 80);
+
+        ByteBuffer first = cache.get("blobs/aa/aa/guide", store, 80L);
+        ByteBuffer second = cache.get("blobs/aa/aa/guide", store, 80L);
+
+        assertTrue(first.isDirect());
+        assertTrue(second.isReadOnly());
+        assertArrayEquals(guide, bytes(first));
+        assertArrayEquals(guide, bytes(second));
+        // Each caller reads its own view: consuming one does not move the other
+        assertEquals(80, cache.get("blobs/aa/aa/guide", store, 80L).remaining());
+        verify(store, times(1)).get("blobs/aa/aa/guide", 0, -1);
+        assertEquals(2, meterRegistry.counter("it4u.attachments.cache.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("it4u.attachments.cache.requests", "result", "miss").count());
+        assertEquals(80, cache.cachedBytes());
+    }
+
+    @Test
+    void get_leavesLargeFilesAndWrongSizesToTheCaller() throws Exception {
+        write("blobs/bb/bb/video", 150);
+        write("blobs/cc/cc/log", 50);
+
+        assertNull(cache.get("blobs/bb/bb/video", store, null));
+        assertNull(cache.get("blobs/cc/cc/log", store, 40L));
+        verify(store, never()).get("blobs/bb/bb/video", 0, -1);
+        assertEquals(0, cache.cachedBytes());
+        // Too large to ever be cached is not a miss the cache could have avoided
+        assertEquals(1, meterRegistry.counter("it4u.attachments.cache.requests", "result", "too_large").count());
+        assertEquals(1, meterRegistry.counter("it4u.attachments.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsed_andInvalidateDropsEntry() throws Exception {
+        write("a", 100);
+        write("b", 100);
+        write("c", 100);
+
+        cache.get("a", store, 100L);
+        cache.get("b", store, 100L);
+        cache.get("a", store, 100L);
+        cache.get("c", store, 100L);
+
+        assertEquals(200, cache.cachedBytes());
+        cache.get("a", store, 100L);
+        verify(store, times(1)).get("a", 0, -1);
+        cache.get("b", store, 100L);
+        verify(store, times(2)).get("b", 0, -1);
+
+        cache.invalidate("a");
+        Files.delete(root.resolve("a"));
+        assertThrows(java.nio.file.NoSuchFileException.class, () -> cache.get("a", store, 100L));
+    }
+
+    @Test
+    void get_concurrentMissesOnOneKeyShareOneRead() throws Exception {
+        byte[] logo = write("blobs/dd/dd/logo", 90);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return inv.callRealMethod();
+        }).when(store).get("blobs/dd/dd/logo", 0, -1);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<ByteBuffer> first = pool.submit(() -> cache.get("blobs/dd/dd/logo", store, 90L));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+            Future<ByteBuffer> second = pool.submit(() -> cache.get("blobs/dd/dd/logo", store, 90L));
+            Future<ByteBuffer> third = pool.submit(() -> cache.get("blobs/dd/dd/logo", store, 90L));
+            while (meterRegistry.counter("it4u.attachments.cache.requests", "result", "miss").count() < 3) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            assertArrayEquals(logo, bytes(first.get(5, TimeUnit.SECONDS)));
+            assertArrayEquals(logo, bytes(second.get(5, TimeUnit.SECONDS)));
+            assertArrayEquals(logo, bytes(third.get(5, TimeUnit.SECONDS)));
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(store, times(1)).get("blobs/dd/dd/logo", 0, -1);
+        assertEquals(90, cache.cachedBytes());
+    }
+
+    @Test
+    void get_doesNotCacheContentInvalidatedWhileLoading() throws Exception {
+        byte[] note = write("blobs/ee/ee/note", 60);
+        doAnswer(inv -> {
+            cache.invalidate("blobs/ee/ee/note"); // reclaimer deleted the file meanwhile
+            return inv.callRealMethod();
+        }).when(store).get("blobs/ee/ee/note", 0, -1);
+
+        assertArrayEquals(note, bytes(cache.get("blobs/ee/ee/note", store, 60L)));
+        assertEquals(0, cache.cachedBytes());
+    }
+
+    private byte[] write(String key, int size) throws Exception {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + key.length());
+        }
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        return content;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        return content;
+    }
+}